@@ -77,10 +77,38 @@ public final class Constants {
     public static final int kDriveCurrentLimit = 50; // NEO Vortex can handle more
     public static final int kTurningCurrentLimit = 30; // NEO 550
 
-    // Slew rate limiters (prevent tipping)
-    public static final double kDirectionSlewRate = 1.2; // radians per second
-    public static final double kMagnitudeSlewRate = 1.8; // percent per second (1.8 = 0 to 100% in 0.56s)
-    public static final double kRotationalSlewRate = 2.0; // percent per second
+    // Acceleration limits with the arm stowed (derated by the tipping model as the arm raises)
+    public static final double kMaxAccelerationMetersPerSecondSquared = 8.0; // Traction limit
+    public static final double kMaxAngularAccelerationRadiansPerSecondSquared = 12.0;
+  }
+
+  public static class TippingConstants {
+    // Center-of-mass model (MEASURE YOUR ROBOT!)
+    public static final double kChassisMassKg = 50.0; // Everything except the arm, with battery
+    public static final double kChassisCoMHeightMeters = 0.15;
+    public static final double kArmMassKg = 6.0; // Arm, extension and a coral
+    public static final double kArmPivotHeightMeters = 0.5;
+    public static final double kArmPivotXMeters = 0.0; // Forward of robot center
+    public static final double kArmCoMRadiusMeters = 0.35; // Pivot to arm CoM when retracted
+    public static final double kExtensionCoMMetersPerTick = 0.0003; // CoM shift per extension tick
+
+    // Arm angle: radians from horizontal (forward) = stowed angle + ticks * radians per tick
+    public static final double kArmStowedAngleRadians = -Math.PI / 2; // Hanging straight down
+    public static final double kArmRadiansPerTick = Math.PI / 500.0;
+
+    // Fraction of the tipping acceleration we allow (margin for bumps and model error)
+    public static final double kSafetyFactor = 0.5;
+
+    // Tip detection from NavX pitch/roll (sampled in the NavX callback)
+    public static final int kNavXUpdateRateHz = 200; // NavX max - one sample every 5 ms
+    public static final double kTipAngleDegrees = 12.0; // Tilt that always triggers recovery
+    public static final double kTipRateDegreesPerSecond = 60.0; // Tilt rate that triggers recovery...
+    public static final double kTipRateMinAngleDegrees = 5.0; // ...once tilted at least this much
+    public static final double kTipRecoveredAngleDegrees = 4.0; // Recovery ends below this tilt
+    public static final double kTipCorrectionGain = 0.15; // m/s of corrective drive per degree of tilt
+    public static final double kTipMaxCorrectionSpeed = 1.5; // m/s
+    public static final double kPitchSign = -1.0; // Drive direction for positive pitch - VERIFY ON ROBOT!
+    public static final double kRollSign = 1.0; // Drive direction for positive roll - VERIFY ON ROBOT!
   }
 
   public static class IntakeConstants {
@@ -88,10 +116,35 @@ public final class Constants {
     public static final int kIntakeMotorId = 9;
     public static final int kIntakeRollerMotorId = 10;
 
-    // Intake speeds
+    // Intake speeds (fraction of roller free speed - intake/index/outtake run closed-loop velocity)
     public static final double kIntakeSpeed = 0.75;
     public static final double kOuttakeSpeed = -0.5;
     public static final double kHoldSpeed = 0.1;
+    public static final double kIndexSpeed = 0.3; // After the beam break, until the coral is indexed
+
+    // Roller velocity control (RPM, feedforward in volts)
+    public static final double kRollerP = 0.0002;
+    public static final double kRollerI = 0.0;
+    public static final double kRollerD = 0.0;
+    public static final double kRollerKS = 0.15; // Volts to overcome friction
+    public static final double kRollerKV = 12.0 / 5676.0; // Volts per RPM
+    public static final double kRollerVelocityToleranceRPM = 200.0; // At speed inside this band
+
+    // Sensor-terminated intake/outtake
+    public static final double kIndexRotations = 2.0; // Roller rotations past the beam break to center the coral
+    public static final double kEjectDebounceSeconds = 0.1; // Beam must stay clear this long before stopping
+    public static final double kOuttakeTimeoutSeconds = 1.0; // Give up on the beam break after this long
+    public static final double kAutoIntakeTimeoutSeconds = 3.0; // Autonomous moves on without a coral after this long
+
+    // Current-signature game piece detection (backs up the beam break)
+    public static final double kSignatureSamplePeriod = 0.005; // seconds (SPARK status 1 runs at the same rate)
+    public static final double kRollerFreeSpeedRPM = 5676.0; // NEO free speed at 12V (voltage compensated)
+    public static final double kSignatureLoadedRatio = 0.6; // Velocity / free speed below this = loaded
+    public static final double kSignatureFreeRatio = 0.85; // Velocity / free speed above this = empty
+    public static final double kSignatureLoadedCurrent = 8.0; // Amps (average of both motors)
+    public static final double kSignatureDwellSeconds = 0.04; // Signature must hold this long
+    public static final double kSignatureSettleSeconds = 0.15; // Ignore spin-up after a command change
+    public static final double kSensorDisagreeSeconds = 0.25; // Disagreement before the beam break loses trust
 
     // Current limits
     public static final int kCurrentLimit = 30;
@@ -144,6 +197,32 @@ public final class Constants {
     public static final double kMaxExtensionVelocity = 2000;
     public static final double kMaxExtensionAcceleration = 1500;
 
+    // On-RIO profile velocity feedforward (volts per encoder unit/s) - TUNE!
+    public static final double kArmKV = 0.004;
+    public static final double kExtensionKV = 0.004;
+
+    // Gravity feedforward table (volts vs arm angle and extension)
+    public static final String kGravityFFFileName = "arm_gravity_ff.csv"; // deploy dir or /home/lvuser
+    public static final double kGravityFFArmMin = 0; // First arm grid point (encoder ticks)
+    public static final double kGravityFFArmStep = 100; // Arm grid spacing (encoder ticks)
+    public static final int kGravityFFArmPoints = 6; // 0 to 500
+    public static final double kGravityFFExtensionMin = 0; // First extension grid point (encoder ticks)
+    public static final double kGravityFFExtensionStep = 300; // Extension grid spacing (encoder ticks)
+    public static final int kGravityFFExtensionPoints = 5; // 0 to 1200
+
+    // Homing state persisted across reboots (in /home/lvuser)
+    public static final String kHomingFileName = "arm_homing.bin";
+
+    // Distance-interpolated scoring: robot center to reef face (meters) -> offset from the preset
+    public static final double[] kScoringDistancesMeters = {0.45, 0.60, 0.75, 0.90}; // First = normal standoff
+    public static final double[] kScoringArmOffsets = {0, -10, -20, -35}; // encoder ticks
+    public static final double[] kScoringExtensionOffsets = {0, 150, 300, 450}; // encoder ticks
+
+    // Pre-positioning the arm while driving to the reef
+    public static final double kApproachZoneMeters = 2.0; // Start moving this far from the scoring position
+    public static final double kPrepositionMaxSpeed = 1.5; // m/s - faster than this, only tipping-safe moves
+    public static final double kPrepositionCarryArmLimit = 200; // Max arm angle above that speed (encoder ticks)
+
     // Current limits
     public static final int kCurrentLimit = 40;
   }
@@ -153,14 +232,41 @@ public final class Constants {
     public static final int kLeftClimberMotorId = 13;
     public static final int kRightClimberMotorId = 14;
 
-    // Climber positions
+    // Climber positions - the encoders have no conversion factor, so positions are motor
+    // rotations and SPARK velocities are RPM (the synchronized profile runs in rotations/s)
     public static final double kRetractedPosition = 0;
-    public static final double kExtendedPosition = 5000;
+    public static final double kExtendedPosition = 100; // Motor rotations
+    public static final double kPositionTolerance = 1.0; // Motor rotations
 
     // Climb speeds
-    public static final double kClimbSpeed = 0.8;
     public static final double kDescendSpeed = -0.5;
 
+    // Synchronized climb - profiled average position with left/right cross-coupling
+    public static final double kClimbedPosition = 180; // Motor rotations at the top of the climb (climb runs positive)
+    public static final double kFreeSpeedRotationsPerSecond = 5676.0 / 60.0; // NEO free speed at 12V
+    public static final double kClimbMaxVelocity = 85.0; // Rotations per second (~0.9 output)
+    public static final double kClimbMaxAcceleration = 170.0; // Rotations per second²
+    public static final double kClimbKV = 1.0 / kFreeSpeedRotationsPerSecond; // Output per rotation/s
+    public static final double kClimbHoldFF = 0.12; // Output to carry the robot's weight once on the cage - TUNE
+    public static final double kClimbSyncP = 0.1; // Output per rotation of average position error
+    public static final double kCrossCouplingP = 0.2; // Output per rotation of left/right difference
+    public static final double kPullMaxVelocity = 55.0; // High-torque pull once on the cage (rotations/s)
+    public static final double kPullMaxAcceleration = 110.0; // Rotations per second²
+    public static final double kClimbGoalTolerance = 1.0; // Motor rotations
+
+    // Automatic climb - cage contact from the current/velocity signature
+    public static final double kContactSeekSpeed = 0.2; // Open-loop pull while waiting for the cage
+    public static final double kContactCurrent = 25.0; // Amps (average of both sides)
+    public static final double kContactVelocity = 500.0; // RPM - slower than this with high current = on the cage
+    public static final double kContactDwellSeconds = 0.1;
+    public static final double kContactTimeoutSeconds = 3.0;
+    public static final double kPullStallSeconds = 0.25; // Stalled this long after the profile ends = hold there
+    public static final double kPullTimeoutSeconds = 5.0; // Hold wherever the pull got to after this long
+
+    // Status frame periods - fast only while climbing to keep CAN load down the rest of the match
+    public static final int kActiveStatusPeriodMs = 10;
+    public static final int kIdleStatusPeriodMs = 500;
+
     // PID constants for climber position control - MUST BE TUNED!
     public static final double kClimberP = 0.1;
     public static final double kClimberI = 0.0;
@@ -170,6 +276,61 @@ public final class Constants {
     public static final int kCurrentLimit = 60;
   }
 
+  public static class PowerConstants {
+    // Total current budget - derated linearly as the battery sags
+    public static final double kMaxTotalCurrentAmps = 460.0; // Sum of the nominal limits - no derating on a healthy battery
+    public static final double kDerateStartVoltage = 11.0; // Full budget above this
+    public static final double kDerateEndVoltage = 8.0; // Minimum budget below this
+    public static final double kMinBudgetFraction = 0.4;
+    public static final double kVoltageFilterSeconds = 1.0; // Time constant - rides through current bursts
+    public static final double kVoltageFilterPeriodSeconds = 0.02; // update() is called every loop
+
+    // Allocation
+    public static final double kUpdatePeriodSeconds = 0.25; // Reallocation rate (each change is a CAN config write)
+    public static final double kDemandHeadroom = 1.25; // Allocate measured demand times this
+    public static final double kPdhDemandStaleSeconds = 0.5; // Fall back to motor-reported current after this
+    public static final int kLimitStepAmps = 5; // Limits are rounded down to this step
+    public static final double kMinOutputScale = 0.5;
+
+    // Priorities (lower is served first)
+    public static final int kDrivePriority = 0;
+    public static final int kClimberPriority = 1; // Only draws much while climbing, when nothing else does
+    public static final int kArmPriority = 2;
+    public static final int kIntakePriority = 3;
+
+    // Per-motor limits that are never taken away
+    public static final int kDriveMinCurrentLimit = 25;
+    public static final int kClimberMinCurrentLimit = 20;
+    public static final int kArmMinCurrentLimit = 15;
+    public static final int kIntakeMinCurrentLimit = 10;
+
+    // Battery model (online fit of V = Voc - R * I from PDH samples)
+    public static final double kBatteryForgettingFactor = 0.995; // ~4s memory at the PDH sample rate
+    public static final double kNominalBatteryResistanceOhms = 0.02; // Battery, breaker and wiring - used until the fit converges
+    public static final double kMinBatteryResistanceOhms = 0.005;
+    public static final double kMaxBatteryResistanceOhms = 0.1;
+    public static final double kMinOpenCircuitVoltage = 9.0;
+    public static final double kMaxOpenCircuitVoltage = 13.5;
+    public static final double kMinCurrentSpreadAmps = 10.0; // Current variation needed before R is trusted
+
+    // Predictive brownout avoidance - commands are clipped so the predicted voltage stays above the floor
+    public static final double kMinPredictedVoltage = 7.5; // roboRIO brownout is 6.75V
+    public static final double kBrownoutHysteresisVolts = 0.5; // Predicted brownout clears this far above the floor
+    public static final double kDriveAmpsPerMps2 = 25.0; // Total drive current per m/s² of chassis acceleration
+    public static final double kMinBrownoutAcceleration = 1.0; // m/s² - never clip below this (braking)
+    public static final double kDriveHeadroomShare = 0.7; // Drive and arm split the current headroom
+    public static final double kArmHeadroomShare = 0.3; // Shares must add up to at most 1
+    public static final double kArmMoveCurrentAmps = 60.0; // Extra current of a full-acceleration arm move
+    public static final double kMinArmProfileScale = 0.5;
+
+    // Background PDH sampling and per-subsystem channel attribution (match the robot's wiring)
+    public static final double kPdhSamplePeriodSeconds = 0.02;
+    public static final int[] kDrivePdhChannels = {0, 1, 2, 3, 4, 5, 6, 7}; // Drive and turning motors
+    public static final int[] kArmPdhChannels = {8, 9};
+    public static final int[] kIntakePdhChannels = {10, 11};
+    public static final int[] kClimberPdhChannels = {12, 13};
+  }
+
   public static class AutoConstants {
     public static final double kMaxSpeedMetersPerSecond = 2.0;
     public static final double kMaxAccelerationMetersPerSecondSquared = 2.0;
@@ -185,5 +346,23 @@ public final class Constants {
     public static final double kLimelightMountAngleDegrees = 25.0;
     public static final double kLimelightHeightMeters = 0.5;
     public static final double kTargetHeightMeters = 0.9;
+    public static final double kLimelightHorizontalFovDegrees = 59.6; // Limelight 3 field of view
+    public static final double kLimelightVerticalFovDegrees = 49.7;
+
+    // Limelight pipelines (index in the Limelight web UI)
+    public static final int kAprilTagPipeline = 0;
+    public static final int kGamePiecePipeline = 1;
+    public static final double kPoseRefreshPeriodSeconds = 1.0; // While intaking, switch to AprilTags this often...
+    public static final double kPoseRefreshSeconds = 0.25; // ...for this long, so pose fusion never stops
+
+    // Dynamic crop window around the expected target (degrees added around the tag)
+    public static final double kCropTrackingMarginDegrees = 6.0; // Target seen last frame
+    public static final double kCropPredictedMarginDegrees = 12.0; // Target predicted from pose only
+    public static final double kReefTagHeightMeters = 0.308; // Height of reef tag centers
+
+    // Reef targeting (pose-based)
+    public static final double kReefStandoffMeters = 0.45; // Robot center to reef face when scoring
+    public static final double kReefMaxTargetingDistanceMeters = 6.0; // Ignore faces farther than this
+    public static final double kReefBranchOffsetMeters = 0.1643; // Branch pipe to face center (6.47 in)
   }
 }
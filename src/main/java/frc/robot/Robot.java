@@ -3,9 +3,15 @@ package frc.robot;
 import edu.wpi.first.wpilibj.PowerDistribution;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.util.BatteryEstimator;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.FaultMonitor;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.PdhSampler;
+import frc.robot.util.PowerManager;
 
 /**
  * FRC Team 6045 - 2025 Reefscape Robot
@@ -14,13 +20,27 @@ import edu.wpi.first.wpilibj2.command.CommandScheduler;
 public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
   private RobotContainer m_robotContainer;
-  private PowerDistribution m_pdp;
+  // PDH is sampled on its own thread - the loop only copies the latest snapshot
+  private PdhSampler m_pdhSampler;
+  private PdhSampler.Snapshot m_pdhSnapshot;
+  private String[] m_pdhGroupKeys;
+  private int[] m_pdhGroupConsumers; // PowerManager handle per group (-1 if none)
+  private double m_lastPdhTimestamp = Double.NEGATIVE_INFINITY;
 
   // Brownout protection
   private static final double BROWNOUT_VOLTAGE = 10.5; // Volts
   private static final double WARNING_VOLTAGE = 11.5; // Volts
+  private static final double VOLTAGE_HYSTERESIS = 0.3; // Volts above a threshold before it clears
+  private boolean m_lowVoltage = false;
+  private boolean m_brownoutPredicted = false;
   private boolean m_lowVoltageWarning = false;
 
+  // Outbound NetworkTables writes are batched and sent once per loop
+  private final NTWriteCoalescer m_ntWriter = NTWriteCoalescer.getInstance();
+
+  // Motor fault rules for every subsystem, evaluated within a fixed time budget
+  private final FaultMonitor m_faultMonitor = FaultMonitor.getInstance();
+
   @Override
   public void robotInit() {
     // Instantiate our RobotContainer. This will perform all our button bindings,
@@ -29,9 +49,23 @@ public class Robot extends TimedRobot {
 
     // Initialize Power Distribution for monitoring
     try {
-      m_pdp = new PowerDistribution();
+      m_pdhSampler = new PdhSampler(new PowerDistribution(), PowerConstants.kPdhSamplePeriodSeconds);
+      m_pdhSampler.addGroup("Drive", PowerConstants.kDrivePdhChannels);
+      m_pdhSampler.addGroup("Arm", PowerConstants.kArmPdhChannels);
+      m_pdhSampler.addGroup("Intake", PowerConstants.kIntakePdhChannels);
+      m_pdhSampler.addGroup("Climber", PowerConstants.kClimberPdhChannels);
+      m_pdhSampler.start();
+      m_pdhSnapshot = m_pdhSampler.newSnapshot();
+      m_pdhGroupKeys = new String[m_pdhSampler.getGroupCount()];
+      m_pdhGroupConsumers = new int[m_pdhGroupKeys.length];
+      for (int group = 0; group < m_pdhGroupKeys.length; group++) {
+        String name = m_pdhSampler.getGroupName(group);
+        m_pdhGroupKeys[group] = "Power/" + name + " Current (A)";
+        m_pdhGroupConsumers[group] = PowerManager.getInstance().getHandle(name);
+      }
       System.out.println("✓ Power Distribution initialized - battery monitoring enabled");
     } catch (Exception e) {
+      m_pdhSampler = null;
       System.err.println("⚠️ ERROR: Could not initialize Power Distribution: " + e.getMessage());
       System.err.println("   Battery voltage and current monitoring disabled!");
       System.err.println("   Check Power Distribution Hub connection.");
@@ -47,7 +81,7 @@ public class Robot extends TimedRobot {
     System.out.println("");
     System.out.println("📋 CALIBRATION HELPERS:");
     System.out.println("  Driver Back: Print swerve calibration offsets");
-    System.out.println("  Operator D-Pad Left: Record current arm position");
+    System.out.println("  Operator D-Pad Left: Save arm position as the current preset");
     System.out.println("  Operator D-Pad Right: Home arm manually");
     System.out.println("");
     System.out.println("⚠️  REMEMBER: Home arm (D-Pad Right) before using!");
@@ -62,27 +96,81 @@ public class Robot extends TimedRobot {
     // finished or interrupted commands, and running subsystem periodic() methods.
     CommandScheduler.getInstance().run();
 
-    // Monitor battery voltage and warn about brownouts
-    double batteryVoltage = RobotController.getBatteryVoltage();
-    SmartDashboard.putNumber("Battery Voltage", batteryVoltage);
+    // Check motor current spikes, stalls and I²t limits
+    m_faultMonitor.update();
+
+    // Reallocate subsystem current limits from the battery model and demand (low rate)
+    PowerManager.getInstance().update();
+
+    // Apply calibration changes (recorded positions or an edited calibration.json)
+    CalibrationStore.getInstance().update();
+
+    // Publish total and per-subsystem current draw from the latest PDH sample, feed each
+    // new voltage/current pair to the battery model, and attribute group currents to the
+    // power budget's consumers
+    PowerManager power = PowerManager.getInstance();
+    if (m_pdhSampler != null && m_pdhSampler.read(m_pdhSnapshot)) {
+      if (m_pdhSnapshot.timestamp > m_lastPdhTimestamp) {
+        m_lastPdhTimestamp = m_pdhSnapshot.timestamp;
+        power.addBatterySample(m_pdhSnapshot.voltage, m_pdhSnapshot.totalCurrent);
+        for (int group = 0; group < m_pdhGroupConsumers.length; group++) {
+          if (m_pdhGroupConsumers[group] >= 0) {
+            power.setPdhDemand(m_pdhGroupConsumers[group], m_pdhSnapshot.groupCurrents[group]);
+          }
+        }
+      }
+      m_ntWriter.putNumber("Total Current", m_pdhSnapshot.totalCurrent);
+      m_ntWriter.putNumber("Power/PDH Temperature (C)", m_pdhSnapshot.temperature);
+      for (int group = 0; group < m_pdhGroupKeys.length; group++) {
+        m_ntWriter.putNumber(m_pdhGroupKeys[group], m_pdhSnapshot.groupCurrents[group]);
+      }
+    }
 
+    // Monitor battery voltage and warn about brownouts - also before they happen, if the
+    // battery model predicts the expected demand would take the voltage below the floor.
+    // Both conditions clear with hysteresis so a borderline battery doesn't toggle them.
+    double batteryVoltage = RobotController.getBatteryVoltage();
+    m_ntWriter.putNumber("Battery Voltage", batteryVoltage);
+
+    BatteryEstimator battery = power.getBatteryEstimator();
+    double expectedCurrent = power.getExpectedCurrent();
+    double expectedVoltage = battery.predictVoltage(expectedCurrent);
+    if (!battery.isConverged()) {
+      m_brownoutPredicted = false;
+    } else if (expectedVoltage < PowerConstants.kMinPredictedVoltage) {
+      m_brownoutPredicted = true;
+    } else if (expectedVoltage > PowerConstants.kMinPredictedVoltage + PowerConstants.kBrownoutHysteresisVolts) {
+      m_brownoutPredicted = false;
+    }
     if (batteryVoltage < BROWNOUT_VOLTAGE) {
+      m_lowVoltage = true;
+    } else if (batteryVoltage > BROWNOUT_VOLTAGE + VOLTAGE_HYSTERESIS) {
+      m_lowVoltage = false;
+    }
+    m_ntWriter.putNumber("Power/Predicted Voltage (V)", expectedVoltage);
+    m_ntWriter.putNumber("Power/Current Headroom (A)", power.getCurrentHeadroom());
+
+    if (m_lowVoltage || m_brownoutPredicted) {
       if (!m_lowVoltageWarning) {
-        System.err.println("⚠️ CRITICAL: Battery voltage below " + BROWNOUT_VOLTAGE + "V! Risk of brownout!");
+        if (m_brownoutPredicted) {
+          System.err.println("⚠️ CRITICAL: Battery predicted to sag to " + String.format("%.1f", expectedVoltage)
+              + "V at the expected " + String.format("%.0f", expectedCurrent) + "A draw! Risk of brownout!");
+        } else {
+          System.err.println("⚠️ CRITICAL: Battery voltage below " + BROWNOUT_VOLTAGE + "V! Risk of brownout!");
+        }
         m_lowVoltageWarning = true;
       }
-      SmartDashboard.putBoolean("LOW BATTERY", true);
+      m_ntWriter.putBoolean("LOW BATTERY", true);
     } else if (batteryVoltage < WARNING_VOLTAGE) {
-      SmartDashboard.putBoolean("LOW BATTERY", true);
-    } else {
-      SmartDashboard.putBoolean("LOW BATTERY", false);
+      m_ntWriter.putBoolean("LOW BATTERY", true);
+    } else if (batteryVoltage > WARNING_VOLTAGE + VOLTAGE_HYSTERESIS) {
+      // Only re-arm the critical message once the battery has clearly recovered
+      m_ntWriter.putBoolean("LOW BATTERY", false);
       m_lowVoltageWarning = false;
     }
 
-    // Publish total current draw if PDP is available
-    if (m_pdp != null) {
-      SmartDashboard.putNumber("Total Current", m_pdp.getTotalCurrent());
-    }
+    // Send all changed NetworkTables values in one batch
+    m_ntWriter.flush();
   }
 
   @Override
@@ -138,4 +226,10 @@ public class Robot extends TimedRobot {
 
   @Override
   public void testExit() {}
+
+  @Override
+  public void simulationPeriodic() {
+    // Update simulated sensors (Limelight) from the simulated robot pose
+    m_robotContainer.simulationPeriodic();
+  }
 }
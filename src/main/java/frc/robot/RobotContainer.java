@@ -1,5 +1,10 @@
 package frc.robot;
 
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -7,10 +12,17 @@ import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.Constants.ClimberConstants;
+import frc.robot.Constants.IntakeConstants;
 import frc.robot.Constants.OperatorConstants;
+import frc.robot.Constants.VisionConstants;
 import frc.robot.commands.*;
+import frc.robot.sim.LimelightSim;
 import frc.robot.subsystems.*;
 import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+import frc.robot.util.ReefTargeting;
+import frc.robot.util.ScoringSetpoints;
 
 /**
  * This class is where the bulk of the robot should be declared. Since Command-based is a
@@ -24,6 +36,20 @@ public class RobotContainer {
   private final IntakeSubsystem m_intake = new IntakeSubsystem();
   private final ArmSubsystem m_arm = new ArmSubsystem();
   private final ClimberSubsystem m_climber = new ClimberSubsystem();
+  private final VisionSubsystem m_vision = new VisionSubsystem();
+
+  // Field layout and pose-based targeting
+  private final AprilTagFieldLayout m_fieldLayout =
+      AprilTagFieldLayout.loadField(AprilTagFields.k2025Reefscape);
+  private final ReefTargeting m_reefTargeting = new ReefTargeting(m_fieldLayout);
+  private final ScoringSetpoints m_scoringSetpoints = new ScoringSetpoints(m_reefTargeting);
+  private final ReefTargeting m_approachTargeting = new ReefTargeting(m_fieldLayout); // Pre-positioning only
+
+  // Scoring level the arm pre-positions for when approaching the reef with a coral
+  private ArmPosition m_selectedLevel = ArmPosition.LEVEL_2;
+
+  // Simulated sensors (null on the real robot)
+  private LimelightSim m_limelightSim;
 
   // Controllers
   private final XboxController m_driverController = new XboxController(
@@ -39,6 +65,23 @@ public class RobotContainer {
     // Validate controller connections
     validateControllers();
 
+    // Fuse Limelight AprilTag poses into the drive pose estimator
+    m_vision.setPoseConsumer(m_drive::addVisionMeasurement);
+
+    // Derate drivetrain acceleration and speed as the arm raises the center of mass
+    m_drive.setArmStateSupplier(m_arm::getArmPosition, m_arm::getExtensionPosition);
+
+    // No tip recovery while the climber is deployed - hanging tilts the robot on purpose
+    m_drive.setTipDetectionSuspended(m_climber::isDeployed);
+
+    // Switch pipelines with intake state and crop around the predicted reef tag
+    m_vision.configurePipelineControl(m_intake::hasGamePiece, m_drive::getPose, m_fieldLayout);
+
+    // Stand-in Limelight driven by the simulated robot pose
+    if (RobotBase.isSimulation()) {
+      m_limelightSim = new LimelightSim(m_drive::getSimulatedPose, m_fieldLayout);
+    }
+
     // Configure the trigger bindings
     configureBindings();
 
@@ -144,6 +187,16 @@ public class RobotContainer {
     new JoystickButton(m_driverController, XboxController.Button.kStart.value)
         .onTrue(Commands.runOnce(() -> m_drive.setX(), m_drive));
 
+    // Y button - Aim at nearest reef face using the fused pose (while held)
+    new JoystickButton(m_driverController, XboxController.Button.kY.value)
+        .whileTrue(VisionCommands.aimAtReef(m_drive, m_reefTargeting));
+
+    // D-pad Left/Right - Drive to left/right reef branch scoring pose (while held)
+    new Trigger(() -> m_driverController.getPOV() == 270)
+        .whileTrue(VisionCommands.alignToReefBranch(m_drive, m_reefTargeting, true));
+    new Trigger(() -> m_driverController.getPOV() == 90)
+        .whileTrue(VisionCommands.alignToReefBranch(m_drive, m_reefTargeting, false));
+
     // Back button - Print swerve calibration offsets (for setup)
     new JoystickButton(m_driverController, XboxController.Button.kBack.value)
         .onTrue(new PrintSwerveOffsets(m_drive));
@@ -154,21 +207,21 @@ public class RobotContainer {
     new JoystickButton(m_operatorController, XboxController.Button.kA.value)
         .onTrue(ArmCommands.intakePosition(m_arm));
 
-    // B button - Arm to Level 1
+    // B button - Arm to Level 1 (adjusted for distance to the reef)
     new JoystickButton(m_operatorController, XboxController.Button.kB.value)
-        .onTrue(ArmCommands.scoreLevel1(m_arm));
+        .onTrue(scoreLevel(ArmPosition.LEVEL_1));
 
-    // X button - Arm to Level 2
+    // X button - Arm to Level 2 (adjusted for distance to the reef)
     new JoystickButton(m_operatorController, XboxController.Button.kX.value)
-        .onTrue(ArmCommands.scoreLevel2(m_arm));
+        .onTrue(scoreLevel(ArmPosition.LEVEL_2));
 
-    // Y button - Arm to Level 3
+    // Y button - Arm to Level 3 (adjusted for distance to the reef)
     new JoystickButton(m_operatorController, XboxController.Button.kY.value)
-        .onTrue(ArmCommands.scoreLevel3(m_arm));
+        .onTrue(scoreLevel(ArmPosition.LEVEL_3));
 
-    // Right bumper - Arm to Level 4
+    // Right bumper - Arm to Level 4 (adjusted for distance to the reef)
     new JoystickButton(m_operatorController, XboxController.Button.kRightBumper.value)
-        .onTrue(ArmCommands.scoreLevel4(m_arm));
+        .onTrue(scoreLevel(ArmPosition.LEVEL_4));
 
     // Left bumper - Stow arm
     new JoystickButton(m_operatorController, XboxController.Button.kLeftBumper.value)
@@ -176,17 +229,21 @@ public class RobotContainer {
 
     // Back button - Extend climber
     new JoystickButton(m_operatorController, XboxController.Button.kBack.value)
-        .onTrue(ClimberCommands.extend(m_climber, 50));
+        .onTrue(ClimberCommands.extend(m_climber, ClimberConstants.kPositionTolerance));
 
     // Start button - Retract climber
     new JoystickButton(m_operatorController, XboxController.Button.kStart.value)
-        .onTrue(ClimberCommands.retract(m_climber, 50));
+        .onTrue(ClimberCommands.retract(m_climber, ClimberConstants.kPositionTolerance));
 
     // Right trigger - Climb
     new Trigger(() -> m_operatorController.getRightTriggerAxis() > 0.5)
         .whileTrue(ClimberCommands.climb(m_climber))
         .onFalse(ClimberCommands.stop(m_climber));
 
+    // Right stick click - Automatic climb (extend, find the cage, pull, hold)
+    new JoystickButton(m_operatorController, XboxController.Button.kRightStick.value)
+        .onTrue(new AutoClimb(m_climber));
+
     // Left trigger - Descend climber
     new Trigger(() -> m_operatorController.getLeftTriggerAxis() > 0.5)
         .whileTrue(ClimberCommands.descend(m_climber))
@@ -207,8 +264,64 @@ public class RobotContainer {
           System.out.println("ARM HOMED - Encoders reset, arm ready for use");
         }, m_arm));
 
-    new Trigger(() -> m_operatorController.getPOV() == 270) // Left - Record current position for calibration
-        .onTrue(new RecordArmPosition(m_arm, "CURRENT"));
+    new Trigger(() -> m_operatorController.getPOV() == 270) // Left - Save current position as the target preset
+        .onTrue(new RecordArmPosition(m_arm));
+
+    // Tip recovery - the drivetrain corrects itself from the NavX callback, pull the arm in too
+    new Trigger(m_drive::isTipping)
+        .onTrue(Commands.runOnce(() -> m_arm.retractExtension(), m_arm));
+
+    // Carrying a coral toward the reef - start raising the arm to the selected level on the way in
+    // (never over an arm command the operator started, e.g. a distance-adjusted score)
+    new Trigger(DriverStation::isTeleopEnabled)
+        .onTrue(Commands.runOnce(m_approachTargeting::refreshAlliance));
+    new Trigger(() -> DriverStation.isTeleopEnabled() && m_intake.hasGamePiece() && isArmFree()
+                      && distanceToReefScoring() <= ArmConstants.kApproachZoneMeters)
+        .whileTrue(new PrepositionArm(m_arm, () -> m_selectedLevel,
+                                      this::distanceToReefScoring, this::getRobotSpeed));
+  }
+
+  /**
+   * Select a scoring level and move the arm there (adjusted for distance to the reef)
+   *
+   * @param level Scoring level
+   * @return Scoring command
+   */
+  private Command scoreLevel(ArmPosition level) {
+    return Commands.runOnce(() -> {
+      m_selectedLevel = level;
+      SmartDashboard.putString("Superstructure/Selected Level", level.name());
+    }).andThen(ArmCommands.scoreAtDistance(m_arm, m_scoringSetpoints, m_drive::getPose, level));
+  }
+
+  /**
+   * Distance from the robot to the scoring position on the nearest reef face
+   *
+   * @return Distance in meters (infinite if no reef face is in range)
+   */
+  private double distanceToReefScoring() {
+    if (!m_approachTargeting.update(m_drive.getPose())) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return Math.max(0.0, m_approachTargeting.getDistanceMeters() - VisionConstants.kReefStandoffMeters);
+  }
+
+  /**
+   * Check if the arm can be pre-positioned (idle, or already pre-positioning)
+   *
+   * @return true if no other arm command is running
+   */
+  private boolean isArmFree() {
+    Command current = m_arm.getCurrentCommand();
+    return current == null || current instanceof PrepositionArm;
+  }
+
+  /**
+   * @return Robot translational speed in m/s
+   */
+  private double getRobotSpeed() {
+    ChassisSpeeds speeds = m_drive.getChassisSpeeds();
+    return Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond);
   }
 
   /**
@@ -223,6 +336,17 @@ public class RobotContainer {
 
     // Put the chooser on the dashboard
     SmartDashboard.putData("Auto Chooser", m_autoChooser);
+
+    // Pit tools: automatic homing, fill the arm gravity feedforward table
+    SmartDashboard.putData("Auto Home Arm", new AutoHomeArm(m_arm));
+    SmartDashboard.putData("Characterize Arm FF", new CharacterizeArmFeedforward(m_arm));
+
+    // Simulation-only benchmarks (DriveToPose vs aimAndApproach, timed vs sensor-terminated scoring)
+    if (RobotBase.isSimulation()) {
+      SmartDashboard.putData("Align Benchmark",
+          VisionCommands.alignBenchmark(m_drive, m_vision, m_reefTargeting));
+      SmartDashboard.putData("Intake Cycle Benchmark", IntakeCommands.cycleBenchmark(m_intake));
+    }
   }
 
   /**
@@ -257,9 +381,7 @@ public class RobotContainer {
 
         // Score preloaded coral at Level 2
         ArmCommands.moveToPosition(m_arm, ArmPosition.LEVEL_2, 20),
-        Commands.waitSeconds(0.5),
-        IntakeCommands.outtake(m_intake, 0.5),
-        Commands.waitSeconds(0.5),
+        IntakeCommands.outtakeUntilClear(m_intake),
 
         // Stow arm
         ArmCommands.stow(m_arm),
@@ -279,6 +401,7 @@ public class RobotContainer {
    * @return the command to run in autonomous
    */
   public Command getTwoPieceAuto() {
+    DriveDistance driveBack = new DriveDistance(m_drive, -2.0, 0.5); // Drive 2 meters backward
     return Commands.sequence(
         // Check if arm is homed
         Commands.runOnce(() -> {
@@ -289,7 +412,7 @@ public class RobotContainer {
 
         // Score preloaded coral
         ArmCommands.moveToPosition(m_arm, ArmPosition.LEVEL_2, 20),
-        IntakeCommands.outtake(m_intake, 0.5),
+        IntakeCommands.outtakeUntilClear(m_intake),
 
         // Move arm to intake position
         ArmCommands.intakePosition(m_arm),
@@ -298,16 +421,19 @@ public class RobotContainer {
         Commands.runOnce(() -> m_drive.resetEncoders()),
         new DriveDistance(m_drive, 2.0, 0.5), // Drive 2 meters forward
 
-        // Intake game piece
-        IntakeCommands.intakeUntilDetected(m_intake),
+        // Intake game piece (don't wait out the rest of auto if it's missed)
+        IntakeCommands.intakeUntilDetected(m_intake, IntakeConstants.kAutoIntakeTimeoutSeconds),
 
-        // Drive back (encoder-based)
+        // Drive back (encoder-based), raising the arm once inside the approach zone
         Commands.runOnce(() -> m_drive.resetEncoders()),
-        new DriveDistance(m_drive, -2.0, 0.5), // Drive 2 meters backward
+        Commands.deadline(
+            driveBack,
+            new PrepositionArm(m_arm, () -> ArmPosition.LEVEL_2,
+                               driveBack::getRemainingDistance, this::getRobotSpeed)),
 
         // Score second piece
         ArmCommands.moveToPosition(m_arm, ArmPosition.LEVEL_2, 20),
-        IntakeCommands.outtake(m_intake, 0.5),
+        IntakeCommands.outtakeUntilClear(m_intake),
 
         // Stow
         ArmCommands.stow(m_arm),
@@ -329,9 +455,28 @@ public class RobotContainer {
       return Commands.none();
     }
 
+    // Home the arm first if it isn't already (restored homing skips this), and only run
+    // the auto if homing succeeded - an unhomed arm would follow presets from a wrong zero
+    // Proxy the auto so the chooser's command isn't locked into a composition
+    if (!m_arm.isHomed()) {
+      return new AutoHomeArm(m_arm).andThen(Commands.either(
+          selectedCommand.asProxy(),
+          Commands.print("AUTO: ✗ Arm homing failed - skipping the autonomous routine"),
+          m_arm::isHomed));
+    }
+
     return selectedCommand;
   }
 
+  /**
+   * Update simulated sensors - called from {@link Robot#simulationPeriodic()}
+   */
+  public void simulationPeriodic() {
+    if (m_limelightSim != null) {
+      m_limelightSim.update();
+    }
+  }
+
   /**
    * Apply deadband to controller input
    *
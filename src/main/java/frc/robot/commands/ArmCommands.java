@@ -1,15 +1,18 @@
 package frc.robot.commands;
 
+import java.util.function.Supplier;
+
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import frc.robot.subsystems.ArmSubsystem;
 import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+import frc.robot.util.ScoringSetpoints;
 
 /**
  * Commands for the arm subsystem
  */
 public class ArmCommands {
-
   /**
    * Command to move arm to a specific position and wait until reached
    *
@@ -96,6 +99,20 @@ public class ArmCommands {
     return setPosition(arm, ArmPosition.LEVEL_4);
   }
 
+  /**
+   * Command to hold a scoring level adjusted for the distance to the reef (runs until interrupted)
+   *
+   * @param arm The arm subsystem
+   * @param setpoints Distance-interpolated scoring setpoints
+   * @param poseSupplier Fused robot pose
+   * @param level Scoring level
+   * @return Distance-adjusted scoring command
+   */
+  public static Command scoreAtDistance(ArmSubsystem arm, ScoringSetpoints setpoints,
+                                        Supplier<Pose2d> poseSupplier, ArmPosition level) {
+    return new ScoreAtDistance(arm, setpoints, poseSupplier, level);
+  }
+
   /**
    * Command to stop arm movement
    *
@@ -0,0 +1,153 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.ClimberConstants;
+import frc.robot.subsystems.ClimberSubsystem;
+
+/**
+ * One-button climb: extend, find the cage, pull up and hold
+ * After extending, the climber pulls slowly until the hooks load up on the cage. Contact is
+ * detected when the current rises while the speed collapses. It then switches to the
+ * high-torque synchronized pull profile and holds at the top. If the load keeps the climber
+ * from getting inside the goal tolerance, the pull still hands over to HOLD once the profile
+ * has finished and the climber has stalled, or after a timeout. The command keeps running
+ * (and the climber keeps holding) until it is interrupted.
+ * Phase timings are published to "Climber/Auto/..." on SmartDashboard.
+ */
+public class AutoClimb extends Command {
+  private static final double EXTEND_TIMEOUT = 3.0; // Seconds
+  private static final double SPIN_UP_TIME = 0.15; // Seconds before checking for contact
+
+  private enum Phase { EXTEND, SEEK_CONTACT, PULL, HOLD, ABORTED }
+
+  private final ClimberSubsystem m_climber;
+
+  private Phase m_phase;
+  private double m_startTime;
+  private double m_phaseStart;
+  private double m_lastTime;
+  private double m_contactTime;
+
+  /**
+   * Creates a new AutoClimb command
+   *
+   * @param climber The climber subsystem
+   */
+  public AutoClimb(ClimberSubsystem climber) {
+    m_climber = climber;
+    addRequirements(climber);
+  }
+
+  @Override
+  public void initialize() {
+    m_startTime = Timer.getFPGATimestamp();
+    m_climber.extend();
+    enter(Phase.EXTEND, m_startTime);
+    System.out.println("AUTO-CLIMB: Extending...");
+  }
+
+  @Override
+  public void execute() {
+    double now = Timer.getFPGATimestamp();
+    double inPhase = now - m_phaseStart;
+
+    switch (m_phase) {
+      case EXTEND:
+        if (m_climber.isExtended(ClimberConstants.kPositionTolerance)) {
+          m_climber.setBothSpeed(ClimberConstants.kContactSeekSpeed);
+          enter(Phase.SEEK_CONTACT, now);
+        } else if (inPhase > EXTEND_TIMEOUT) {
+          abort("extension timed out");
+        }
+        break;
+
+      case SEEK_CONTACT:
+        boolean loaded = inPhase > SPIN_UP_TIME
+            && m_climber.getAverageCurrent() > ClimberConstants.kContactCurrent
+            && m_climber.getAverageSpeed() < ClimberConstants.kContactVelocity;
+        m_contactTime = loaded ? m_contactTime + (now - m_lastTime) : 0.0;
+        if (m_contactTime >= ClimberConstants.kContactDwellSeconds) {
+          System.out.println("AUTO-CLIMB: Cage contact (" +
+                             String.format("%.1f", m_climber.getAverageCurrent()) + "A), pulling...");
+          m_climber.pull();
+          enter(Phase.PULL, now);
+        } else if (inPhase > ClimberConstants.kContactTimeoutSeconds) {
+          abort("no cage contact");
+        }
+        break;
+
+      case PULL:
+        // Stalled under load at the end of the profile - as high as it will go
+        boolean stalled = m_climber.isSyncProfileFinished()
+            && m_climber.getAverageSpeed() < ClimberConstants.kContactVelocity;
+        m_contactTime = stalled ? m_contactTime + (now - m_lastTime) : 0.0;
+
+        if (m_climber.isClimbed()) {
+          hold(now, "✓ Climbed");
+        } else if (m_contactTime >= ClimberConstants.kPullStallSeconds) {
+          hold(now, "⚠️ Stalled " + String.format("%.1f", ClimberConstants.kClimbedPosition
+              - (m_climber.getLeftPosition() + m_climber.getRightPosition()) / 2.0) + " rotations short");
+        } else if (inPhase > ClimberConstants.kPullTimeoutSeconds) {
+          hold(now, "⚠️ Pull timed out");
+        }
+        break;
+
+      default:
+        // HOLD - the synchronized loop keeps holding the top position
+        break;
+    }
+    m_lastTime = now;
+  }
+
+  /**
+   * Record the time spent in the current phase and move to the next
+   */
+  private void enter(Phase next, double now) {
+    if (m_phase != null) {
+      SmartDashboard.putNumber("Climber/Auto/" + m_phase.name() + " (s)", now - m_phaseStart);
+    }
+    SmartDashboard.putString("Climber/Auto/Phase", next.name());
+    m_phase = next;
+    m_phaseStart = now;
+    m_lastTime = now;
+    m_contactTime = 0.0;
+  }
+
+  /**
+   * Finish the pull - the synchronized loop keeps holding the top position
+   */
+  private void hold(double now, String result) {
+    enter(Phase.HOLD, now);
+    double total = now - m_startTime;
+    SmartDashboard.putNumber("Climber/Auto/Total (s)", total);
+    System.out.println("AUTO-CLIMB: " + result + " in " + String.format("%.2f", total) + "s, holding");
+  }
+
+  /**
+   * Stop the climb before the robot is lifted
+   */
+  private void abort(String reason) {
+    m_climber.stop();
+    enter(Phase.ABORTED, Timer.getFPGATimestamp());
+    System.err.println("AUTO-CLIMB: ✗ Aborted - " + reason);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    // Before the pull nothing is holding the robot up, so stopping is safe - after it, keep holding
+    if (m_phase == Phase.EXTEND || m_phase == Phase.SEEK_CONTACT) {
+      m_climber.stop();
+    }
+    if (interrupted) {
+      System.err.println("AUTO-CLIMB: Interrupted during " + m_phase);
+    }
+    m_phase = null;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_phase == Phase.ABORTED;
+  }
+}
@@ -1,21 +1,145 @@
 package frc.robot.commands;
 
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.ArmSubsystem;
 
 /**
  * Command to automatically home the arm at the start of autonomous
- * Uses current spike detection to know when arm hits mechanical stop
+ * The extension retracts and homes first, then the arm - sweeping the arm down with the
+ * extension out would pass through the collision zone the motion planner forbids. Each axis
+ * homes in three stages: a fast approach to the hard stop, a short back-off, then a slow
+ * re-touch so the final zero is taken at low speed. If the arm was already homed, the fast
+ * approach slows down near the stop. A stop is detected when the velocity collapses from its
+ * peak while the current rises.
+ *
+ * The previous homed state is kept until homing succeeds, so an interrupted or timed-out run
+ * doesn't un-home an arm whose encoders were still valid.
  */
 public class AutoHomeArm extends Command {
+  // Arm stages (duty cycle, negative = toward the hard stop)
+  private static final double ARM_FAST_SPEED = -0.5;
+  private static final double ARM_BACKOFF_SPEED = 0.2;
+  private static final double ARM_SLOW_SPEED = -0.12;
+
+  // Extension stages
+  private static final double EXTENSION_FAST_SPEED = -0.6;
+  private static final double EXTENSION_BACKOFF_SPEED = 0.25;
+  private static final double EXTENSION_SLOW_SPEED = -0.15;
+
+  // Stop detection
+  private static final double BACKOFF_TIME = 0.08; // Seconds
+  private static final double SPIN_UP_TIME = 0.06; // Seconds before checking for a stop
+  private static final double MIN_PEAK_SPEED = 100.0; // RPM - must have actually moved
+  private static final double COLLAPSE_RATIO = 0.25; // Stopped when speed < 25% of the phase peak
+  private static final double FAST_CONTACT_CURRENT = 20.0; // Amps
+  private static final double SLOW_CONTACT_CURRENT = 8.0; // Amps
+  private static final double STALL_TIME = 0.25; // Seconds - not moving at all counts as contact
+  private static final double SLOW_ZONE = 50.0; // Encoder ticks from the stop - fast approach slows here (if homed)
+  private static final double TIMEOUT_SECONDS = 3.0; // Safety timeout (both axes)
+
+  private enum Phase { WAITING, FAST_APPROACH, BACK_OFF, SLOW_RETOUCH, DONE }
+
+  /**
+   * Homing state for one axis
+   */
+  private static final class Axis {
+    final String name;
+    final double fastSpeed;
+    final double backoffSpeed;
+    final double slowSpeed;
+    final DoubleSupplier position;
+
+    Phase phase = Phase.WAITING;
+    double phaseStart;
+    double peakSpeed;
+    boolean positionKnown; // Encoder is homed - the fast approach can slow down near the stop
+    boolean inSlowZone;
+
+    Axis(String name, double fastSpeed, double backoffSpeed, double slowSpeed, DoubleSupplier position) {
+      this.name = name;
+      this.fastSpeed = fastSpeed;
+      this.backoffSpeed = backoffSpeed;
+      this.slowSpeed = slowSpeed;
+      this.position = position;
+    }
+
+    void start(double now, boolean homed) {
+      positionKnown = homed;
+      inSlowZone = false;
+      enter(Phase.FAST_APPROACH, now);
+    }
+
+    void enter(Phase next, double now) {
+      phase = next;
+      phaseStart = now;
+      peakSpeed = 0.0;
+    }
+
+    /**
+     * Advance the state machine
+     *
+     * @return Duty cycle to apply
+     */
+    double update(double now, double velocity, double current) {
+      double speed = Math.abs(velocity);
+      peakSpeed = Math.max(peakSpeed, speed);
+      double inPhase = now - phaseStart;
+
+      switch (phase) {
+        case FAST_APPROACH:
+          if (!inSlowZone && positionKnown && position.getAsDouble() < SLOW_ZONE) {
+            // Close to the stop - finish the approach at re-touch speed
+            inSlowZone = true;
+            peakSpeed = 0.0;
+          }
+          if (hitStop(inPhase, speed, current, inSlowZone ? SLOW_CONTACT_CURRENT : FAST_CONTACT_CURRENT)) {
+            enter(Phase.BACK_OFF, now);
+            return backoffSpeed;
+          }
+          return inSlowZone ? slowSpeed : fastSpeed;
+
+        case BACK_OFF:
+          if (inPhase >= BACKOFF_TIME) {
+            enter(Phase.SLOW_RETOUCH, now);
+            return slowSpeed;
+          }
+          return backoffSpeed;
+
+        case SLOW_RETOUCH:
+          if (hitStop(inPhase, speed, current, SLOW_CONTACT_CURRENT)) {
+            enter(Phase.DONE, now);
+            System.out.println("AUTO-HOMING: " + name + " at hard stop (" +
+                              String.format("%.1f", current) + "A)");
+            return 0.0;
+          }
+          return slowSpeed;
+
+        default:
+          return 0.0;
+      }
+    }
+
+    /**
+     * Velocity collapsed from its peak while pushing current - or never moved at all
+     */
+    private boolean hitStop(double inPhase, double speed, double current, double contactCurrent) {
+      if (inPhase < SPIN_UP_TIME || current < contactCurrent) {
+        return false;
+      }
+      boolean collapsed = peakSpeed > MIN_PEAK_SPEED && speed < peakSpeed * COLLAPSE_RATIO;
+      boolean stalled = inPhase > STALL_TIME && speed < MIN_PEAK_SPEED;
+      return collapsed || stalled;
+    }
+  }
+
   private final ArmSubsystem m_arm;
-  private static final double HOMING_SPEED = -0.15; // Slow retract speed
-  private static final double CURRENT_THRESHOLD = 15.0; // Amps - indicates hitting hard stop
-  private static final int CURRENT_SPIKE_CYCLES = 5; // Confirm for 5 cycles (~100ms)
-  private static final double TIMEOUT_SECONDS = 5.0; // Safety timeout
+  private final Axis m_armAxis;
+  private final Axis m_extensionAxis;
 
   private double m_startTime;
-  private int m_currentSpikeCounter;
 
   /**
    * Creates a new AutoHomeArm command
@@ -24,65 +148,67 @@ public class AutoHomeArm extends Command {
    */
   public AutoHomeArm(ArmSubsystem arm) {
     m_arm = arm;
+    m_armAxis = new Axis("Arm", ARM_FAST_SPEED, ARM_BACKOFF_SPEED, ARM_SLOW_SPEED, arm::getArmPosition);
+    m_extensionAxis = new Axis("Extension", EXTENSION_FAST_SPEED, EXTENSION_BACKOFF_SPEED,
+                               EXTENSION_SLOW_SPEED, arm::getExtensionPosition);
     addRequirements(arm);
   }
 
   @Override
   public void initialize() {
-    m_startTime = System.currentTimeMillis() / 1000.0;
-    m_currentSpikeCounter = 0;
-    System.out.println("AUTO-HOMING: Starting arm homing sequence...");
-    System.out.println("AUTO-HOMING: Retracting slowly until hard stop detected");
+    m_startTime = Timer.getFPGATimestamp();
+    m_extensionAxis.start(m_startTime, m_arm.isHomed());
+    m_armAxis.phase = Phase.WAITING;
+
+    // Soft limits and jam detection would stop us at the hard stops
+    m_arm.setHomingActive(true);
+    System.out.println("AUTO-HOMING: Starting extension, then arm homing...");
   }
 
   @Override
   public void execute() {
-    // Slowly retract arm until it hits the hard stop
-    m_arm.manualArmControl(HOMING_SPEED);
-
-    // Monitor current draw - increment counter if above threshold
-    double current = m_arm.getArmCurrent();
-    if (current > CURRENT_THRESHOLD) {
-      m_currentSpikeCounter++;
-      if (m_currentSpikeCounter >= CURRENT_SPIKE_CYCLES) {
-        System.out.println("AUTO-HOMING: Hard stop detected (current: " +
-                          String.format("%.1f", current) + "A)");
+    double now = Timer.getFPGATimestamp();
+    double extensionOutput = m_extensionAxis.update(
+        now, m_arm.getExtensionVelocity(), m_arm.getExtensionCurrent());
+
+    // The arm waits until the extension is fully retracted at its hard stop
+    double armOutput = 0.0;
+    if (m_extensionAxis.phase == Phase.DONE) {
+      if (m_armAxis.phase == Phase.WAITING) {
+        m_armAxis.start(now, m_arm.isHomed());
       }
-    } else {
-      m_currentSpikeCounter = 0; // Reset if current drops
+      armOutput = m_armAxis.update(now, m_arm.getArmVelocity(), m_arm.getArmCurrent());
     }
+    m_arm.setHomingOutput(armOutput, extensionOutput);
   }
 
   @Override
   public void end(boolean interrupted) {
     m_arm.stop();
+    m_arm.setHomingActive(false);
+    double elapsed = Timer.getFPGATimestamp() - m_startTime;
 
-    if (!interrupted) {
-      // We've reached the hard stop - reset encoders and mark as homed
+    if (!interrupted && m_armAxis.phase == Phase.DONE && m_extensionAxis.phase == Phase.DONE) {
+      // Both axes are at their hard stops - reset encoders and mark as homed
       m_arm.home();
-      System.out.println("AUTO-HOMING: ✓ Arm homed successfully!");
+      edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Arm/Homing Time (s)", elapsed);
+      System.out.println("AUTO-HOMING: ✓ Arm homed successfully in " + String.format("%.2f", elapsed) + "s!");
+    } else if (interrupted) {
+      System.err.println("AUTO-HOMING: ✗ Homing interrupted!" + (m_arm.isHomed() ? " (previous homing kept)" : ""));
     } else {
-      System.err.println("AUTO-HOMING: ✗ Homing interrupted!");
+      System.err.println("AUTO-HOMING: ⚠️ Timeout reached without detecting hard stop! (arm " +
+                         m_armAxis.phase + ", extension " + m_extensionAxis.phase + ")");
+      System.err.println("AUTO-HOMING: Check mechanical hard stops and contact current thresholds");
     }
   }
 
   @Override
   public boolean isFinished() {
-    double elapsed = (System.currentTimeMillis() / 1000.0) - m_startTime;
-
-    // Finish if current spike sustained for required cycles (hit hard stop)
-    if (m_currentSpikeCounter >= CURRENT_SPIKE_CYCLES) {
-      System.out.println("AUTO-HOMING: Hard stop confirmed via current detection");
+    if (m_armAxis.phase == Phase.DONE && m_extensionAxis.phase == Phase.DONE) {
       return true;
     }
 
     // Safety timeout - finish if taking too long
-    if (elapsed > TIMEOUT_SECONDS) {
-      System.err.println("AUTO-HOMING: ⚠️ Timeout reached without detecting hard stop!");
-      System.err.println("AUTO-HOMING: Check mechanical hard stop and current threshold");
-      return true;
-    }
-
-    return false;
+    return Timer.getFPGATimestamp() - m_startTime > TIMEOUT_SECONDS;
   }
 }
@@ -0,0 +1,180 @@
+package frc.robot.commands;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmMotionPlanner;
+import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+import frc.robot.util.BilinearTable;
+import frc.robot.util.CalibrationStore;
+
+/**
+ * Command to characterize the arm gravity feedforward table
+ * Visits every reachable grid point, lets the position loop settle, and records the
+ * average voltage needed to hold the arm there. The finished table is applied
+ * immediately and saved to /home/lvuser (copy it into src/main/deploy to keep it).
+ */
+public class CharacterizeArmFeedforward extends Command {
+  private static final double POSITION_TOLERANCE = 5.0; // encoder ticks
+  private static final double MOVE_TIMEOUT = 3.0; // seconds per grid point
+  private static final double SETTLE_TIME = 0.3; // seconds before sampling
+  private static final double SAMPLE_TIME = 0.5; // seconds of averaging
+
+  private enum Phase { MOVING, SETTLING, SAMPLING }
+
+  private final ArmSubsystem m_arm;
+  private final Timer m_timer = new Timer();
+
+  private BilinearTable m_table;
+  private boolean[] m_measured;
+  private int m_point;
+  private Phase m_phase;
+  private double m_voltageSum;
+  private int m_samples;
+
+  /**
+   * Creates a new CharacterizeArmFeedforward command
+   *
+   * @param arm The arm subsystem
+   */
+  public CharacterizeArmFeedforward(ArmSubsystem arm) {
+    m_arm = arm;
+    addRequirements(arm);
+  }
+
+  @Override
+  public void initialize() {
+    m_table = ArmSubsystem.createGravityTable();
+    m_measured = new boolean[m_table.getXCount() * m_table.getYCount()];
+    m_point = -1;
+
+    if (!m_arm.isHomed()) {
+      System.err.println("ARM FF: ✗ Arm not homed! Characterization cancelled.");
+      m_point = m_measured.length;
+      return;
+    }
+
+    System.out.println("ARM FF: Characterizing " + m_measured.length + " grid points...");
+    nextPoint();
+  }
+
+  /**
+   * Move on to the next reachable grid point
+   */
+  private void nextPoint() {
+    m_point++;
+    while (m_point < m_measured.length && !ArmMotionPlanner.isConfigurationSafe(pointArm(), pointExtension())) {
+      m_point++; // Skip points inside the collision region
+    }
+    if (m_point < m_measured.length) {
+      m_arm.setCustomPosition(pointArm(), pointExtension());
+      m_phase = Phase.MOVING;
+      m_timer.restart();
+    }
+  }
+
+  private double pointArm() {
+    return m_table.getX(m_point % m_table.getXCount());
+  }
+
+  private double pointExtension() {
+    return m_table.getY(m_point / m_table.getXCount());
+  }
+
+  @Override
+  public void execute() {
+    if (m_point >= m_measured.length) {
+      return;
+    }
+
+    switch (m_phase) {
+      case MOVING:
+        if (!m_arm.isMoving() && m_arm.atTargetPosition(POSITION_TOLERANCE)) {
+          m_phase = Phase.SETTLING;
+          m_timer.restart();
+        } else if (m_timer.hasElapsed(MOVE_TIMEOUT)) {
+          System.err.println("ARM FF: ⚠️ Could not reach arm " + pointArm() + ", extension " +
+                             pointExtension() + " - skipping");
+          nextPoint();
+        }
+        break;
+
+      case SETTLING:
+        if (m_timer.hasElapsed(SETTLE_TIME)) {
+          m_phase = Phase.SAMPLING;
+          m_voltageSum = 0.0;
+          m_samples = 0;
+          m_timer.restart();
+        }
+        break;
+
+      case SAMPLING:
+        m_voltageSum += m_arm.getArmVoltage();
+        m_samples++;
+        if (m_timer.hasElapsed(SAMPLE_TIME)) {
+          double volts = m_voltageSum / m_samples;
+          m_table.set(m_point % m_table.getXCount(), m_point / m_table.getXCount(), volts);
+          m_measured[m_point] = true;
+          System.out.println("ARM FF: arm " + pointArm() + ", extension " + pointExtension() +
+                             " -> " + String.format("%.3f", volts) + "V");
+          nextPoint();
+        }
+        break;
+    }
+  }
+
+  /**
+   * Fill unreachable points from the nearest measured extension in the same arm column
+   */
+  private void fillUnmeasured() {
+    int xCount = m_table.getXCount();
+    int yCount = m_table.getYCount();
+    for (int ix = 0; ix < xCount; ix++) {
+      for (int iy = 0; iy < yCount; iy++) {
+        if (m_measured[iy * xCount + ix]) {
+          continue;
+        }
+        for (int offset = 1; offset < yCount; offset++) {
+          if (iy - offset >= 0 && m_measured[(iy - offset) * xCount + ix]) {
+            m_table.set(ix, iy, m_table.getPoint(ix, iy - offset));
+            break;
+          }
+          if (iy + offset < yCount && m_measured[(iy + offset) * xCount + ix]) {
+            m_table.set(ix, iy, m_table.getPoint(ix, iy + offset));
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted || !m_arm.isHomed()) {
+      System.err.println("ARM FF: ✗ Characterization interrupted - table not changed");
+      return;
+    }
+
+    fillUnmeasured();
+    m_arm.setGravityTable(m_table);
+    m_arm.setPosition(ArmPosition.STOWED);
+
+    Path path = CalibrationStore.getStorageDirectory().resolve(ArmConstants.kGravityFFFileName);
+    try {
+      m_table.writeCsv(path, "Arm gravity feedforward (volts) - rows: extension, columns: arm angle");
+      System.out.println("ARM FF: ✓ Table applied and saved to " + path);
+      System.out.println("ARM FF: Copy it to src/main/deploy/" + ArmConstants.kGravityFFFileName + " to keep it");
+    } catch (IOException e) {
+      System.err.println("ARM FF: ⚠️ Table applied but could not be saved: " + e.getMessage());
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_point >= m_measured.length;
+  }
+}
@@ -14,7 +14,7 @@ public class ClimberCommands {
    * Command to extend climbers and wait until fully extended
    *
    * @param climber The climber subsystem
-   * @param tolerance Acceptable error in encoder ticks
+   * @param tolerance Acceptable error in motor rotations
    * @return Extend command
    */
   public static Command extend(ClimberSubsystem climber, double tolerance) {
@@ -28,7 +28,7 @@ public class ClimberCommands {
    * Command to retract climbers and wait until fully retracted
    *
    * @param climber The climber subsystem
-   * @param tolerance Acceptable error in encoder ticks
+   * @param tolerance Acceptable error in motor rotations
    * @return Retract command
    */
   public static Command retract(ClimberSubsystem climber, double tolerance) {
@@ -39,13 +39,13 @@ public class ClimberCommands {
   }
 
   /**
-   * Command to climb continuously
+   * Command to climb with both sides synchronized (stops when interrupted)
    *
    * @param climber The climber subsystem
    * @return Climb command
    */
   public static Command climb(ClimberSubsystem climber) {
-    return climber.run(() -> climber.climb());
+    return climber.startEnd(() -> climber.climb(), () -> climber.stop());
   }
 
   /**
@@ -95,6 +95,16 @@ public class DriveDistance extends Command {
     return false;
   }
 
+  /**
+   * Get how much of the drive is left
+   * Lets other commands (e.g. arm pre-positioning) start before the drive finishes
+   *
+   * @return Remaining distance in meters
+   */
+  public double getRemainingDistance() {
+    return Math.max(0.0, Math.abs(m_distanceMeters) - Math.abs(getAverageDistance() - m_startDistance));
+  }
+
   /**
    * Get average distance traveled by all swerve modules
    * This provides a more accurate reading than a single module
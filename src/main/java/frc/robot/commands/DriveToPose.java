@@ -0,0 +1,145 @@
+package frc.robot.commands;
+
+import java.util.function.Supplier;
+
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.SwerveDriveSubsystem;
+
+/**
+ * Command to drive to a field pose using the fused pose estimate
+ * Profiled X, Y and theta controllers run together, so the robot translates and
+ * rotates at the same time instead of aiming first and then driving
+ */
+public class DriveToPose extends Command {
+  // Translation controller (field X and Y)
+  private static final double TRANSLATION_KP = 3.0;
+  private static final double TRANSLATION_KD = 0.0;
+  private static final double MAX_SPEED = 3.0; // m/s
+  private static final double MAX_ACCELERATION = 3.0; // m/s^2
+  private static final double POSITION_TOLERANCE = 0.03; // meters
+  private static final double VELOCITY_TOLERANCE = 0.05; // m/s
+
+  // Rotation controller
+  private static final double ROTATION_KP = 4.0;
+  private static final double ROTATION_KD = 0.0;
+  private static final double MAX_ANGULAR_SPEED = Math.PI * 1.5; // rad/s
+  private static final double MAX_ANGULAR_ACCELERATION = Math.PI * 3.0; // rad/s^2
+  private static final double ANGLE_TOLERANCE = Math.toRadians(1.5);
+  private static final double ANGULAR_VELOCITY_TOLERANCE = Math.toRadians(5.0); // rad/s
+
+  private static final double TIMEOUT_SECONDS = 4.0; // Safety timeout
+
+  private final SwerveDriveSubsystem m_drive;
+  private final Supplier<Pose2d> m_targetSupplier;
+
+  private final ProfiledPIDController m_xController = new ProfiledPIDController(
+      TRANSLATION_KP, 0.0, TRANSLATION_KD,
+      new TrapezoidProfile.Constraints(MAX_SPEED, MAX_ACCELERATION));
+  private final ProfiledPIDController m_yController = new ProfiledPIDController(
+      TRANSLATION_KP, 0.0, TRANSLATION_KD,
+      new TrapezoidProfile.Constraints(MAX_SPEED, MAX_ACCELERATION));
+  private final ProfiledPIDController m_thetaController = new ProfiledPIDController(
+      ROTATION_KP, 0.0, ROTATION_KD,
+      new TrapezoidProfile.Constraints(MAX_ANGULAR_SPEED, MAX_ANGULAR_ACCELERATION));
+
+  private final Timer m_timer = new Timer();
+  private Pose2d m_target;
+
+  /**
+   * Creates a new DriveToPose command
+   *
+   * @param drive The drive subsystem
+   * @param targetSupplier Supplies the field pose to drive to (read once when the command starts)
+   */
+  public DriveToPose(SwerveDriveSubsystem drive, Supplier<Pose2d> targetSupplier) {
+    m_drive = drive;
+    m_targetSupplier = targetSupplier;
+
+    m_xController.setTolerance(POSITION_TOLERANCE, VELOCITY_TOLERANCE);
+    m_yController.setTolerance(POSITION_TOLERANCE, VELOCITY_TOLERANCE);
+    m_thetaController.setTolerance(ANGLE_TOLERANCE, ANGULAR_VELOCITY_TOLERANCE);
+    m_thetaController.enableContinuousInput(-Math.PI, Math.PI);
+
+    addRequirements(drive);
+  }
+
+  @Override
+  public void initialize() {
+    m_target = m_targetSupplier.get();
+    m_timer.restart();
+
+    if (m_target == null) {
+      System.err.println("DriveToPose: No target pose available!");
+      return;
+    }
+
+    // Start the profiles from the current pose and field-relative velocity
+    Pose2d pose = m_drive.getPose();
+    ChassisSpeeds fieldSpeeds = ChassisSpeeds.fromRobotRelativeSpeeds(
+        m_drive.getChassisSpeeds(), pose.getRotation());
+
+    m_xController.reset(pose.getX(), fieldSpeeds.vxMetersPerSecond);
+    m_yController.reset(pose.getY(), fieldSpeeds.vyMetersPerSecond);
+    m_thetaController.reset(pose.getRotation().getRadians(), fieldSpeeds.omegaRadiansPerSecond);
+
+    m_xController.setGoal(m_target.getX());
+    m_yController.setGoal(m_target.getY());
+    m_thetaController.setGoal(m_target.getRotation().getRadians());
+  }
+
+  @Override
+  public void execute() {
+    if (m_target == null) {
+      return;
+    }
+
+    Pose2d pose = m_drive.getPose();
+
+    // Profile velocity as feedforward plus PID correction on position
+    double vx = m_xController.calculate(pose.getX()) + m_xController.getSetpoint().velocity;
+    double vy = m_yController.calculate(pose.getY()) + m_yController.getSetpoint().velocity;
+    double omega = m_thetaController.calculate(pose.getRotation().getRadians())
+        + m_thetaController.getSetpoint().velocity;
+
+    m_drive.driveFieldRelative(vx, vy, omega);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_drive.stop();
+
+    if (interrupted) {
+      System.err.println("DriveToPose: Interrupted!");
+    } else if (m_target != null) {
+      double elapsed = m_timer.get();
+      SmartDashboard.putNumber("Align/DriveToPose Time (s)", elapsed);
+      System.out.println("DriveToPose: Aligned in " + String.format("%.2f", elapsed) + "s");
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    if (m_target == null) {
+      return true;
+    }
+
+    // Finish when all three axes are at the goal position with near-zero velocity
+    if (m_xController.atGoal() && m_yController.atGoal() && m_thetaController.atGoal()) {
+      return true;
+    }
+
+    // Safety timeout
+    if (m_timer.hasElapsed(TIMEOUT_SECONDS)) {
+      System.err.println("DriveToPose: ⚠️ Timeout reached! Check pose estimate and tuning.");
+      return true;
+    }
+
+    return false;
+  }
+}
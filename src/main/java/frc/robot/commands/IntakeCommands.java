@@ -1,7 +1,11 @@
 package frc.robot.commands;
 
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.IntakeConstants;
 import frc.robot.subsystems.IntakeSubsystem;
 
 /**
@@ -10,19 +14,38 @@ import frc.robot.subsystems.IntakeSubsystem;
 public class IntakeCommands {
 
   /**
-   * Command to continuously intake until a game piece is detected
+   * Command to intake until a game piece is detected and indexed
+   * The beam break interrupt slows the rollers the moment the coral arrives, and the
+   * subsystem holds once the roller encoder has run the indexing distance
    *
    * @param intake The intake subsystem
-   * @return Command that intakes until beam break is triggered
+   * @return Command that intakes until the coral is indexed
    */
   public static Command intakeUntilDetected(IntakeSubsystem intake) {
     return Commands.sequence(
         intake.runOnce(() -> intake.intake()),
-        Commands.waitUntil(() -> intake.hasGamePiece()),
-        intake.runOnce(() -> intake.hold())
+        Commands.waitUntil(() -> intake.isIndexed())
     );
   }
 
+  /**
+   * Command to intake until a coral is indexed, giving up after a timeout (for autonomous)
+   *
+   * @param intake The intake subsystem
+   * @param timeoutSeconds Stop the intake and move on after this long
+   * @return Command that intakes until the coral is indexed or the timeout
+   */
+  public static Command intakeUntilDetected(IntakeSubsystem intake, double timeoutSeconds) {
+    return intakeUntilDetected(intake)
+        .withTimeout(timeoutSeconds)
+        .finallyDo(interrupted -> {
+          if (!intake.isIndexed()) {
+            intake.stop();
+            System.err.println("INTAKE: ⚠️ No coral indexed after " + timeoutSeconds + "s - continuing");
+          }
+        });
+  }
+
   /**
    * Command to intake for a specified duration
    *
@@ -53,6 +76,69 @@ public class IntakeCommands {
     );
   }
 
+  /**
+   * Command to eject the game piece, finishing once the beam break has been clear for
+   * the debounce time (or after the timeout if the sensor never clears)
+   *
+   * @param intake The intake subsystem
+   * @return Sensor-terminated outtake command
+   */
+  public static Command outtakeUntilClear(IntakeSubsystem intake) {
+    Debouncer cleared = new Debouncer(IntakeConstants.kEjectDebounceSeconds);
+    return Commands.sequence(
+        intake.runOnce(() -> {
+          cleared.calculate(false);
+          intake.outtake();
+        }),
+        Commands.waitUntil(() -> cleared.calculate(!intake.hasGamePiece()))
+            .withTimeout(IntakeConstants.kOuttakeTimeoutSeconds),
+        intake.runOnce(() -> intake.stop())
+    );
+  }
+
+  /**
+   * Simulation benchmark: timed score sequence (0.5s wait, 0.5s outtake, 0.5s wait) vs
+   * the sensor-terminated outtake
+   * Results are published to "Intake/Benchmark/..." on SmartDashboard
+   *
+   * @param intake The intake subsystem
+   * @return Benchmark command
+   */
+  public static Command cycleBenchmark(IntakeSubsystem intake) {
+    Timer timer = new Timer();
+    double[] timedScore = new double[1];
+    return Commands.sequence(
+        // Intake to indexed
+        Commands.runOnce(() -> {
+          intake.simLoadCoral();
+          timer.restart();
+        }),
+        intakeUntilDetected(intake),
+        Commands.runOnce(() -> SmartDashboard.putNumber("Intake/Benchmark/Intake (s)", timer.get())),
+
+        // Old fixed-timer score
+        Commands.runOnce(() -> timer.restart()),
+        Commands.waitSeconds(0.5),
+        outtake(intake, 0.5),
+        Commands.waitSeconds(0.5),
+        Commands.runOnce(() -> timedScore[0] = timer.get()),
+
+        // Sensor-terminated score
+        Commands.runOnce(() -> intake.simLoadCoral()),
+        intakeUntilDetected(intake),
+        Commands.runOnce(() -> timer.restart()),
+        outtakeUntilClear(intake),
+        Commands.runOnce(() -> {
+          double sensorScore = timer.get();
+          SmartDashboard.putNumber("Intake/Benchmark/Timed Score (s)", timedScore[0]);
+          SmartDashboard.putNumber("Intake/Benchmark/Sensor Score (s)", sensorScore);
+          SmartDashboard.putNumber("Intake/Benchmark/Saved per Cycle (s)", timedScore[0] - sensorScore);
+          System.out.println("Intake benchmark: timed " + String.format("%.3f", timedScore[0]) +
+                             "s, sensor " + String.format("%.3f", sensorScore) + "s");
+        })
+    );
+  }
+
   /**
    * Command to continuously intake (requires manual stop)
    *
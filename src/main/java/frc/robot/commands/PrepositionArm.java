@@ -0,0 +1,127 @@
+package frc.robot.commands;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+
+/**
+ * Command to start moving the arm to the scoring level while the robot is still driving
+ * Once the robot is inside the approach zone, the arm heads for the selected level. Above
+ * the pre-position speed limit the move is capped to a low arm angle with the extension
+ * retracted, so the robot never carries a raised, extended arm at speed - the cap interrupts a
+ * move already under way. Collisions are handled by the arm's motion planner as usual.
+ *
+ * Seconds saved = time the arm spent moving while the robot was also moving, which would
+ * otherwise have been spent after the drive finished.
+ */
+public class PrepositionArm extends Command {
+  private static final double RETARGET_THRESHOLD = 8.0; // encoder ticks
+  private static final double DRIVING_SPEED = 0.1; // m/s - slower counts as arrived
+
+  // Running totals across cycles
+  private static double s_totalSaved = 0.0;
+  private static int s_cycles = 0;
+
+  private final ArmSubsystem m_arm;
+  private final Supplier<ArmPosition> m_level;
+  private final DoubleSupplier m_distanceToGo;
+  private final DoubleSupplier m_robotSpeed;
+
+  private double m_commandedArm;
+  private double m_commandedExtension;
+  private double m_lastTime;
+  private double m_saved;
+  private boolean m_started;
+
+  /**
+   * Creates a new PrepositionArm command
+   *
+   * @param arm The arm subsystem
+   * @param level Scoring level to pre-position for
+   * @param distanceToGo Distance left to the scoring position (meters)
+   * @param robotSpeed Robot translational speed (m/s)
+   */
+  public PrepositionArm(ArmSubsystem arm, Supplier<ArmPosition> level,
+                        DoubleSupplier distanceToGo, DoubleSupplier robotSpeed) {
+    m_arm = arm;
+    m_level = level;
+    m_distanceToGo = distanceToGo;
+    m_robotSpeed = robotSpeed;
+    addRequirements(arm);
+  }
+
+  @Override
+  public void initialize() {
+    m_commandedArm = Double.NaN;
+    m_commandedExtension = Double.NaN;
+    m_lastTime = Timer.getFPGATimestamp();
+    m_saved = 0.0;
+    m_started = false;
+  }
+
+  @Override
+  public void execute() {
+    double now = Timer.getFPGATimestamp();
+    double dt = now - m_lastTime;
+    m_lastTime = now;
+
+    double speed = m_robotSpeed.getAsDouble();
+    if (!m_started && m_distanceToGo.getAsDouble() > ArmConstants.kApproachZoneMeters) {
+      return; // Not in the approach zone yet
+    }
+    m_started = true;
+
+    // Overlap of arm motion with driving
+    if (m_arm.isMoving() && speed > DRIVING_SPEED) {
+      m_saved += dt;
+    }
+
+    ArmPosition level = m_level.get();
+    double arm = level.getArmAngle();
+    double extension = level.getExtension();
+    boolean overCap = false;
+    if (speed > ArmConstants.kPrepositionMaxSpeed) {
+      // Tipping limit - keep the arm low and retracted until the robot slows down
+      arm = Math.min(arm, ArmConstants.kPrepositionCarryArmLimit);
+      extension = ArmConstants.kRetractedPosition;
+      overCap = m_commandedArm > arm + RETARGET_THRESHOLD
+          || m_commandedExtension > extension + RETARGET_THRESHOLD;
+    }
+
+    // Other changes wait for the current move to finish, the tipping cap doesn't
+    boolean changed = Math.abs(arm - m_commandedArm) > RETARGET_THRESHOLD
+        || Math.abs(extension - m_commandedExtension) > RETARGET_THRESHOLD;
+    if (changed && (!m_arm.isMoving() || overCap)) {
+      m_commandedArm = arm;
+      m_commandedExtension = extension;
+      if (arm == level.getArmAngle() && extension == level.getExtension()) {
+        m_arm.setPosition(level);
+      } else {
+        m_arm.setAdjustedPosition(level, arm, extension);
+      }
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (!m_started) {
+      return;
+    }
+    s_totalSaved += m_saved;
+    s_cycles++;
+    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Superstructure/Preposition Saved (s)", m_saved);
+    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Superstructure/Total Saved (s)", s_totalSaved);
+    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Superstructure/Saved per Cycle (s)",
+        s_totalSaved / s_cycles);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+}
@@ -2,17 +2,22 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import frc.robot.subsystems.SwerveDriveSubsystem;
+import frc.robot.util.CalibrationStore;
 
 /**
- * Command to print current swerve module angles for calibration
+ * Command to calibrate swerve module offsets
  * Use this to find encoder offsets after physically aligning wheels
  *
  * USAGE:
  * 1. Manually rotate all wheels to point straight forward
  * 2. Run this command
- * 3. Copy the printed offset values to Constants.java
+ * 3. The offsets are saved to the calibration store and applied immediately
  */
 public class PrintSwerveOffsets extends InstantCommand {
+  private static final String[] MODULE_NAMES = {"Front Left", "Front Right", "Back Left", "Back Right"};
+  private static final String[] DASHBOARD_KEYS = {
+      "Swerve Cal/FL Offset", "Swerve Cal/FR Offset", "Swerve Cal/BL Offset", "Swerve Cal/BR Offset"};
+
   private final SwerveDriveSubsystem m_drive;
 
   public PrintSwerveOffsets(SwerveDriveSubsystem drive) {
@@ -24,37 +29,26 @@ public class PrintSwerveOffsets extends InstantCommand {
   public void initialize() {
     // Get current module states (this includes turning encoder positions)
     var moduleStates = m_drive.getModuleStates();
+    double[] currentOffsets = m_drive.getModuleOffsets();
+    CalibrationStore store = CalibrationStore.getInstance();
 
     System.out.println("==================================================");
     System.out.println("🔧 SWERVE MODULE CALIBRATION");
     System.out.println("==================================================");
     System.out.println("Make sure all wheels are pointing STRAIGHT FORWARD!");
     System.out.println("");
-    System.out.println("Current turning encoder positions (radians):");
-    System.out.println("  Front Left:  " + String.format("%.4f", moduleStates[0].angle.getRadians()));
-    System.out.println("  Front Right: " + String.format("%.4f", moduleStates[1].angle.getRadians()));
-    System.out.println("  Back Left:   " + String.format("%.4f", moduleStates[2].angle.getRadians()));
-    System.out.println("  Back Right:  " + String.format("%.4f", moduleStates[3].angle.getRadians()));
+    System.out.println("New module offsets (radians):");
+    for (int i = 0; i < moduleStates.length; i++) {
+      // The reported angle is relative to the current offset - the new offset includes it
+      double offset = moduleStates[i].angle.getRadians() + currentOffsets[i];
+      store.put(SwerveDriveSubsystem.OFFSET_KEYS[i], offset);
+      System.out.println("  " + String.format("%-12s", MODULE_NAMES[i] + ":") + " " + String.format("%.4f", offset));
+
+      // Publish to SmartDashboard
+      edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber(DASHBOARD_KEYS[i], offset);
+    }
     System.out.println("");
-    System.out.println("Add these to Constants.DriveConstants:");
-    System.out.println("  public static final double kFrontLeftEncoderOffset = " +
-                      String.format("%.4f", moduleStates[0].angle.getRadians()) + ";");
-    System.out.println("  public static final double kFrontRightEncoderOffset = " +
-                      String.format("%.4f", moduleStates[1].angle.getRadians()) + ";");
-    System.out.println("  public static final double kBackLeftEncoderOffset = " +
-                      String.format("%.4f", moduleStates[2].angle.getRadians()) + ";");
-    System.out.println("  public static final double kBackRightEncoderOffset = " +
-                      String.format("%.4f", moduleStates[3].angle.getRadians()) + ";");
+    System.out.println("✓ Saved to calibration store and applied - no redeploy needed");
     System.out.println("==================================================");
-
-    // Publish to SmartDashboard
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve Cal/FL Offset",
-        moduleStates[0].angle.getRadians());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve Cal/FR Offset",
-        moduleStates[1].angle.getRadians());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve Cal/BL Offset",
-        moduleStates[2].angle.getRadians());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve Cal/BR Offset",
-        moduleStates[3].angle.getRadians());
   }
 }
@@ -2,51 +2,72 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+import frc.robot.util.CalibrationStore;
 
 /**
  * Command to record current arm position for calibration
- * Prints encoder values to console and SmartDashboard
- * Use this to find the actual encoder values for each scoring position
+ * Saves the encoder values as a preset setpoint in the calibration store (applied immediately)
+ * and prints them to the console and SmartDashboard. If the arm was sent to a distance-adjusted
+ * version of the preset, the adjustment is taken back out so it isn't baked into the preset.
  */
 public class RecordArmPosition extends InstantCommand {
   private final ArmSubsystem m_arm;
-  private final String m_positionName;
+  private final ArmPosition m_position; // null = the arm's current target preset
 
   /**
-   * Creates a command to record the current arm position
+   * Creates a command to record the current arm position as a preset
    *
    * @param arm The arm subsystem
-   * @param positionName Name of the position being recorded (e.g., "LEVEL_2")
+   * @param position Preset being recorded (e.g. LEVEL_2)
    */
-  public RecordArmPosition(ArmSubsystem arm, String positionName) {
+  public RecordArmPosition(ArmSubsystem arm, ArmPosition position) {
     m_arm = arm;
-    m_positionName = positionName;
+    m_position = position;
     addRequirements(arm);
   }
 
+  /**
+   * Creates a command that records the current arm position into the preset last moved to
+   * (move to the preset, jog it into place, then record)
+   *
+   * @param arm The arm subsystem
+   */
+  public RecordArmPosition(ArmSubsystem arm) {
+    this(arm, null);
+  }
+
   @Override
   public void initialize() {
+    ArmPosition position = m_position != null ? m_position : m_arm.getTargetPosition();
     double armPosition = m_arm.getArmPosition();
     double extensionPosition = m_arm.getExtensionPosition();
+    if (position == m_arm.getTargetPosition()) {
+      armPosition -= m_arm.getPresetArmOffset();
+      extensionPosition -= m_arm.getPresetExtensionOffset();
+    }
+
+    if (!m_arm.isHomed()) {
+      System.err.println("⚠️ Arm not homed - " + position + " not recorded");
+      return;
+    }
+
+    CalibrationStore store = CalibrationStore.getInstance();
+    store.put(position.armAngleKey(), armPosition);
+    store.put(position.extensionKey(), extensionPosition);
 
     // Print to console with clear formatting
     System.out.println("==================================================");
-    System.out.println("📍 POSITION RECORDED: " + m_positionName);
+    System.out.println("📍 POSITION RECORDED: " + position);
     System.out.println("==================================================");
     System.out.println("Arm Angle:  " + String.format("%.2f", armPosition) + " encoder ticks");
     System.out.println("Extension:  " + String.format("%.2f", extensionPosition) + " encoder ticks");
     System.out.println("");
-    System.out.println("Add to Constants.java:");
-    System.out.println("public static final double k" + m_positionName + "Position = " +
-                      String.format("%.2f", armPosition) + ";");
-    if (extensionPosition > 50) { // If significantly extended
-      System.out.println("public static final double kExtendedPosition = " +
-                        String.format("%.2f", extensionPosition) + ";");
-    }
+    System.out.println("✓ Saved to calibration store and applied - no redeploy needed");
     System.out.println("==================================================");
 
     // Also publish to SmartDashboard
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putString("Calibration/Last Position", m_positionName);
+    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putString("Calibration/Last Position", position.name());
     edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Calibration/Last Arm Angle", armPosition);
     edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Calibration/Last Extension", extensionPosition);
   }
@@ -0,0 +1,112 @@
+package frc.robot.commands;
+
+import java.util.function.Supplier;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.ScoringSetpoints;
+
+/**
+ * Command to hold a scoring level with the setpoint adjusted for the distance to the reef
+ * The setpoint is refreshed every loop and the arm is retargeted once it has moved
+ * far enough to matter. Out of range, or if the planner rejects the adjusted setpoint, the arm
+ * holds the plain preset (a rejected setpoint isn't retried until the target moves again).
+ * Runs until interrupted by another arm command.
+ */
+public class ScoreAtDistance extends Command {
+  private static final double RETARGET_THRESHOLD = 8.0; // encoder ticks
+
+  private final ArmSubsystem m_arm;
+  private final ScoringSetpoints m_setpoints;
+  private final Supplier<Pose2d> m_poseSupplier;
+  private final ArmPosition m_level;
+
+  private double m_commandedArm;
+  private double m_commandedExtension;
+  private double m_rejectedArm;
+  private double m_rejectedExtension;
+
+  /**
+   * Creates a new ScoreAtDistance command
+   *
+   * @param arm The arm subsystem
+   * @param setpoints Distance-interpolated scoring setpoints
+   * @param poseSupplier Fused robot pose
+   * @param level Scoring level
+   */
+  public ScoreAtDistance(ArmSubsystem arm, ScoringSetpoints setpoints,
+                         Supplier<Pose2d> poseSupplier, ArmPosition level) {
+    m_arm = arm;
+    m_setpoints = setpoints;
+    m_poseSupplier = poseSupplier;
+    m_level = level;
+    addRequirements(arm);
+  }
+
+  @Override
+  public void initialize() {
+    m_commandedArm = Double.NaN;
+    m_commandedExtension = Double.NaN;
+    m_rejectedArm = Double.NaN;
+    m_rejectedExtension = Double.NaN;
+    m_setpoints.refreshAlliance();
+    m_setpoints.update(m_poseSupplier.get());
+    retarget();
+  }
+
+  @Override
+  public void execute() {
+    m_setpoints.update(m_poseSupplier.get());
+
+    double arm = m_setpoints.getArmAngle(m_level);
+    double extension = m_setpoints.getExtension(m_level);
+    boolean changed = !isNear(arm, extension, m_commandedArm, m_commandedExtension)
+        && !isNear(arm, extension, m_rejectedArm, m_rejectedExtension);
+
+    // Let the current move finish first - replanning restarts the profile from rest
+    if (changed && !m_arm.isMoving()) {
+      retarget();
+    }
+
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putNumber("Arm/Scoring Distance (m)", m_setpoints.getDistanceMeters());
+    nt.putBoolean("Arm/Scoring In Range", m_setpoints.isInRange());
+  }
+
+  /**
+   * Send the current setpoint to the arm
+   */
+  private void retarget() {
+    double arm = m_setpoints.getArmAngle(m_level);
+    double extension = m_setpoints.getExtension(m_level);
+    if (m_setpoints.isInRange()) {
+      if (m_arm.setAdjustedPosition(m_level, arm, extension)) {
+        m_commandedArm = arm;
+        m_commandedExtension = extension;
+        return;
+      }
+      // Rejected - don't retry this target, fall back to the preset below
+      m_rejectedArm = arm;
+      m_rejectedExtension = extension;
+    }
+    m_arm.setPosition(m_level);
+    m_commandedArm = m_level.getArmAngle();
+    m_commandedExtension = m_level.getExtension();
+  }
+
+  /**
+   * Check if a target is within the retarget threshold of another (false if that one is unset)
+   */
+  private static boolean isNear(double arm, double extension, double otherArm, double otherExtension) {
+    return Math.abs(arm - otherArm) <= RETARGET_THRESHOLD
+        && Math.abs(extension - otherExtension) <= RETARGET_THRESHOLD;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+}
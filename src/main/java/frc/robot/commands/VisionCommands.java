@@ -1,9 +1,16 @@
 package frc.robot.commands;
 
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.VisionConstants;
 import frc.robot.subsystems.SwerveDriveSubsystem;
 import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.util.ReefTargeting;
 
 /**
  * Factory class for vision-related commands
@@ -17,6 +24,16 @@ public class VisionCommands {
   private static final double DISTANCE_TOLERANCE = 0.2; // meters
   private static final double AUTO_AIM_TIMEOUT = 3.0; // seconds
 
+  // Pose-based aiming constants
+  private static final double POSE_AIM_KP = 0.6; // Rotation output per radian of heading error
+  private static final double POSE_AIM_MAX_OUTPUT = 0.5; // Max rotation output (-1.0 to 1.0)
+  private static final double POSE_AIM_TOLERANCE = Math.toRadians(2.0);
+
+  // Alignment benchmark: reef tag and start offset from its scoring pose (robot frame)
+  private static final int BENCHMARK_TAG_ID = 18;
+  private static final Transform2d BENCHMARK_START_OFFSET =
+      new Transform2d(-1.5, 0.6, Rotation2d.fromDegrees(25.0));
+
   /**
    * Command to auto-aim at target using vision
    * Rotates robot until aligned with target
@@ -45,12 +62,44 @@ public class VisionCommands {
         () -> {
           drive.stop();
           vision.disableVision(); // Turn off LEDs when done
+          vision.setAprilTagRequested(false);
         },
         drive,
         vision
     )
     .withTimeout(AUTO_AIM_TIMEOUT)
-    .until(() -> vision.isAligned(ALIGNMENT_TOLERANCE));
+    .until(() -> vision.isAligned(ALIGNMENT_TOLERANCE))
+    .beforeStarting(() -> vision.setAprilTagRequested(true)); // Steer on the reef tag, not coral
+  }
+
+  /**
+   * Command to aim at the nearest reef face using the fused pose
+   * Unlike autoAim, this does not need the tag in view, so the robot
+   * can pre-rotate toward the reef while still driving in
+   *
+   * @param drive Drive subsystem
+   * @param targeting Reef targeting service
+   * @return Command that rotates to face the nearest reef face
+   */
+  public static Command aimAtReef(SwerveDriveSubsystem drive, ReefTargeting targeting) {
+    return Commands.sequence(
+        Commands.runOnce(() -> targeting.refreshAlliance()),
+        drive.runEnd(
+            () -> {
+              if (targeting.update(drive.getPose())) {
+                double rot = targeting.getHeadingErrorRadians() * POSE_AIM_KP;
+                rot = Math.max(-POSE_AIM_MAX_OUTPUT, Math.min(POSE_AIM_MAX_OUTPUT, rot));
+                drive.drive(0, 0, rot, false);
+              } else {
+                drive.stop();
+              }
+            },
+            () -> drive.stop()
+        )
+        .until(() -> targeting.hasTarget() &&
+                     Math.abs(targeting.getHeadingErrorRadians()) < POSE_AIM_TOLERANCE)
+    )
+    .withTimeout(AUTO_AIM_TIMEOUT);
   }
 
   /**
@@ -63,6 +112,7 @@ public class VisionCommands {
    */
   public static Command aimAndApproach(SwerveDriveSubsystem drive, VisionSubsystem vision,
                                        double targetDistanceMeters) {
+    Timer timer = new Timer();
     return Commands.run(
         () -> {
           vision.enableVision();
@@ -91,12 +141,75 @@ public class VisionCommands {
     .withTimeout(5.0)
     .until(() -> vision.isAligned(ALIGNMENT_TOLERANCE) &&
                  vision.isAtDistance(targetDistanceMeters, DISTANCE_TOLERANCE))
-    .finallyDo(() -> {
+    .beforeStarting(() -> {
+      vision.setAprilTagRequested(true);
+      timer.restart();
+    })
+    .finallyDo(interrupted -> {
       drive.stop();
+      // Only a finish on the target condition counts; a timeout or interrupt would
+      // otherwise publish the time it took to give up
+      boolean succeeded = !interrupted && vision.isAligned(ALIGNMENT_TOLERANCE) &&
+          vision.isAtDistance(targetDistanceMeters, DISTANCE_TOLERANCE);
       vision.disableVision();
+      vision.setAprilTagRequested(false);
+      SmartDashboard.putBoolean("Align/AimAndApproach Succeeded", succeeded);
+      SmartDashboard.putNumber("Align/AimAndApproach Time (s)",
+          succeeded ? timer.get() : Double.NaN);
+    });
+  }
+
+  /**
+   * Command to drive to the scoring pose next to a reef branch
+   * Uses profiled X/Y/theta control on the fused pose, so the robot translates
+   * and rotates at the same time
+   *
+   * @param drive Drive subsystem
+   * @param targeting Reef targeting service
+   * @param leftBranch true for the left branch (as seen facing the reef)
+   * @return Command that drives to the branch scoring pose
+   */
+  public static Command alignToReefBranch(SwerveDriveSubsystem drive, ReefTargeting targeting,
+                                          boolean leftBranch) {
+    return new DriveToPose(drive, () -> {
+      targeting.refreshAlliance();
+      targeting.update(drive.getPose());
+      return targeting.getBranchScoringPose(leftBranch);
     });
   }
 
+  /**
+   * Simulation benchmark comparing time-to-align of DriveToPose and aimAndApproach
+   * Both runs start from the same pose offset from a reef face; times are published
+   * under Align/ on the dashboard
+   *
+   * @param drive Drive subsystem
+   * @param vision Vision subsystem
+   * @param targeting Reef targeting service
+   * @return Benchmark command
+   */
+  public static Command alignBenchmark(SwerveDriveSubsystem drive, VisionSubsystem vision,
+                                       ReefTargeting targeting) {
+    Pose2d scoringPose = targeting.getScoringPoseForTag(BENCHMARK_TAG_ID);
+    if (scoringPose == null) {
+      return Commands.print("Align benchmark: tag " + BENCHMARK_TAG_ID + " not in field layout");
+    }
+    Pose2d startPose = scoringPose.transformBy(BENCHMARK_START_OFFSET);
+
+    return Commands.sequence(
+        Commands.runOnce(() -> drive.resetOdometry(startPose), drive),
+        new DriveToPose(drive, () -> scoringPose),
+        Commands.runOnce(() -> drive.resetOdometry(startPose), drive),
+        aimAndApproach(drive, vision, VisionConstants.kReefStandoffMeters),
+        Commands.runOnce(() -> System.out.println("Align benchmark: DriveToPose " +
+            String.format("%.2f", SmartDashboard.getNumber("Align/DriveToPose Time (s)", 0.0)) +
+            "s vs AimAndApproach " +
+            (SmartDashboard.getBoolean("Align/AimAndApproach Succeeded", false)
+                ? String.format("%.2f", SmartDashboard.getNumber("Align/AimAndApproach Time (s)", 0.0)) + "s"
+                : "failed (timed out or interrupted)")))
+    );
+  }
+
   /**
    * Command to enable vision mode (turns on LEDs)
    *
@@ -167,7 +280,11 @@ public class VisionCommands {
         drive,
         vision
     )
-    .finallyDo(() -> vision.disableVision());
+    .beforeStarting(() -> vision.setAprilTagRequested(true))
+    .finallyDo(() -> {
+      vision.disableVision();
+      vision.setAprilTagRequested(false);
+    });
   }
 
   // Prevent instantiation
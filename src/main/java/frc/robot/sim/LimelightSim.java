@@ -0,0 +1,308 @@
+package frc.robot.sim;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.subsystems.VisionSubsystem.CameraMode;
+import frc.robot.subsystems.VisionSubsystem.LEDMode;
+
+/**
+ * Simulated Limelight for testing vision code without a camera
+ * Projects the field AprilTags into the camera from the simulated robot pose and
+ * publishes tv/tx/ty/ta/tl/cl/botpose to the same NetworkTables entries a real
+ * Limelight would, with configurable noise, latency and frame rate.
+ * Writing ledMode/camMode affects the output like it does on the robot, and the
+ * pipeline and crop window change what is detected and how fast frames are processed.
+ */
+public class LimelightSim {
+  private static final double TAG_SIZE_METERS = 0.1651; // 6.5 inch AprilTags
+  private static final double MAX_RANGE_METERS = 5.0; // Tags farther than this aren't detected
+  private static final double FIXED_PROCESSING_MS = 4.0; // Per-frame overhead independent of crop
+  private static final double[] FULL_FRAME = {-1.0, 1.0, -1.0, 1.0};
+
+  private final Supplier<Pose2d> m_poseSupplier;
+  private final AprilTagFieldLayout m_layout;
+  private final Random m_random = new Random(6045);
+
+  private final NetworkTableEntry m_tv;
+  private final NetworkTableEntry m_tx;
+  private final NetworkTableEntry m_ty;
+  private final NetworkTableEntry m_ta;
+  private final NetworkTableEntry m_tl;
+  private final NetworkTableEntry m_cl;
+  private final NetworkTableEntry m_tid;
+  private final NetworkTableEntry m_botPose;
+  private final NetworkTableEntry m_botPoseBlue;
+  private final NetworkTableEntry m_ledMode;
+  private final NetworkTableEntry m_camMode;
+  private final NetworkTableEntry m_pipeline;
+  private final NetworkTableEntry m_getPipe;
+  private final NetworkTableEntry m_crop;
+  private final NetworkTableEntry m_heartbeat;
+
+  // Camera model (configurable)
+  private double m_frameRate = 90.0; // Sensor frame rate cap (frames per second)
+  private double m_pipelineLatencyMs = 20.0; // tl for a full (uncropped) frame
+  private double m_captureLatencyMs = 11.0; // cl
+  private double m_angleNoiseDegrees = 0.1; // standard deviation of tx/ty
+  private double m_poseNoiseMeters = 0.03; // standard deviation of botpose x/y
+  private double m_yawNoiseDegrees = 1.0; // standard deviation of botpose yaw
+  private boolean m_requireLeds = true; // Targets are only seen with LEDs on
+
+  // Frames captured but not yet published: {publishTime, tv, tx, ty, ta, tid, x, y, yaw, tl}
+  private final ArrayDeque<double[]> m_pendingFrames = new ArrayDeque<>();
+  private double m_nextFrameTime = 0.0;
+  private double m_heartbeatCount = 0.0;
+
+  /**
+   * Creates a simulated Limelight
+   *
+   * @param poseSupplier Supplies the true simulated robot pose
+   * @param layout Field AprilTag layout
+   */
+  public LimelightSim(Supplier<Pose2d> poseSupplier, AprilTagFieldLayout layout) {
+    m_poseSupplier = poseSupplier;
+    m_layout = layout;
+
+    NetworkTable table = NetworkTableInstance.getDefault().getTable(VisionConstants.kLimelightName);
+    m_tv = table.getEntry("tv");
+    m_tx = table.getEntry("tx");
+    m_ty = table.getEntry("ty");
+    m_ta = table.getEntry("ta");
+    m_tl = table.getEntry("tl");
+    m_cl = table.getEntry("cl");
+    m_tid = table.getEntry("tid");
+    m_botPose = table.getEntry("botpose");
+    m_botPoseBlue = table.getEntry("botpose_wpiblue");
+    m_ledMode = table.getEntry("ledMode");
+    m_camMode = table.getEntry("camMode");
+    m_pipeline = table.getEntry("pipeline");
+    m_getPipe = table.getEntry("getpipe");
+    m_crop = table.getEntry("crop");
+    m_heartbeat = table.getEntry("hb");
+
+    System.out.println("✓ Limelight simulation enabled");
+  }
+
+  /**
+   * Set the simulated sensor frame rate cap
+   * The achieved rate is lower when processing takes longer than one frame
+   *
+   * @param framesPerSecond Frames per second
+   */
+  public void setFrameRate(double framesPerSecond) {
+    m_frameRate = Math.max(1.0, framesPerSecond);
+  }
+
+  /**
+   * Set the simulated latency
+   *
+   * @param pipelineLatencyMs Processing latency (tl) for a full, uncropped frame
+   * @param captureLatencyMs Image capture latency (cl)
+   */
+  public void setLatency(double pipelineLatencyMs, double captureLatencyMs) {
+    m_pipelineLatencyMs = pipelineLatencyMs;
+    m_captureLatencyMs = captureLatencyMs;
+  }
+
+  /**
+   * Set the simulated measurement noise (standard deviations)
+   *
+   * @param angleNoiseDegrees Noise on tx/ty
+   * @param poseNoiseMeters Noise on botpose x/y
+   * @param yawNoiseDegrees Noise on botpose yaw
+   */
+  public void setNoise(double angleNoiseDegrees, double poseNoiseMeters, double yawNoiseDegrees) {
+    m_angleNoiseDegrees = angleNoiseDegrees;
+    m_poseNoiseMeters = poseNoiseMeters;
+    m_yawNoiseDegrees = yawNoiseDegrees;
+  }
+
+  /**
+   * Set whether targets are only detected while the LEDs are on
+   *
+   * @param requireLeds true to model a pipeline that needs the LEDs
+   */
+  public void setRequireLeds(boolean requireLeds) {
+    m_requireLeds = requireLeds;
+  }
+
+  /**
+   * Update the simulated camera - call once per simulation loop
+   */
+  public void update() {
+    double now = Timer.getFPGATimestamp();
+
+    // Capture new frames as fast as the sensor and processing time allow
+    // (the camera can run faster than the 20ms robot loop)
+    if (m_nextFrameTime < now - 0.1) {
+      m_nextFrameTime = now; // Don't try to catch up after a pause
+    }
+    while (now >= m_nextFrameTime) {
+      double[] frame = captureFrame(m_nextFrameTime);
+      m_pendingFrames.addLast(frame);
+      m_nextFrameTime += Math.max(1.0 / m_frameRate, frame[9] / 1000.0);
+    }
+
+    // Publish frames once their processing latency has passed
+    while (!m_pendingFrames.isEmpty() && m_pendingFrames.peekFirst()[0] <= now) {
+      publish(m_pendingFrames.removeFirst());
+    }
+  }
+
+  /**
+   * Capture one frame from the current simulated pose
+   *
+   * @param now Capture time
+   * @return Frame data
+   */
+  private double[] captureFrame(double now) {
+    // Processing time scales with the number of pixels inside the crop window
+    double[] crop = m_crop.getDoubleArray(FULL_FRAME);
+    if (crop.length < 4) {
+      crop = FULL_FRAME;
+    }
+    double cropFraction = Math.max(0.0, Math.min(1.0,
+        (crop[1] - crop[0]) * (crop[3] - crop[2]) / 4.0));
+    double pipelineLatency = FIXED_PROCESSING_MS
+        + (m_pipelineLatencyMs - FIXED_PROCESSING_MS) * cropFraction;
+
+    double publishTime = now + (pipelineLatency + m_captureLatencyMs) / 1000.0;
+    double[] frame = new double[] {publishTime, 0, 0, 0, 0, -1, 0, 0, 0, pipelineLatency};
+
+    // Only the AprilTag pipeline detects tags (no simulated coral)
+    int pipeline = (int) m_pipeline.getDouble(VisionConstants.kAprilTagPipeline);
+    if (!isProcessing(now) || pipeline != VisionConstants.kAprilTagPipeline) {
+      return frame;
+    }
+
+    Pose2d pose = m_poseSupplier.get();
+    double heading = pose.getRotation().getRadians();
+    double cos = Math.cos(heading);
+    double sin = Math.sin(heading);
+    double mountRad = Math.toRadians(VisionConstants.kLimelightMountAngleDegrees);
+    double halfHFov = VisionConstants.kLimelightHorizontalFovDegrees / 2.0;
+    double halfVFov = VisionConstants.kLimelightVerticalFovDegrees / 2.0;
+
+    // Limelight reports the largest (closest) visible tag
+    double bestDistance = Double.MAX_VALUE;
+    for (AprilTag tag : m_layout.getTags()) {
+      double fieldDx = tag.pose.getX() - pose.getX();
+      double fieldDy = tag.pose.getY() - pose.getY();
+      double dz = tag.pose.getZ() - VisionConstants.kLimelightHeightMeters;
+
+      // Tag position in the robot frame (x forward, y left)
+      double forward = fieldDx * cos + fieldDy * sin;
+      double left = -fieldDx * sin + fieldDy * cos;
+      double distance = Math.hypot(forward, left);
+      if (forward <= 0.0 || distance > MAX_RANGE_METERS || distance >= bestDistance) {
+        continue;
+      }
+
+      // Tag must face the camera
+      double tagYaw = tag.pose.getRotation().getZ();
+      double facing = -(fieldDx * Math.cos(tagYaw) + fieldDy * Math.sin(tagYaw)) / distance;
+      if (facing <= 0.0) {
+        continue;
+      }
+
+      double tx = -Math.toDegrees(Math.atan2(left, forward));
+      double ty = Math.toDegrees(Math.atan2(dz, forward) - mountRad);
+      if (Math.abs(tx) > halfHFov || Math.abs(ty) > halfVFov) {
+        continue;
+      }
+
+      // Tags outside the crop window aren't processed
+      double imageX = tx / halfHFov;
+      double imageY = ty / halfVFov;
+      if (imageX < crop[0] || imageX > crop[1] || imageY < crop[2] || imageY > crop[3]) {
+        continue;
+      }
+
+      // Target area as percent of the image
+      double imageWidth = 2.0 * distance * Math.tan(Math.toRadians(halfHFov));
+      double imageHeight = 2.0 * distance * Math.tan(Math.toRadians(halfVFov));
+      double ta = 100.0 * TAG_SIZE_METERS * TAG_SIZE_METERS * facing / (imageWidth * imageHeight);
+
+      bestDistance = distance;
+      frame[1] = 1.0;
+      frame[2] = tx + m_random.nextGaussian() * m_angleNoiseDegrees;
+      frame[3] = ty + m_random.nextGaussian() * m_angleNoiseDegrees;
+      frame[4] = ta;
+      frame[5] = tag.ID;
+    }
+
+    if (frame[1] == 1.0) {
+      frame[6] = pose.getX() + m_random.nextGaussian() * m_poseNoiseMeters;
+      frame[7] = pose.getY() + m_random.nextGaussian() * m_poseNoiseMeters;
+      frame[8] = pose.getRotation().getDegrees() + m_random.nextGaussian() * m_yawNoiseDegrees;
+    }
+    return frame;
+  }
+
+  /**
+   * Check if the camera is processing targets given the current LED and camera mode
+   *
+   * @param now Current time (for blinking LEDs)
+   * @return true if targets can be detected
+   */
+  private boolean isProcessing(double now) {
+    if ((int) m_camMode.getDouble(CameraMode.VISION.value) == CameraMode.DRIVER.value) {
+      return false; // Driver mode disables vision processing
+    }
+    if (!m_requireLeds) {
+      return true;
+    }
+
+    int ledMode = (int) m_ledMode.getDouble(LEDMode.PIPELINE.value);
+    if (ledMode == LEDMode.OFF.value) {
+      return false;
+    }
+    if (ledMode == LEDMode.BLINK.value) {
+      return ((int) (now * 4.0)) % 2 == 0; // LEDs on half the time
+    }
+    return true;
+  }
+
+  /**
+   * Publish a processed frame to NetworkTables
+   *
+   * @param frame Frame data
+   */
+  private void publish(double[] frame) {
+    double totalLatency = frame[9] + m_captureLatencyMs;
+
+    m_tv.setDouble(frame[1]);
+    m_tx.setDouble(frame[2]);
+    m_ty.setDouble(frame[3]);
+    m_ta.setDouble(frame[4]);
+    m_tid.setDouble(frame[5]);
+    m_tl.setDouble(frame[9]);
+    m_cl.setDouble(m_captureLatencyMs);
+    m_getPipe.setDouble(m_pipeline.getDouble(VisionConstants.kAprilTagPipeline));
+    m_heartbeat.setDouble(++m_heartbeatCount);
+
+    if (frame[1] == 1.0) {
+      // [x, y, z, roll, pitch, yaw, total latency, tag count, tag span, avg distance, avg area]
+      m_botPoseBlue.setDoubleArray(new double[] {
+          frame[6], frame[7], 0, 0, 0, frame[8], totalLatency, 1, 0, 0, frame[4]});
+      // botpose uses the field center as origin
+      m_botPose.setDoubleArray(new double[] {
+          frame[6] - m_layout.getFieldLength() / 2.0,
+          frame[7] - m_layout.getFieldWidth() / 2.0,
+          0, 0, 0, frame[8], totalLatency, 1, 0, 0, frame[4]});
+    } else {
+      m_botPoseBlue.setDoubleArray(new double[0]);
+      m_botPose.setDoubleArray(new double[0]);
+    }
+  }
+}
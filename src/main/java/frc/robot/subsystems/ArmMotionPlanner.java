@@ -0,0 +1,289 @@
+package frc.robot.subsystems;
+
+import java.util.Arrays;
+
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+
+/**
+ * Collision-aware motion planner for the arm angle and extension
+ * At boot the (arm, extension) configuration space is rasterized into a bitmap occupancy
+ * grid, and a minimum-time collision-free waypoint sequence is computed for every pair of
+ * ArmPositions. Planning a preset move at runtime is then just a table lookup.
+ *
+ * Each grid step takes the same time on either joint, so with both joints moving at once
+ * the time of a move is the larger of the two step counts (8-connected grid, uniform cost).
+ * Consecutive waypoints are chosen so the whole box between them is free, which keeps the
+ * move safe no matter how the two joints are timed relative to each other.
+ */
+public class ArmMotionPlanner {
+  // Grid resolution - one step on either axis takes the same time at max velocity
+  static final double ARM_STEP = 10.0; // encoder ticks
+  static final double EXTENSION_STEP =
+      ARM_STEP * ArmConstants.kMaxExtensionVelocity / ArmConstants.kMaxArmVelocity;
+
+  private static final int[] NEIGHBOR_DA = {1, -1, 0, 0, 1, 1, -1, -1};
+  private static final int[] NEIGHBOR_DE = {0, 0, 1, -1, 1, -1, 1, -1};
+
+  private final int m_armCells;
+  private final int m_extensionCells;
+  private final long[] m_freeBits; // 1 = configuration is safe
+
+  // Scratch buffers for the search (reused, sized to the grid)
+  private final int[] m_parent;
+  private final int[] m_queue;
+
+  // Cached preset plans, indexed by from.ordinal() * count + to.ordinal()
+  private double[][] m_presetPlans;
+
+  /**
+   * Creates the planner and precomputes the occupancy grid and all preset plans
+   */
+  public ArmMotionPlanner() {
+    m_armCells = (int) Math.ceil(
+        (ArmConstants.kMaxArmPosition - ArmConstants.kMinArmPosition) / ARM_STEP) + 1;
+    m_extensionCells = (int) Math.ceil(
+        (ArmConstants.kMaxExtensionPosition - ArmConstants.kRetractedPosition) / EXTENSION_STEP) + 1;
+
+    int cells = m_armCells * m_extensionCells;
+    m_freeBits = new long[(cells + 63) / 64];
+    m_parent = new int[cells];
+    m_queue = new int[cells];
+
+    for (int a = 0; a < m_armCells; a++) {
+      for (int e = 0; e < m_extensionCells; e++) {
+        if (isConfigurationSafe(cellArm(a), cellExtension(e))) {
+          int cell = index(a, e);
+          m_freeBits[cell >> 6] |= 1L << (cell & 63);
+        }
+      }
+    }
+
+    rebuildPresetPlans();
+  }
+
+  /**
+   * Recompute every preset-to-preset plan (call after the preset setpoints change)
+   */
+  public synchronized void rebuildPresetPlans() {
+    ArmPosition[] positions = ArmPosition.values();
+    double[][] plans = new double[positions.length * positions.length][];
+    for (ArmPosition from : positions) {
+      for (ArmPosition to : positions) {
+        plans[from.ordinal() * positions.length + to.ordinal()] =
+            plan(from.getArmAngle(), from.getExtension(), to.getArmAngle(), to.getExtension());
+      }
+    }
+    m_presetPlans = plans;
+  }
+
+  /**
+   * Check if an arm configuration is clear of the robot frame and within joint limits
+   * This is the single definition of the arm collision rule
+   *
+   * @param arm Arm position in encoder ticks
+   * @param extension Extension position in encoder ticks
+   * @return true if the configuration is safe
+   */
+  public static boolean isConfigurationSafe(double arm, double extension) {
+    // Check single-axis limits
+    if (arm < ArmConstants.kMinArmPosition || arm > ArmConstants.kMaxArmPosition) {
+      return false;
+    }
+    if (extension < ArmConstants.kRetractedPosition || extension > ArmConstants.kMaxExtensionPosition) {
+      return false;
+    }
+
+    // Check collision: If extended, limit arm angle
+    if (extension > ArmConstants.kRetractedPosition + 100) {
+      if (arm < ArmConstants.kMinArmPositionExtended || arm > ArmConstants.kMaxArmPositionExtended) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Get the cached plan between two preset positions
+   *
+   * @param from Starting preset
+   * @param to Target preset
+   * @return Waypoints as [arm0, ext0, arm1, ext1, ...] ending at the target,
+   *         or null if no collision-free path exists
+   */
+  public double[] getPlan(ArmPosition from, ArmPosition to) {
+    return m_presetPlans[from.ordinal() * ArmPosition.values().length + to.ordinal()];
+  }
+
+  /**
+   * Plan a minimum-time collision-free move between two arbitrary configurations
+   * Searches the precomputed grid, so this is fast enough to run occasionally at runtime
+   *
+   * @param startArm Starting arm position
+   * @param startExtension Starting extension
+   * @param goalArm Target arm position
+   * @param goalExtension Target extension
+   * @return Waypoints as [arm0, ext0, arm1, ext1, ...] ending at the target,
+   *         or null if no collision-free path exists
+   */
+  public synchronized double[] plan(double startArm, double startExtension,
+                                    double goalArm, double goalExtension) {
+    if (!isConfigurationSafe(goalArm, goalExtension)) {
+      return null;
+    }
+
+    // Direct move if the whole box between start and goal is free
+    if (isMoveSafe(startArm, startExtension, goalArm, goalExtension)) {
+      return new double[] {goalArm, goalExtension};
+    }
+
+    int start = index(armCell(startArm), extensionCell(startExtension));
+    int goal = index(armCell(goalArm), extensionCell(goalExtension));
+    if (!isFree(start) || !isFree(goal)) {
+      return null;
+    }
+
+    // Breadth-first search (uniform step cost = minimum time on this grid)
+    Arrays.fill(m_parent, -1);
+    m_parent[start] = start;
+    int head = 0;
+    int tail = 0;
+    m_queue[tail++] = start;
+
+    while (head < tail && m_parent[goal] < 0) {
+      int cell = m_queue[head++];
+      int a = cell / m_extensionCells;
+      int e = cell % m_extensionCells;
+
+      for (int n = 0; n < NEIGHBOR_DA.length; n++) {
+        int na = a + NEIGHBOR_DA[n];
+        int ne = e + NEIGHBOR_DE[n];
+        if (na < 0 || na >= m_armCells || ne < 0 || ne >= m_extensionCells) {
+          continue;
+        }
+        int next = index(na, ne);
+        if (m_parent[next] >= 0 || !isFree(next)) {
+          continue;
+        }
+        // Diagonal steps must not cut a blocked corner
+        if (n >= 4 && (!isFree(index(na, e)) || !isFree(index(a, ne)))) {
+          continue;
+        }
+        m_parent[next] = cell;
+        m_queue[tail++] = next;
+      }
+    }
+
+    if (m_parent[goal] < 0) {
+      return null;
+    }
+
+    // Walk back from the goal to get the path, using the exact start and goal setpoints
+    int length = 0;
+    for (int cell = m_parent[goal]; cell != start; cell = m_parent[cell]) {
+      length++;
+    }
+    double[] path = new double[(length + 2) * 2];
+    int slot = length + 1;
+    path[slot * 2] = goalArm;
+    path[slot * 2 + 1] = goalExtension;
+    for (int cell = m_parent[goal]; cell != start; cell = m_parent[cell]) {
+      slot--;
+      path[slot * 2] = cellArm(cell / m_extensionCells);
+      path[slot * 2 + 1] = cellExtension(cell % m_extensionCells);
+    }
+    path[0] = startArm;
+    path[1] = startExtension;
+
+    // Keep only the waypoints needed so every box between waypoints is free
+    int points = length + 2;
+    double[] waypoints = new double[points * 2];
+    int count = 0;
+    int anchor = 0;
+    while (anchor < points - 1) {
+      int next = anchor + 1;
+      while (next < points - 1 && isMoveSafe(path[anchor * 2], path[anchor * 2 + 1],
+                                             path[next * 2 + 2], path[next * 2 + 3])) {
+        next++;
+      }
+      waypoints[count++] = path[next * 2];
+      waypoints[count++] = path[next * 2 + 1];
+      anchor = next;
+    }
+    return Arrays.copyOf(waypoints, count);
+  }
+
+  /**
+   * Check if a straight move between two configurations is collision-free
+   * Conservative: the whole box between them must be free, since the two joints
+   * are not guaranteed to arrive at the same time
+   *
+   * @param startArm Starting arm position
+   * @param startExtension Starting extension
+   * @param goalArm Target arm position
+   * @param goalExtension Target extension
+   * @return true if the move cannot pass through a blocked configuration
+   */
+  public boolean isMoveSafe(double startArm, double startExtension,
+                            double goalArm, double goalExtension) {
+    if (!isConfigurationSafe(goalArm, goalExtension)) {
+      return false;
+    }
+    double armLow = (Math.min(startArm, goalArm) - ArmConstants.kMinArmPosition) / ARM_STEP;
+    double armHigh = (Math.max(startArm, goalArm) - ArmConstants.kMinArmPosition) / ARM_STEP;
+    double extLow = (Math.min(startExtension, goalExtension) - ArmConstants.kRetractedPosition) / EXTENSION_STEP;
+    double extHigh = (Math.max(startExtension, goalExtension) - ArmConstants.kRetractedPosition) / EXTENSION_STEP;
+
+    // Round outward so a box that touches a blocked cell is never reported free
+    return isBoxFree(
+        clampArmCell((int) Math.floor(armLow + 1e-9)), clampArmCell((int) Math.ceil(armHigh - 1e-9)),
+        clampExtensionCell((int) Math.floor(extLow + 1e-9)), clampExtensionCell((int) Math.ceil(extHigh - 1e-9)));
+  }
+
+  /**
+   * Check if every cell in a box of grid cells is free
+   */
+  private boolean isBoxFree(int a0, int a1, int e0, int e1) {
+    for (int a = a0; a <= a1; a++) {
+      for (int e = e0; e <= e1; e++) {
+        if (!isFree(index(a, e))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean isFree(int cell) {
+    return (m_freeBits[cell >> 6] & (1L << (cell & 63))) != 0;
+  }
+
+  private int index(int armCell, int extensionCell) {
+    return armCell * m_extensionCells + extensionCell;
+  }
+
+  private int armCell(double arm) {
+    return clampArmCell((int) Math.round((arm - ArmConstants.kMinArmPosition) / ARM_STEP));
+  }
+
+  private int extensionCell(double extension) {
+    return clampExtensionCell((int) Math.round((extension - ArmConstants.kRetractedPosition) / EXTENSION_STEP));
+  }
+
+  private int clampArmCell(int cell) {
+    return Math.max(0, Math.min(m_armCells - 1, cell));
+  }
+
+  private int clampExtensionCell(int cell) {
+    return Math.max(0, Math.min(m_extensionCells - 1, cell));
+  }
+
+  private double cellArm(int armCell) {
+    return ArmConstants.kMinArmPosition + armCell * ARM_STEP;
+  }
+
+  private double cellExtension(int extensionCell) {
+    return ArmConstants.kRetractedPosition + extensionCell * EXTENSION_STEP;
+  }
+}
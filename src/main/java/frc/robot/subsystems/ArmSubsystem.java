@@ -1,13 +1,31 @@
 package frc.robot.subsystems;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkPIDController;
 import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.FaultID;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.ArmConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.util.BilinearTable;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.FaultMonitor;
+import frc.robot.util.HomingStore;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.PowerManager;
 
 /**
  * Arm subsystem for scoring coral on the reef
@@ -25,14 +43,68 @@ public class ArmSubsystem extends SubsystemBase {
   private final SparkPIDController m_armPIDController;
   private final SparkPIDController m_extensionPIDController;
 
+  // Preset setpoints come from the runtime calibration store (loaded before anything uses them)
+  private final CalibrationStore m_calibration = loadCalibration();
+
   private ArmPosition m_targetPosition = ArmPosition.STOWED;
+  // Adjustment on top of the target preset from setAdjustedPosition() (0 when moved to the plain preset)
+  private double m_presetArmOffset = 0.0;
+  private double m_presetExtensionOffset = 0.0;
+  private ArmPosition m_lastPreset = ArmPosition.STOWED; // null after a custom setpoint
+  private double m_targetArm = ArmPosition.STOWED.getArmAngle();
+  private double m_targetExtension = ArmPosition.STOWED.getExtension();
   private boolean m_isHomed = false;
-
-  // Current spike detection for jammed mechanisms
+  private volatile boolean m_homingActive = false; // Driving into the hard stops on purpose
+
+  // Homing state persisted across reboots
+  private static final double RESTORE_TOLERANCE = 5.0; // Encoder ticks - sim record/encoder match
+  private final HomingStore m_homingStore = new HomingStore(
+      CalibrationStore.getStorageDirectory().resolve(ArmConstants.kHomingFileName), homingFingerprint());
+
+  // Gravity feedforward (volts) vs arm angle and extension
+  private BilinearTable m_gravityTable;
+
+  // Collision-free waypoint following (plans are precomputed per preset pair)
+  private static final double PRESET_TOLERANCE = 20.0; // Encoder ticks - "still at the last preset"
+  private final ArmMotionPlanner m_planner = new ArmMotionPlanner();
+  private double[] m_waypoints = null; // [arm0, ext0, arm1, ext1, ...]
+  private int m_waypointIndex = 0;
+
+  // Time-synchronized on-RIO profiles (one segment per waypoint), streamed at 200Hz
+  private static final double PROFILE_PERIOD = 0.005; // seconds
+  private final Notifier m_profileNotifier = new Notifier(this::runProfiles);
+  private boolean m_profileActive = false;
+  private TrapezoidProfile m_armProfile;
+  private TrapezoidProfile m_extensionProfile;
+  private TrapezoidProfile.State m_armStart = new TrapezoidProfile.State();
+  private TrapezoidProfile.State m_armGoal = new TrapezoidProfile.State();
+  private TrapezoidProfile.State m_extensionStart = new TrapezoidProfile.State();
+  private TrapezoidProfile.State m_extensionGoal = new TrapezoidProfile.State();
+  private TrapezoidProfile.State m_armSetpoint = new TrapezoidProfile.State();
+  private TrapezoidProfile.State m_extensionSetpoint = new TrapezoidProfile.State();
+  private double m_segmentStartTime = 0.0;
+  private double m_segmentDuration = 0.0;
+  private double m_profilePowerRatio = 1.0; // Constraint scale applied for battery headroom
+
+  // Fault rules for jammed or overheating mechanisms
   private static final double CURRENT_SPIKE_THRESHOLD = 35.0; // Amps
-  private static final int CURRENT_SPIKE_DURATION = 10; // Periodic cycles (~200ms at 20ms per cycle)
-  private int m_armCurrentSpikeCounter = 0;
-  private int m_extensionCurrentSpikeCounter = 0;
+  private static final double CURRENT_SPIKE_DURATION = 0.2; // Seconds
+  private static final double STALL_CURRENT = 30.0; // Amps
+  private static final double STALL_VELOCITY = 50.0; // RPM - "not moving"
+  private static final double STALL_DURATION = 0.5; // Seconds
+  private static final double CONTINUOUS_CURRENT = 30.0; // Amps the NEO can carry indefinitely
+  private static final double THERMAL_LIMIT = 3000.0; // A²s above continuous before warning
+
+  // PID gains last sent to each SPARK MAX {P, I, D, FF} - only resend when the dashboard changes them.
+  // Changes are requested from periodic() and sent from the profile thread between setpoints, so a
+  // gain write never interleaves with a setReference() (guarded by this).
+  private final double[] m_appliedArmGains = {
+      ArmConstants.kArmP, ArmConstants.kArmI, ArmConstants.kArmD, ArmConstants.kArmFF};
+  private final double[] m_appliedExtensionGains = {
+      ArmConstants.kExtensionP, ArmConstants.kExtensionI, ArmConstants.kExtensionD, ArmConstants.kExtensionFF};
+  private final double[] m_requestedArmGains = m_appliedArmGains.clone();
+  private final double[] m_requestedExtensionGains = m_appliedExtensionGains.clone();
+  private boolean m_gainsPending = false;
 
   public enum ArmPosition {
     STOWED(ArmConstants.kStowedPosition, ArmConstants.kRetractedPosition),
@@ -42,12 +114,56 @@ public class ArmSubsystem extends SubsystemBase {
     LEVEL_3(ArmConstants.kLevel3Position, ArmConstants.kExtendedPosition),
     LEVEL_4(ArmConstants.kLevel4Position, ArmConstants.kExtendedPosition);
 
-    public final double armAngle;
-    public final double extension;
+    private final double m_defaultArmAngle;
+    private final double m_defaultExtension;
+    private double m_armAngle;
+    private double m_extension;
 
     ArmPosition(double armAngle, double extension) {
-      this.armAngle = armAngle;
-      this.extension = extension;
+      m_defaultArmAngle = armAngle;
+      m_defaultExtension = extension;
+      m_armAngle = armAngle;
+      m_extension = extension;
+    }
+
+    /**
+     * @return Arm angle setpoint in encoder ticks (calibrated value if there is one)
+     */
+    public double getArmAngle() {
+      return m_armAngle;
+    }
+
+    /**
+     * @return Extension setpoint in encoder ticks (calibrated value if there is one)
+     */
+    public double getExtension() {
+      return m_extension;
+    }
+
+    /**
+     * @return Calibration store key for the arm angle
+     */
+    public String armAngleKey() {
+      return "arm." + name() + ".angle";
+    }
+
+    /**
+     * @return Calibration store key for the extension
+     */
+    public String extensionKey() {
+      return "arm." + name() + ".extension";
+    }
+
+    /**
+     * Refresh every setpoint from the calibration store (Constants values are the defaults)
+     *
+     * @param store The calibration store
+     */
+    static void loadCalibration(CalibrationStore store) {
+      for (ArmPosition position : values()) {
+        position.m_armAngle = store.get(position.armAngleKey(), position.m_defaultArmAngle);
+        position.m_extension = store.get(position.extensionKey(), position.m_defaultExtension);
+      }
     }
   }
 
@@ -103,8 +219,32 @@ public class ArmSubsystem extends SubsystemBase {
     m_armMotor.burnFlash();
     m_extensionMotor.burnFlash();
 
-    // Reset encoders
-    resetEncoders();
+    // Restore homing from flash if the SPARK MAXes kept their positions, otherwise start unhomed
+    restoreHoming();
+    m_homingStore.start();
+
+    // Register fault rules - a jam or stall stops the motor, an I²t overload warns
+    FaultMonitor faults = FaultMonitor.getInstance();
+    int armChannel = faults.registerMotor("Arm", m_armMotor::getOutputCurrent, m_armEncoder::getVelocity);
+    int extensionChannel = faults.registerMotor(
+        "Extension", m_extensionMotor::getOutputCurrent, m_extensionEncoder::getVelocity);
+    addFaultRules(armChannel, m_armMotor);
+    addFaultRules(extensionChannel, m_extensionMotor);
+
+    // Current budget - the arm gives way to the drivetrain when the battery sags
+    PowerManager.getInstance().register(
+        "Arm", PowerConstants.kArmPriority, 2, ArmConstants.kCurrentLimit, PowerConstants.kArmMinCurrentLimit,
+        () -> getArmCurrent() + getExtensionCurrent(),
+        amps -> {
+          m_armMotor.setSmartCurrentLimit(amps);
+          m_extensionMotor.setSmartCurrentLimit(amps);
+        });
+
+    // Load the gravity feedforward table (characterized copy first, then the deployed one)
+    m_gravityTable = loadGravityTable();
+
+    // Hot-reload preset setpoints when the calibration changes
+    m_calibration.addListener(this::onCalibrationChanged);
 
     // Publish PID values to SmartDashboard for live tuning
     edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Arm/PID/kP", ArmConstants.kArmP);
@@ -116,6 +256,10 @@ public class ArmSubsystem extends SubsystemBase {
     edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Extension/PID/kI", ArmConstants.kExtensionI);
     edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Extension/PID/kD", ArmConstants.kExtensionD);
     edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Extension/PID/kFF", ArmConstants.kExtensionFF);
+
+    // Start streaming profile setpoints
+    m_profileNotifier.setName("ArmProfiles");
+    m_profileNotifier.startPeriodic(PROFILE_PERIOD);
   }
 
   /**
@@ -124,25 +268,259 @@ public class ArmSubsystem extends SubsystemBase {
    * @param position The target position
    */
   public void setPosition(ArmPosition position) {
+    if (planMove(position.getArmAngle(), position.getExtension(), position, position.name())) {
+      m_targetPosition = position;
+      m_presetArmOffset = 0.0;
+      m_presetExtensionOffset = 0.0;
+    }
+  }
+
+  /**
+   * Move the arm to an arbitrary setpoint along a collision-free path
+   *
+   * @param armAngle Target arm angle in encoder ticks
+   * @param extension Target extension in encoder ticks
+   */
+  public void setCustomPosition(double armAngle, double extension) {
+    planMove(armAngle, extension, null, "custom setpoint");
+  }
+
+  /**
+   * Move the arm to an adjusted version of a preset (e.g. shifted for the distance to the reef)
+   * The preset is still reported as the target position.
+   *
+   * @param preset Preset being adjusted
+   * @param armAngle Target arm angle in encoder ticks
+   * @param extension Target extension in encoder ticks
+   * @return true if the move was started
+   */
+  public boolean setAdjustedPosition(ArmPosition preset, double armAngle, double extension) {
+    if (planMove(armAngle, extension, null, preset.name() + " (adjusted)")) {
+      m_targetPosition = preset;
+      m_presetArmOffset = armAngle - preset.getArmAngle();
+      m_presetExtensionOffset = extension - preset.getExtension();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Pull the extension in at the current arm angle (tip recovery - lowers the center of mass)
+   */
+  public void retractExtension() {
+    planMove(clampArmAngle(getArmPosition()), ArmConstants.kRetractedPosition, null, "retract");
+  }
+
+  /**
+   * Plan and start a collision-free move
+   *
+   * @param armAngle Target arm angle
+   * @param extension Target extension
+   * @param preset Preset being moved to, or null for a custom setpoint
+   * @param name Name for warnings
+   * @return true if the move was started
+   */
+  private boolean planMove(double armAngle, double extension, ArmPosition preset, String name) {
     if (!m_isHomed) {
       System.err.println("WARNING: Arm not homed! Cannot safely move to position.");
-      return;
+      return false;
     }
 
     // Check for collisions before moving
-    if (!isPositionSafe(position.armAngle, position.extension)) {
-      System.err.println("WARNING: Position " + position.name() + " would cause collision! Command rejected.");
-      return;
+    if (!isPositionSafe(armAngle, extension)) {
+      System.err.println("WARNING: Position " + name + " would cause collision! Command rejected.");
+      return false;
+    }
+
+    // Use the cached plan if we're still at the last preset, otherwise plan from where we are
+    double armPos = getArmPosition();
+    double extPos = getExtensionPosition();
+    double[] waypoints;
+    if (preset != null && m_lastPreset != null && m_waypoints == null
+        && Math.abs(armPos - m_targetArm) < PRESET_TOLERANCE
+        && Math.abs(extPos - m_targetExtension) < PRESET_TOLERANCE) {
+      waypoints = m_planner.getPlan(m_lastPreset, preset);
+    } else {
+      waypoints = m_planner.plan(armPos, extPos, armAngle, extension);
+    }
+
+    if (waypoints == null) {
+      System.err.println("WARNING: No collision-free path to " + name + "! Command rejected.");
+      return false;
     }
 
-    m_targetPosition = position;
+    m_lastPreset = preset;
+    m_targetArm = armAngle;
+    m_targetExtension = extension;
+    m_waypoints = waypoints;
+    m_waypointIndex = 0;
+    sendWaypoint();
+    return true;
+  }
 
+  /**
+   * Start the synchronized profile segment for the current waypoint
+   */
+  private void sendWaypoint() {
     // Clamp positions within safe limits
-    double safeArmAngle = clampArmAngle(position.armAngle);
-    double safeExtension = clampExtension(position.extension);
+    double safeArmAngle = clampArmAngle(m_waypoints[m_waypointIndex * 2]);
+    double safeExtension = clampExtension(m_waypoints[m_waypointIndex * 2 + 1]);
 
-    m_armPIDController.setReference(safeArmAngle, ControlType.kSmartMotion);
-    m_extensionPIDController.setReference(safeExtension, ControlType.kSmartMotion);
+    startSegment(safeArmAngle, safeExtension);
+  }
+
+  /**
+   * Start a profile segment for both joints
+   * The faster joint's constraints are scaled down so both joints arrive together
+   * (velocity by T_fast/T_slow, acceleration by its square - the same profile shape, stretched in time)
+   * Both are scaled the same way first if the battery can't supply a full-acceleration move
+   *
+   * @param armGoal Arm goal position
+   * @param extensionGoal Extension goal position
+   */
+  private synchronized void startSegment(double armGoal, double extensionGoal) {
+    // Continue from the current setpoint if already moving, otherwise from rest where we are
+    if (m_profileActive) {
+      m_armStart = m_armSetpoint;
+      m_extensionStart = m_extensionSetpoint;
+    } else {
+      m_armStart = new TrapezoidProfile.State(getArmPosition(), 0.0);
+      m_extensionStart = new TrapezoidProfile.State(getExtensionPosition(), 0.0);
+    }
+    m_armGoal = new TrapezoidProfile.State(armGoal, 0.0);
+    m_extensionGoal = new TrapezoidProfile.State(extensionGoal, 0.0);
+
+    TrapezoidProfile.Constraints armConstraints = new TrapezoidProfile.Constraints(
+        ArmConstants.kMaxArmVelocity, ArmConstants.kMaxArmAcceleration);
+    TrapezoidProfile.Constraints extensionConstraints = new TrapezoidProfile.Constraints(
+        ArmConstants.kMaxExtensionVelocity, ArmConstants.kMaxExtensionAcceleration);
+
+    // Slow the move if its acceleration current would sag the battery below the floor
+    // (acceleration scales with the square, so the ratio is the square root of the headroom fraction)
+    double powerRatio = Math.max(PowerConstants.kMinArmProfileScale, Math.min(1.0,
+        Math.sqrt(PowerManager.getInstance().getCurrentHeadroom(PowerConstants.kArmHeadroomShare)
+            / PowerConstants.kArmMoveCurrentAmps)));
+    if (powerRatio < 1.0) {
+      armConstraints = scaleConstraints(armConstraints, powerRatio);
+      extensionConstraints = scaleConstraints(extensionConstraints, powerRatio);
+    }
+    m_profilePowerRatio = powerRatio;
+
+    double armTime = profileTime(armConstraints, m_armStart, m_armGoal);
+    double extensionTime = profileTime(extensionConstraints, m_extensionStart, m_extensionGoal);
+    m_segmentDuration = Math.max(armTime, extensionTime);
+
+    if (m_segmentDuration > 0.0) {
+      if (armTime < extensionTime) {
+        armConstraints = scaleConstraints(armConstraints, armTime / extensionTime);
+      } else if (extensionTime < armTime) {
+        extensionConstraints = scaleConstraints(extensionConstraints, extensionTime / armTime);
+      }
+    }
+
+    m_armProfile = new TrapezoidProfile(armConstraints);
+    m_extensionProfile = new TrapezoidProfile(extensionConstraints);
+    m_segmentStartTime = Timer.getFPGATimestamp();
+    m_profileActive = true;
+  }
+
+  /**
+   * Get the duration of a profile between two states
+   */
+  private static double profileTime(TrapezoidProfile.Constraints constraints,
+                                    TrapezoidProfile.State start, TrapezoidProfile.State goal) {
+    TrapezoidProfile profile = new TrapezoidProfile(constraints);
+    profile.calculate(0.0, start, goal);
+    return profile.totalTime();
+  }
+
+  /**
+   * Slow a profile down so it takes 1/ratio as long
+   */
+  private static TrapezoidProfile.Constraints scaleConstraints(TrapezoidProfile.Constraints constraints,
+                                                               double ratio) {
+    // Keep a floor so a near-zero move doesn't end up with zero constraints
+    ratio = Math.max(ratio, 0.05);
+    return new TrapezoidProfile.Constraints(
+        constraints.maxVelocity * ratio, constraints.maxAcceleration * ratio * ratio);
+  }
+
+  /**
+   * Stream the current profile setpoints with velocity feedforward (runs on the Notifier)
+   */
+  private synchronized void runProfiles() {
+    if (m_gainsPending) {
+      applyGains(m_armPIDController, m_appliedArmGains, m_requestedArmGains);
+      applyGains(m_extensionPIDController, m_appliedExtensionGains, m_requestedExtensionGains);
+      m_gainsPending = false;
+    }
+    if (!m_profileActive) {
+      return;
+    }
+    if (DriverStation.isDisabled()) {
+      m_profileActive = false;
+      return;
+    }
+
+    double t = Timer.getFPGATimestamp() - m_segmentStartTime;
+    m_armSetpoint = m_armProfile.calculate(t, m_armStart, m_armGoal);
+    m_extensionSetpoint = m_extensionProfile.calculate(t, m_extensionStart, m_extensionGoal);
+
+    m_armPIDController.setReference(m_armSetpoint.position, ControlType.kPosition, 0,
+                                    ArmConstants.kArmKV * m_armSetpoint.velocity
+                                    + m_gravityTable.get(m_armSetpoint.position, m_extensionSetpoint.position));
+    m_extensionPIDController.setReference(m_extensionSetpoint.position, ControlType.kPosition, 0,
+                                          ArmConstants.kExtensionKV * m_extensionSetpoint.velocity);
+
+    // Simulation: joints track the setpoint perfectly
+    if (RobotBase.isSimulation()) {
+      m_armEncoder.setPosition(m_armSetpoint.position);
+      m_extensionEncoder.setPosition(m_extensionSetpoint.position);
+    }
+
+    // Segment done - the SPARK MAX keeps holding the final position reference
+    if (m_armProfile.isFinished(t) && m_extensionProfile.isFinished(t)) {
+      m_profileActive = false;
+    }
+  }
+
+  /**
+   * Stop streaming profile setpoints
+   */
+  private synchronized void cancelProfiles() {
+    m_profileActive = false;
+    m_waypoints = null;
+  }
+
+  /**
+   * Check if a profiled move is still running
+   *
+   * @return true while waypoints or profile setpoints are still being sent
+   */
+  public synchronized boolean isMoving() {
+    return m_waypoints != null || m_profileActive;
+  }
+
+  /**
+   * Advance to the next waypoint as soon as the direct move to it is collision-free
+   */
+  private void followWaypoints() {
+    if (m_waypoints == null) {
+      return;
+    }
+
+    int lastIndex = m_waypoints.length / 2 - 1;
+    if (m_waypointIndex >= lastIndex) {
+      m_waypoints = null; // Final setpoint already sent
+      return;
+    }
+
+    int next = m_waypointIndex + 1;
+    if (m_planner.isMoveSafe(getArmPosition(), getExtensionPosition(),
+                             m_waypoints[next * 2], m_waypoints[next * 2 + 1])) {
+      m_waypointIndex = next;
+      sendWaypoint();
+    }
   }
 
   /**
@@ -155,8 +533,10 @@ public class ArmSubsystem extends SubsystemBase {
       System.err.println("WARNING: Arm not homed! Cannot safely move.");
       return;
     }
+    cancelProfiles();
     double safeAngle = clampArmAngle(angle);
-    m_armPIDController.setReference(safeAngle, ControlType.kSmartMotion);
+    m_armPIDController.setReference(safeAngle, ControlType.kSmartMotion, 0,
+                                    getGravityFeedforward(safeAngle, getExtensionPosition()));
   }
 
   /**
@@ -169,6 +549,7 @@ public class ArmSubsystem extends SubsystemBase {
       System.err.println("WARNING: Arm not homed! Cannot safely move.");
       return;
     }
+    cancelProfiles();
     double safeExtension = clampExtension(extension);
     m_extensionPIDController.setReference(safeExtension, ControlType.kSmartMotion);
   }
@@ -215,6 +596,7 @@ public class ArmSubsystem extends SubsystemBase {
       return;
     }
 
+    cancelProfiles();
     m_armMotor.set(speed);
   }
 
@@ -238,6 +620,7 @@ public class ArmSubsystem extends SubsystemBase {
       return;
     }
 
+    cancelProfiles();
     m_extensionMotor.set(speed);
   }
 
@@ -245,6 +628,7 @@ public class ArmSubsystem extends SubsystemBase {
    * Stop all arm movement
    */
   public void stop() {
+    cancelProfiles();
     m_armMotor.set(0);
     m_extensionMotor.set(0);
   }
@@ -285,6 +669,37 @@ public class ArmSubsystem extends SubsystemBase {
     return m_extensionMotor.getOutputCurrent();
   }
 
+  /**
+   * Get arm motor velocity
+   *
+   * @return Arm velocity in RPM
+   */
+  public double getArmVelocity() {
+    return m_armEncoder.getVelocity();
+  }
+
+  /**
+   * Get extension motor velocity
+   *
+   * @return Extension velocity in RPM
+   */
+  public double getExtensionVelocity() {
+    return m_extensionEncoder.getVelocity();
+  }
+
+  /**
+   * Drive both motors directly for homing
+   * Bypasses the homed check and soft limits - only for use by homing routines!
+   *
+   * @param armSpeed Arm duty cycle from -1.0 to 1.0
+   * @param extensionSpeed Extension duty cycle from -1.0 to 1.0
+   */
+  public void setHomingOutput(double armSpeed, double extensionSpeed) {
+    cancelProfiles();
+    m_armMotor.set(armSpeed);
+    m_extensionMotor.set(extensionSpeed);
+  }
+
   /**
    * Check if arm is at target position
    *
@@ -292,8 +707,8 @@ public class ArmSubsystem extends SubsystemBase {
    * @return true if arm is within tolerance of target
    */
   public boolean atTargetPosition(double tolerance) {
-    boolean armAtTarget = Math.abs(getArmPosition() - m_targetPosition.armAngle) < tolerance;
-    boolean extensionAtTarget = Math.abs(getExtensionPosition() - m_targetPosition.extension) < tolerance;
+    boolean armAtTarget = Math.abs(getArmPosition() - m_targetArm) < tolerance;
+    boolean extensionAtTarget = Math.abs(getExtensionPosition() - m_targetExtension) < tolerance;
     return armAtTarget && extensionAtTarget;
   }
 
@@ -313,6 +728,17 @@ public class ArmSubsystem extends SubsystemBase {
     m_isHomed = homed;
   }
 
+  /**
+   * Mark a homing run as in progress
+   * While homing, the soft-limit check and the jam/stall rules are suspended - pushing into the
+   * hard stops is exactly what they would otherwise stop.
+   *
+   * @param active true while homing drives the axes
+   */
+  public void setHomingActive(boolean active) {
+    m_homingActive = active;
+  }
+
   /**
    * Check if arm has been homed
    *
@@ -330,6 +756,12 @@ public class ArmSubsystem extends SubsystemBase {
     resetEncoders();
     m_isHomed = true;
     m_targetPosition = ArmPosition.STOWED;
+    m_presetArmOffset = 0.0;
+    m_presetExtensionOffset = 0.0;
+    m_lastPreset = ArmPosition.STOWED;
+    m_targetArm = ArmPosition.STOWED.getArmAngle();
+    m_targetExtension = ArmPosition.STOWED.getExtension();
+    cancelProfiles();
   }
 
   /**
@@ -341,6 +773,24 @@ public class ArmSubsystem extends SubsystemBase {
     return m_targetPosition;
   }
 
+  /**
+   * Get how far the current target is from its preset's arm angle (e.g. a distance adjustment)
+   *
+   * @return Arm angle offset in encoder ticks
+   */
+  public double getPresetArmOffset() {
+    return m_presetArmOffset;
+  }
+
+  /**
+   * Get how far the current target is from its preset's extension (e.g. a distance adjustment)
+   *
+   * @return Extension offset in encoder ticks
+   */
+  public double getPresetExtensionOffset() {
+    return m_presetExtensionOffset;
+  }
+
   /**
    * Check if arm is within safe operating limits
    * Includes collision detection with robot frame
@@ -348,24 +798,7 @@ public class ArmSubsystem extends SubsystemBase {
    * @return true if arm position is safe
    */
   public boolean isWithinLimits() {
-    double armPos = getArmPosition();
-    double extPos = getExtensionPosition();
-
-    // Single-axis limits
-    boolean armSafe = armPos >= ArmConstants.kMinArmPosition &&
-                      armPos <= ArmConstants.kMaxArmPosition;
-    boolean extSafe = extPos >= ArmConstants.kRetractedPosition &&
-                      extPos <= ArmConstants.kMaxExtensionPosition;
-
-    // Collision detection: If extended, limit arm angle to prevent frame collision
-    boolean collisionSafe = true;
-    if (extPos > ArmConstants.kRetractedPosition + 100) { // If significantly extended
-      // Limit arm to safe angles when extended
-      collisionSafe = armPos >= ArmConstants.kMinArmPositionExtended &&
-                      armPos <= ArmConstants.kMaxArmPositionExtended;
-    }
-
-    return armSafe && extSafe && collisionSafe;
+    return ArmMotionPlanner.isConfigurationSafe(getArmPosition(), getExtensionPosition());
   }
 
   /**
@@ -376,23 +809,244 @@ public class ArmSubsystem extends SubsystemBase {
    * @return true if the position is safe
    */
   public boolean isPositionSafe(double targetArmPos, double targetExtPos) {
-    // Check single-axis limits
-    if (targetArmPos < ArmConstants.kMinArmPosition || targetArmPos > ArmConstants.kMaxArmPosition) {
-      return false;
+    return ArmMotionPlanner.isConfigurationSafe(targetArmPos, targetExtPos);
+  }
+
+  /**
+   * Restore the homed state saved before a reboot
+   * A RIO reboot (e.g. brownout) usually leaves the SPARK MAXes powered, so their encoders keep
+   * the homed zero. A power-cycled SPARK MAX reads zero too - which matches a record saved at
+   * STOWED - so position alone can't prove anything. Each SPARK's sticky "has reset" fault is
+   * checked instead (faults are cleared every boot, so it means "reset since the last boot").
+   * In simulation there is no reset fault, so the record must match the encoders and must not
+   * be at zero. There is no age limit - the RIO clock isn't valid until the DS syncs it, and an
+   * arm homed in the queue can sit idle for a long time before an early-match brownout.
+   */
+  private void restoreHoming() {
+    HomingStore.Record record = m_homingStore.load();
+    double armPos = getArmPosition();
+    double extPos = getExtensionPosition();
+    boolean armReset = m_armMotor.getStickyFault(FaultID.kHasReset);
+    boolean extensionReset = m_extensionMotor.getStickyFault(FaultID.kHasReset);
+
+    // From here on a set reset fault means the controller lost power after this boot
+    m_armMotor.clearFaults();
+    m_extensionMotor.clearFaults();
+
+    if (record == null || !record.homed) {
+      resetEncoders();
+      return;
     }
-    if (targetExtPos < ArmConstants.kRetractedPosition || targetExtPos > ArmConstants.kMaxExtensionPosition) {
-      return false;
+
+    String reason = null;
+    boolean positionMatches = Math.abs(armPos - record.armPosition) < RESTORE_TOLERANCE
+        && Math.abs(extPos - record.extensionPosition) < RESTORE_TOLERANCE;
+    boolean atZero = Math.abs(record.armPosition) < RESTORE_TOLERANCE
+        && Math.abs(record.extensionPosition) < RESTORE_TOLERANCE;
+
+    if (armReset || extensionReset) {
+      reason = "a SPARK MAX was power-cycled";
+    } else if (RobotBase.isSimulation() && (!positionMatches || atZero)) {
+      reason = atZero ? "it can't be told apart from a reset encoder" : "it doesn't match the encoders";
+    }
+
+    if (reason == null) {
+      m_isHomed = true;
+      m_targetArm = armPos;
+      m_targetExtension = extPos;
+      m_lastPreset = null;
+      System.out.println("✓ Arm homing restored from flash (arm " + String.format("%.1f", armPos) +
+                         ", extension " + String.format("%.1f", extPos) + ")" +
+                         (positionMatches ? "" : " - arm moved since the last save"));
+      return;
+    }
+
+    System.err.println("⚠️ Saved arm homing ignored because " + reason + " - re-home the arm!");
+    resetEncoders();
+  }
+
+  /**
+   * Load the preset setpoints from the calibration store
+   */
+  private static CalibrationStore loadCalibration() {
+    CalibrationStore store = CalibrationStore.getInstance();
+    ArmPosition.loadCalibration(store);
+    return store;
+  }
+
+  /**
+   * Pick up recalibrated presets - rebuilds the cached preset plans
+   */
+  private void onCalibrationChanged() {
+    ArmPosition.loadCalibration(m_calibration);
+    m_planner.rebuildPresetPlans();
+
+    // Cached plans start at the preset's setpoint - only use them if the arm is still there
+    if (m_lastPreset != null
+        && (Math.abs(m_lastPreset.getArmAngle() - m_targetArm) >= PRESET_TOLERANCE
+            || Math.abs(m_lastPreset.getExtension() - m_targetExtension) >= PRESET_TOLERANCE)) {
+      m_lastPreset = null;
+    }
+    System.out.println("✓ Arm presets reloaded from calibration");
+  }
+
+  /**
+   * Fingerprint of the arm configuration - a saved homing record is only trusted if it matches
+   */
+  private static long homingFingerprint() {
+    long hash = 17;
+    double[] values = {
+        ArmConstants.kArmMotorId, ArmConstants.kExtensionMotorId,
+        ArmConstants.kMinArmPosition, ArmConstants.kMaxArmPosition,
+        ArmConstants.kRetractedPosition, ArmConstants.kMaxExtensionPosition};
+    for (double value : values) {
+      hash = hash * 31 + Double.doubleToLongBits(value);
     }
+    return hash;
+  }
+
+  /**
+   * Get the gravity feedforward needed to hold the arm at a configuration
+   *
+   * @param armAngle Arm angle in encoder ticks
+   * @param extension Extension in encoder ticks
+   * @return Feedforward in volts
+   */
+  public synchronized double getGravityFeedforward(double armAngle, double extension) {
+    return m_gravityTable.get(armAngle, extension);
+  }
+
+  /**
+   * Replace the gravity feedforward table (e.g. after characterization)
+   *
+   * @param table New table (volts vs arm angle and extension)
+   */
+  public synchronized void setGravityTable(BilinearTable table) {
+    m_gravityTable = table;
+  }
+
+  /**
+   * Create an all-zero table on the gravity feedforward grid from Constants
+   *
+   * @return Zeroed gravity feedforward table
+   */
+  public static BilinearTable createGravityTable() {
+    return new BilinearTable(
+        ArmConstants.kGravityFFArmMin, ArmConstants.kGravityFFArmStep, ArmConstants.kGravityFFArmPoints,
+        ArmConstants.kGravityFFExtensionMin, ArmConstants.kGravityFFExtensionStep,
+        ArmConstants.kGravityFFExtensionPoints);
+  }
 
-    // Check collision: If extended, limit arm angle
-    if (targetExtPos > ArmConstants.kRetractedPosition + 100) {
-      if (targetArmPos < ArmConstants.kMinArmPositionExtended ||
-          targetArmPos > ArmConstants.kMaxArmPositionExtended) {
-        return false;
+  /**
+   * Load the gravity feedforward table
+   * A characterized table in the storage directory wins over the deployed default
+   */
+  private static BilinearTable loadGravityTable() {
+    Path[] candidates = {
+        CalibrationStore.getStorageDirectory().resolve(ArmConstants.kGravityFFFileName),
+        Filesystem.getDeployDirectory().toPath().resolve(ArmConstants.kGravityFFFileName)};
+
+    for (Path path : candidates) {
+      if (!Files.exists(path)) {
+        continue;
+      }
+      try {
+        BilinearTable table = BilinearTable.loadCsv(path);
+        System.out.println("✓ Arm gravity feedforward loaded from " + path);
+        return table;
+      } catch (IOException e) {
+        System.err.println("⚠️ WARNING: Could not load arm gravity feedforward: " + e.getMessage());
       }
     }
 
-    return true;
+    // No table - zero feedforward (same as the old kArmFF = 0)
+    System.err.println("⚠️ WARNING: No arm gravity feedforward table found, using zero feedforward");
+    return createGravityTable();
+  }
+
+  /**
+   * Attach the arm's fault rules to one motor
+   *
+   * @param channel Fault monitor channel
+   * @param motor Motor to stop on a jam or stall
+   */
+  private void addFaultRules(int channel, CANSparkMax motor) {
+    FaultMonitor faults = FaultMonitor.getInstance();
+    faults.addRule(channel, FaultMonitor.Rule.currentSpike(CURRENT_SPIKE_THRESHOLD, CURRENT_SPIKE_DURATION),
+                   (name, rule, amps) -> stopJammedMotor(motor, name, rule, amps));
+    faults.addRule(channel, FaultMonitor.Rule.stall(STALL_CURRENT, STALL_VELOCITY, STALL_DURATION),
+                   (name, rule, amps) -> stopJammedMotor(motor, name, rule, amps));
+    faults.addRule(channel, FaultMonitor.Rule.thermal(CONTINUOUS_CURRENT, THERMAL_LIMIT),
+                   (name, rule, load) -> System.err.println("⚠️ WARNING: " + name + " motor I²t overload (" +
+                                                            String.format("%.0f", load) + " A²s) - give it a rest!"));
+  }
+
+  /**
+   * Stop a jammed motor (fault listener)
+   */
+  private void stopJammedMotor(CANSparkMax motor, String name, FaultMonitor.Rule rule, double amps) {
+    if (m_homingActive) {
+      return; // Stalling against the hard stop is the point of homing
+    }
+    System.err.println("⚠️ WARNING: " + name + " motor " + rule + " detected! Possible jam or overload.");
+    System.err.println("Current: " + String.format("%.1f", amps) + "A");
+    // Stop the motor to prevent damage (and stop streaming setpoints to it)
+    cancelProfiles();
+    motor.set(0);
+  }
+
+  /**
+   * Get the voltage currently applied to the arm motor
+   *
+   * @return Arm motor voltage
+   */
+  public double getArmVoltage() {
+    return m_armMotor.getAppliedOutput() * m_armMotor.getBusVoltage();
+  }
+
+  /**
+   * Request new PID gains - sent from the profile thread on its next tick
+   *
+   * @param requested Requested gains {P, I, D, FF} (updated in place)
+   */
+  private synchronized void requestGains(double[] requested, double p, double i, double d, double ff) {
+    if (p != requested[0] || i != requested[1] || d != requested[2] || ff != requested[3]) {
+      requested[0] = p;
+      requested[1] = i;
+      requested[2] = d;
+      requested[3] = ff;
+      m_gainsPending = true;
+    }
+  }
+
+  /**
+   * Send PID gains to a SPARK MAX, skipping any that haven't changed
+   *
+   * @param controller SPARK MAX PID controller
+   * @param applied Gains last sent {P, I, D, FF} (updated in place)
+   * @param gains Gains to send {P, I, D, FF}
+   */
+  private void applyGains(SparkPIDController controller, double[] applied, double[] gains) {
+    double p = gains[0];
+    double i = gains[1];
+    double d = gains[2];
+    double ff = gains[3];
+    if (p != applied[0]) {
+      controller.setP(p);
+      applied[0] = p;
+    }
+    if (i != applied[1]) {
+      controller.setI(i);
+      applied[1] = i;
+    }
+    if (d != applied[2]) {
+      controller.setD(d);
+      applied[2] = d;
+    }
+    if (ff != applied[3]) {
+      controller.setFF(ff);
+      applied[3] = ff;
+    }
   }
 
   @Override
@@ -409,62 +1063,35 @@ public class ArmSubsystem extends SubsystemBase {
     double extD = edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.getNumber("Extension/PID/kD", ArmConstants.kExtensionD);
     double extFF = edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.getNumber("Extension/PID/kFF", ArmConstants.kExtensionFF);
 
-    // Update PID controllers
-    m_armPIDController.setP(armP);
-    m_armPIDController.setI(armI);
-    m_armPIDController.setD(armD);
-    m_armPIDController.setFF(armFF);
+    // Update PID controllers (only gains that changed - each set is a CAN write, made on the profile thread)
+    requestGains(m_requestedArmGains, armP, armI, armD, armFF);
+    requestGains(m_requestedExtensionGains, extP, extI, extD, extFF);
 
-    m_extensionPIDController.setP(extP);
-    m_extensionPIDController.setI(extI);
-    m_extensionPIDController.setD(extD);
-    m_extensionPIDController.setFF(extFF);
+    // Step through the collision-free plan
+    followWaypoints();
+
+    // Persist homing state (written in the background only when it changes)
+    m_homingStore.update(m_isHomed, getArmPosition(), getExtensionPosition());
 
     // Safety check - if arm goes out of bounds, stop it
-    if (!isWithinLimits() && m_isHomed) {
+    if (!isWithinLimits() && m_isHomed && !m_homingActive) {
       System.err.println("WARNING: Arm exceeded safe limits! Stopping motors.");
       stop();
     }
 
-    // Current spike detection - detect jammed mechanisms
     double armCurrent = m_armMotor.getOutputCurrent();
     double extensionCurrent = m_extensionMotor.getOutputCurrent();
 
-    // Arm motor current spike detection
-    if (armCurrent > CURRENT_SPIKE_THRESHOLD) {
-      m_armCurrentSpikeCounter++;
-      if (m_armCurrentSpikeCounter >= CURRENT_SPIKE_DURATION) {
-        System.err.println("⚠️ WARNING: Arm motor current spike detected! Possible jam or overload.");
-        System.err.println("Current: " + armCurrent + "A (threshold: " + CURRENT_SPIKE_THRESHOLD + "A)");
-        // Stop the arm motor to prevent damage
-        m_armMotor.set(0);
-        m_armCurrentSpikeCounter = 0; // Reset counter
-      }
-    } else {
-      m_armCurrentSpikeCounter = 0; // Reset if current drops
-    }
-
-    // Extension motor current spike detection
-    if (extensionCurrent > CURRENT_SPIKE_THRESHOLD) {
-      m_extensionCurrentSpikeCounter++;
-      if (m_extensionCurrentSpikeCounter >= CURRENT_SPIKE_DURATION) {
-        System.err.println("⚠️ WARNING: Extension motor current spike detected! Possible jam or overload.");
-        System.err.println("Current: " + extensionCurrent + "A (threshold: " + CURRENT_SPIKE_THRESHOLD + "A)");
-        // Stop the extension motor to prevent damage
-        m_extensionMotor.set(0);
-        m_extensionCurrentSpikeCounter = 0; // Reset counter
-      }
-    } else {
-      m_extensionCurrentSpikeCounter = 0; // Reset if current drops
-    }
-
     // Telemetry
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Arm/Angle Position", getArmPosition());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Arm/Extension Position", getExtensionPosition());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putBoolean("Arm/Is Homed", m_isHomed);
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putBoolean("Arm/Within Limits", isWithinLimits());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putString("Arm/Target Position", m_targetPosition.name());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Arm/Arm Current", armCurrent);
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Arm/Extension Current", extensionCurrent);
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putNumber("Arm/Angle Position", getArmPosition());
+    nt.putNumber("Arm/Extension Position", getExtensionPosition());
+    nt.putBoolean("Arm/Is Homed", m_isHomed);
+    nt.putBoolean("Arm/Within Limits", isWithinLimits());
+    nt.putString("Arm/Target Position", m_lastPreset == null ? "CUSTOM" : m_lastPreset.name());
+    nt.putNumber("Arm/Waypoint", m_waypoints == null ? -1 : m_waypointIndex);
+    nt.putNumber("Arm/Arm Current", armCurrent);
+    nt.putNumber("Arm/Extension Current", extensionCurrent);
+    nt.putNumber("Arm/Profile Power Scale", m_profilePowerRatio);
   }
 }
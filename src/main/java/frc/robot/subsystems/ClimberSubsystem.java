@@ -5,13 +5,33 @@ import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkPIDController;
 import com.revrobotics.CANSparkBase.ControlType;
 import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
 
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.ClimberConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.util.FaultMonitor;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.PowerManager;
 
 /**
  * Climber subsystem for end-game climbing
  * Two-sided climber with synchronized or independent control
+ *
+ * climb() runs a synchronized loop on the RIO at the active status frame rate (there is no
+ * point running it faster than the positions update): the average of both sides follows a
+ * trapezoid profile with a velocity and hold feedforward, and a cross-coupling term drives the
+ * left/right difference to zero, so the robot stays level even if one side has more friction
+ * or load. Positions are motor rotations (no encoder conversion factor).
+ *
+ * Position/velocity/current status frames run fast only while the climber is in use, and
+ * telemetry is only published then, so the climber costs almost no CAN bandwidth in the
+ * rest of the match.
  */
 public class ClimberSubsystem extends SubsystemBase {
   private final CANSparkMax m_leftClimber = new CANSparkMax(
@@ -27,6 +47,34 @@ public class ClimberSubsystem extends SubsystemBase {
 
   private ClimberState m_currentState = ClimberState.RETRACTED;
 
+  // Synchronized climb loop
+  private static final double SYNC_PERIOD = ClimberConstants.kActiveStatusPeriodMs / 1000.0; // seconds
+  private final Notifier m_syncNotifier = new Notifier(this::runSynchronizedClimb);
+  private static final TrapezoidProfile.Constraints CLIMB_CONSTRAINTS = new TrapezoidProfile.Constraints(
+      ClimberConstants.kClimbMaxVelocity, ClimberConstants.kClimbMaxAcceleration);
+  private static final TrapezoidProfile.Constraints PULL_CONSTRAINTS = new TrapezoidProfile.Constraints(
+      ClimberConstants.kPullMaxVelocity, ClimberConstants.kPullMaxAcceleration);
+  private TrapezoidProfile m_climbProfile = new TrapezoidProfile(CLIMB_CONSTRAINTS);
+  private boolean m_syncActive = false;
+  private double m_syncStartTime = 0.0;
+  private TrapezoidProfile.State m_syncStart = new TrapezoidProfile.State();
+  private TrapezoidProfile.State m_syncGoal = new TrapezoidProfile.State();
+  private volatile double m_syncSetpoint = 0.0;
+  private volatile double m_syncDifference = 0.0; // Left minus right (motor rotations)
+  private volatile boolean m_syncProfileDone = false; // Setpoint has reached the goal
+  private volatile boolean m_deployed = false; // Out of the retracted position (read by tip detection)
+
+  // Fault monitor handles (also used for averaged current/speed) and status frame state
+  private final int m_leftChannel;
+  private final int m_rightChannel;
+  // Status frame writes are blocking CAN config calls - their own lock keeps them out of the sync loop's
+  private final Object m_statusLock = new Object();
+  private volatile boolean m_telemetryActive = true; // Factory status rates until the first setTelemetryActive()
+
+  // Fault rules - climbing is supposed to be hard work, so only warn on heat
+  private static final double CONTINUOUS_CURRENT = 40.0; // Amps
+  private static final double THERMAL_LIMIT = 8000.0; // A²s above continuous
+
   public enum ClimberState {
     RETRACTED,
     EXTENDED,
@@ -80,12 +128,98 @@ public class ClimberSubsystem extends SubsystemBase {
 
     // Reset encoders
     resetEncoders();
+
+    // Register fault rules
+    FaultMonitor faults = FaultMonitor.getInstance();
+    FaultMonitor.Listener warn = (name, rule, load) ->
+        System.err.println("⚠️ WARNING: " + name + " motor I²t overload (" + String.format("%.0f", load) + " A²s)");
+    m_leftChannel = faults.registerMotor("Left Climber", m_leftClimber::getOutputCurrent, m_leftEncoder::getVelocity);
+    m_rightChannel = faults.registerMotor("Right Climber", m_rightClimber::getOutputCurrent, m_rightEncoder::getVelocity);
+    faults.addRule(m_leftChannel, FaultMonitor.Rule.thermal(CONTINUOUS_CURRENT, THERMAL_LIMIT), warn);
+    faults.addRule(m_rightChannel, FaultMonitor.Rule.thermal(CONTINUOUS_CURRENT, THERMAL_LIMIT), warn);
+
+    // Current budget - only draws much while climbing, when nothing else does
+    PowerManager.getInstance().register(
+        "Climber", PowerConstants.kClimberPriority, 2, ClimberConstants.kCurrentLimit,
+        PowerConstants.kClimberMinCurrentLimit,
+        () -> m_leftClimber.getOutputCurrent() + m_rightClimber.getOutputCurrent(),
+        amps -> {
+          m_leftClimber.setSmartCurrentLimit(amps);
+          m_rightClimber.setSmartCurrentLimit(amps);
+        });
+
+    // Idle until the climber is used
+    setTelemetryActive(false);
+
+    m_syncNotifier.setName("ClimberSync");
+    m_syncNotifier.startPeriodic(SYNC_PERIOD);
+  }
+
+  /**
+   * Start a synchronized move of both sides to a position
+   *
+   * @param goal Target position in motor rotations
+   * @param constraints Profile constraints for the average position
+   */
+  private synchronized void startSynchronizedMove(double goal, TrapezoidProfile.Constraints constraints) {
+    m_climbProfile = new TrapezoidProfile(constraints);
+    m_syncStart = new TrapezoidProfile.State((getLeftPosition() + getRightPosition()) / 2.0, 0.0);
+    m_syncGoal = new TrapezoidProfile.State(goal, 0.0);
+    m_syncStartTime = Timer.getFPGATimestamp();
+    m_syncProfileDone = false;
+    m_syncActive = true;
+  }
+
+  /**
+   * Stop the synchronized loop (the caller sets the new output)
+   */
+  private synchronized void cancelSynchronizedMove() {
+    m_syncActive = false;
+  }
+
+  /**
+   * Profiled average position plus left/right cross-coupling (runs on the Notifier)
+   */
+  private synchronized void runSynchronizedClimb() {
+    if (!m_syncActive) {
+      return;
+    }
+    if (DriverStation.isDisabled()) {
+      m_syncActive = false;
+      return;
+    }
+
+    double left = getLeftPosition();
+    double right = getRightPosition();
+    double average = (left + right) / 2.0;
+    double difference = left - right;
+
+    double t = Timer.getFPGATimestamp() - m_syncStartTime;
+    TrapezoidProfile.State setpoint = m_climbProfile.calculate(t, m_syncStart, m_syncGoal);
+    // Both synchronized moves lift the robot - the hold feedforward carries its weight so
+    // the P term doesn't have to sag before it pushes back
+    double common = ClimberConstants.kClimbHoldFF
+        + ClimberConstants.kClimbKV * setpoint.velocity
+        + ClimberConstants.kClimbSyncP * (setpoint.position - average);
+    double cross = MathUtil.clamp(ClimberConstants.kCrossCouplingP * difference, -1.0, 1.0);
+
+    // Leveling wins over speed - shrink the common term so the correction never saturates away
+    double headroom = 1.0 - Math.abs(cross);
+    common = MathUtil.clamp(common, -headroom, headroom);
+    m_leftClimber.set(common - cross);
+    m_rightClimber.set(common + cross);
+
+    m_syncSetpoint = setpoint.position;
+    m_syncDifference = difference;
+    m_syncProfileDone = m_climbProfile.isFinished(t);
   }
 
   /**
    * Extend both climbers to full height
    */
   public void extend() {
+    cancelSynchronizedMove();
+    setTelemetryActive(true);
     m_leftPIDController.setReference(ClimberConstants.kExtendedPosition, ControlType.kPosition);
     m_rightPIDController.setReference(ClimberConstants.kExtendedPosition, ControlType.kPosition);
     m_currentState = ClimberState.EXTENDED;
@@ -95,17 +229,28 @@ public class ClimberSubsystem extends SubsystemBase {
    * Retract both climbers to stowed position
    */
   public void retract() {
+    cancelSynchronizedMove();
+    setTelemetryActive(true);
     m_leftPIDController.setReference(ClimberConstants.kRetractedPosition, ControlType.kPosition);
     m_rightPIDController.setReference(ClimberConstants.kRetractedPosition, ControlType.kPosition);
     m_currentState = ClimberState.RETRACTED;
   }
 
   /**
-   * Climb using both climbers at set speed
+   * Climb with both sides synchronized, holding at the top of the climb
    */
   public void climb() {
-    m_leftClimber.set(ClimberConstants.kClimbSpeed);
-    m_rightClimber.set(ClimberConstants.kClimbSpeed);
+    setTelemetryActive(true);
+    startSynchronizedMove(ClimberConstants.kClimbedPosition, CLIMB_CONSTRAINTS);
+    m_currentState = ClimberState.CLIMBING;
+  }
+
+  /**
+   * High-torque synchronized pull to the top of the climb (once hooked on the cage)
+   */
+  public void pull() {
+    setTelemetryActive(true);
+    startSynchronizedMove(ClimberConstants.kClimbedPosition, PULL_CONSTRAINTS);
     m_currentState = ClimberState.CLIMBING;
   }
 
@@ -113,6 +258,8 @@ public class ClimberSubsystem extends SubsystemBase {
    * Descend using both climbers
    */
   public void descend() {
+    cancelSynchronizedMove();
+    setTelemetryActive(true);
     m_leftClimber.set(ClimberConstants.kDescendSpeed);
     m_rightClimber.set(ClimberConstants.kDescendSpeed);
   }
@@ -123,6 +270,8 @@ public class ClimberSubsystem extends SubsystemBase {
    * @param speed Speed from -1.0 to 1.0
    */
   public void setLeftSpeed(double speed) {
+    cancelSynchronizedMove();
+    setTelemetryActive(true);
     m_leftClimber.set(speed);
   }
 
@@ -132,6 +281,8 @@ public class ClimberSubsystem extends SubsystemBase {
    * @param speed Speed from -1.0 to 1.0
    */
   public void setRightSpeed(double speed) {
+    cancelSynchronizedMove();
+    setTelemetryActive(true);
     m_rightClimber.set(speed);
   }
 
@@ -141,6 +292,8 @@ public class ClimberSubsystem extends SubsystemBase {
    * @param speed Speed from -1.0 to 1.0
    */
   public void setBothSpeed(double speed) {
+    cancelSynchronizedMove();
+    setTelemetryActive(true);
     m_leftClimber.set(speed);
     m_rightClimber.set(speed);
   }
@@ -149,15 +302,77 @@ public class ClimberSubsystem extends SubsystemBase {
    * Stop both climbers
    */
   public void stop() {
+    cancelSynchronizedMove();
     m_leftClimber.set(0);
     m_rightClimber.set(0);
     m_currentState = ClimberState.STOPPED;
+    setTelemetryActive(false);
+  }
+
+  /**
+   * Switch the position/velocity/current status frames between climbing and idle rates
+   * Only writes to the SPARK MAXes when the mode changes, and never while holding the sync
+   * loop's lock (the writes block on CAN)
+   *
+   * @param active true while the climber is in use
+   */
+  public void setTelemetryActive(boolean active) {
+    synchronized (m_statusLock) {
+      if (active == m_telemetryActive) {
+        return;
+      }
+      m_telemetryActive = active;
+      int periodMs = active ? ClimberConstants.kActiveStatusPeriodMs : ClimberConstants.kIdleStatusPeriodMs;
+      m_leftClimber.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periodMs);
+      m_leftClimber.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periodMs);
+      m_rightClimber.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periodMs);
+      m_rightClimber.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periodMs);
+    }
+  }
+
+  /**
+   * Check if both sides have reached the top of the climb
+   *
+   * @return true when both sides are within tolerance of the climbed position
+   */
+  public boolean isClimbed() {
+    return Math.abs(getLeftPosition() - ClimberConstants.kClimbedPosition) < ClimberConstants.kClimbGoalTolerance
+        && Math.abs(getRightPosition() - ClimberConstants.kClimbedPosition) < ClimberConstants.kClimbGoalTolerance;
+  }
+
+  /**
+   * Check if the synchronized profile has finished (the loop is now only holding the goal)
+   *
+   * @return true once the profile setpoint has reached the goal
+   */
+  public boolean isSyncProfileFinished() {
+    return m_syncProfileDone;
+  }
+
+  /**
+   * Get the moving-average current of both sides
+   *
+   * @return Average current in amps
+   */
+  public double getAverageCurrent() {
+    FaultMonitor faults = FaultMonitor.getInstance();
+    return (faults.getAverageCurrent(m_leftChannel) + faults.getAverageCurrent(m_rightChannel)) / 2.0;
+  }
+
+  /**
+   * Get the moving-average speed of both sides
+   *
+   * @return Average |velocity| in RPM
+   */
+  public double getAverageSpeed() {
+    FaultMonitor faults = FaultMonitor.getInstance();
+    return (faults.getAverageSpeed(m_leftChannel) + faults.getAverageSpeed(m_rightChannel)) / 2.0;
   }
 
   /**
    * Get left climber encoder position
    *
-   * @return Position in encoder ticks
+   * @return Position in motor rotations
    */
   public double getLeftPosition() {
     return m_leftEncoder.getPosition();
@@ -166,7 +381,7 @@ public class ClimberSubsystem extends SubsystemBase {
   /**
    * Get right climber encoder position
    *
-   * @return Position in encoder ticks
+   * @return Position in motor rotations
    */
   public double getRightPosition() {
     return m_rightEncoder.getPosition();
@@ -175,7 +390,7 @@ public class ClimberSubsystem extends SubsystemBase {
   /**
    * Check if climbers are extended
    *
-   * @param tolerance Acceptable error in encoder ticks
+   * @param tolerance Acceptable error in motor rotations
    * @return true if both climbers are at extended position
    */
   public boolean isExtended(double tolerance) {
@@ -187,7 +402,7 @@ public class ClimberSubsystem extends SubsystemBase {
   /**
    * Check if climbers are retracted
    *
-   * @param tolerance Acceptable error in encoder ticks
+   * @param tolerance Acceptable error in motor rotations
    * @return true if both climbers are at retracted position
    */
   public boolean isRetracted(double tolerance) {
@@ -196,6 +411,16 @@ public class ClimberSubsystem extends SubsystemBase {
     return leftRetracted && rightRetracted;
   }
 
+  /**
+   * Check if the climber is out of its retracted position (climbing or hanging)
+   * Updated every loop, safe to read from other threads.
+   *
+   * @return true while either climber is away from the retracted position
+   */
+  public boolean isDeployed() {
+    return m_deployed;
+  }
+
   /**
    * Reset climber encoders to zero
    */
@@ -213,9 +438,25 @@ public class ClimberSubsystem extends SubsystemBase {
     return m_currentState;
   }
 
+  /**
+   * Get the left/right position difference from the synchronized loop
+   *
+   * @return Left minus right in motor rotations
+   */
+  public double getSyncDifference() {
+    return m_syncDifference;
+  }
+
   @Override
   public void periodic() {
-    // This method will be called once per scheduler run
-    // Could add safety limits or telemetry here
+    m_deployed = !isRetracted(ClimberConstants.kPositionTolerance);
+
+    if (m_telemetryActive) {
+      NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+      nt.putNumber("Climber/Setpoint", m_syncSetpoint);
+      nt.putNumber("Climber/Left Position", getLeftPosition());
+      nt.putNumber("Climber/Right Position", getRightPosition());
+      nt.putNumber("Climber/Sync Difference", m_syncDifference);
+    }
   }
 }
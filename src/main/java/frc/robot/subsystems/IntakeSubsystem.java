@@ -1,34 +1,94 @@
 package frc.robot.subsystems;
 
 import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.CANSparkBase.ControlType;
 import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
 
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
 import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DIOSim;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.util.FaultMonitor;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.PowerManager;
 
 /**
  * Intake subsystem for picking up and holding coral game pieces
  * Uses rollers with a beam break sensor to detect when a coral is secured
+ * After the beam breaks, the rollers slow down and run a fixed distance on the roller
+ * encoder to index the coral, then hold.
+ * The roller current/velocity signature is sampled at high rate and fused with the beam
+ * break, so a failed sensor doesn't leave the intake running forever.
+ * Intake, index and outtake run closed-loop velocity with feedforward, so ejection speed
+ * doesn't drift with battery sag or wear. Hold stays open-loop against the hard stop.
  */
 public class IntakeSubsystem extends SubsystemBase {
   private final CANSparkMax m_intakeMotor = new CANSparkMax(
       IntakeConstants.kIntakeMotorId, MotorType.kBrushless);
   private final CANSparkMax m_rollerMotor = new CANSparkMax(
       IntakeConstants.kIntakeRollerMotorId, MotorType.kBrushless);
+  private final RelativeEncoder m_intakeEncoder = m_intakeMotor.getEncoder();
+  private final RelativeEncoder m_rollerEncoder = m_rollerMotor.getEncoder();
+  private final SparkPIDController m_intakePID = m_intakeMotor.getPIDController();
+  private final SparkPIDController m_rollerPID = m_rollerMotor.getPIDController();
+
+  // Commanded roller output as a fraction of free speed (SPARK get() doesn't reflect closed-loop)
+  private volatile double m_commandedOutput = 0.0;
+  private volatile double m_targetVelocity = Double.NaN; // RPM, NaN when open-loop
+
+  // Per-score ejection timing
+  private double m_outtakeStartTime = 0.0;
+  private double m_timeToSpeed = Double.NaN;
+  private volatile double m_timeToEject = Double.NaN;
+  private volatile boolean m_ejectPending = false;
 
   private final DigitalInput m_beamBreak = new DigitalInput(IntakeConstants.kBeamBreakChannel);
 
-  private IntakeState m_currentState = IntakeState.STOPPED;
+  // Beam break edges are handled on the interrupt thread, so the rollers stop without waiting for a loop
+  private final AsynchronousInterrupt m_beamBreakInterrupt;
+  private volatile double m_lastDetectionTime = 0.0; // FPGA time of the last beam break (seconds)
+  private volatile double m_detectionLatencyMs = 0.0; // Edge to index command
+
+  // Beam break fused with the roller current signature, sampled on its own Notifier
+  private final GamePieceDetector m_detector = new GamePieceDetector();
+  private final Notifier m_signatureNotifier = new Notifier(this::sampleSignature);
+  private boolean m_reportedSensorFault = false;
+
+  private volatile IntakeState m_currentState = IntakeState.STOPPED;
+  private double m_indexStartPosition = 0.0; // Roller position at the beam break (rotations)
+  private volatile boolean m_indexed = false; // Holding after running the indexing distance
 
-  // Current spike detection for jammed mechanisms
+  // Simulation: coral leading edge in roller rotations past the beam break (NaN = no coral)
+  private static final double SIM_ROLLER_SPEED_RPS = 30.0; // Roller rotations per second at full output
+  private static final double SIM_FEED_ROTATIONS = 1.0; // Mouth to beam break
+  private static final double SIM_CORAL_LENGTH_ROTATIONS = 6.0;
+  private static final double SIM_HARD_STOP_ROTATIONS = 3.0; // Coral can't be pushed past this
+  private static final double SIM_LOADED_SPEED_RATIO = 0.5; // Roller speed with a coral in them
+  private static final double SIM_STALL_CURRENT = 105.0; // Amps at full output
+  private static final double SIM_FREE_CURRENT = 2.0; // Amps
+  private final DIOSim m_beamBreakSim = RobotBase.isSimulation() ? new DIOSim(m_beamBreak) : null;
+  private double m_simCoralPosition = Double.NaN;
+  private volatile double m_simCurrent = 0.0; // SPARK current/velocity don't move in sim
+  private volatile double m_simVelocity = 0.0;
+
+  // Fault rules for jammed mechanisms
   private static final double CURRENT_SPIKE_THRESHOLD = 25.0; // Amps (lower for intake)
-  private static final int CURRENT_SPIKE_DURATION = 10; // Periodic cycles (~200ms at 20ms per cycle)
-  private int m_intakeCurrentSpikeCounter = 0;
-  private int m_rollerCurrentSpikeCounter = 0;
+  private static final double CURRENT_SPIKE_DURATION = 0.2; // Seconds
+  private static final double CONTINUOUS_CURRENT = 20.0; // Amps
+  private static final double THERMAL_LIMIT = 2000.0; // A²s above continuous before warning
 
   public enum IntakeState {
     INTAKING,
+    INDEXING,
     OUTTAKING,
     HOLDING,
     STOPPED
@@ -56,57 +116,259 @@ public class IntakeSubsystem extends SubsystemBase {
     m_intakeMotor.setCANTimeout(100);
     m_rollerMotor.setCANTimeout(100);
 
+    // Current and velocity (status 1) at the signature sample rate
+    int statusPeriodMs = (int) (IntakeConstants.kSignatureSamplePeriod * 1000);
+    m_intakeMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, statusPeriodMs);
+    m_rollerMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, statusPeriodMs);
+
+    // Roller velocity loops
+    configureVelocityPID(m_intakePID);
+    configureVelocityPID(m_rollerPID);
+
     // Burn flash to save configuration
     m_intakeMotor.burnFlash();
     m_rollerMotor.burnFlash();
+
+    // Register fault rules - a jam stops the motor, an I²t overload warns
+    addFaultRules("Intake", m_intakeMotor);
+    addFaultRules("Roller", m_rollerMotor);
+
+    // Current budget (lowest priority) - enforced only through the smart current limit, so the
+    // closed-loop roller speed stays independent of the battery
+    PowerManager.getInstance().register(
+        "Intake", PowerConstants.kIntakePriority, 2, IntakeConstants.kCurrentLimit,
+        PowerConstants.kIntakeMinCurrentLimit,
+        () -> m_intakeMotor.getOutputCurrent() + m_rollerMotor.getOutputCurrent(),
+        amps -> {
+          m_intakeMotor.setSmartCurrentLimit(amps);
+          m_rollerMotor.setSmartCurrentLimit(amps);
+        });
+
+    // Beam break reads false when broken, so a coral arriving is a falling edge and leaving is rising
+    m_beamBreakInterrupt = new AsynchronousInterrupt(m_beamBreak, (rising, falling) -> {
+      if (falling) {
+        onBeamBroken();
+      }
+      if (rising) {
+        onBeamCleared();
+      }
+    });
+    m_beamBreakInterrupt.setInterruptEdges(true, true);
+    m_beamBreakInterrupt.enable();
+
+    m_signatureNotifier.setName("IntakeSignature");
+    m_signatureNotifier.startPeriodic(IntakeConstants.kSignatureSamplePeriod);
+  }
+
+  /**
+   * Set the velocity loop gains
+   *
+   * @param pid SPARK MAX PID controller
+   */
+  private void configureVelocityPID(SparkPIDController pid) {
+    pid.setP(IntakeConstants.kRollerP);
+    pid.setI(IntakeConstants.kRollerI);
+    pid.setD(IntakeConstants.kRollerD);
+    pid.setFF(0.0); // Feedforward is sent as arbitrary FF in volts
+    pid.setOutputRange(-1.0, 1.0);
+  }
+
+  /**
+   * Feed the game piece detector with both motors' current and velocity (runs on the Notifier)
+   */
+  private void sampleSignature() {
+    double current = (m_intakeMotor.getOutputCurrent() + m_rollerMotor.getOutputCurrent()) / 2.0;
+    if (RobotBase.isSimulation()) {
+      current = m_simCurrent;
+    }
+    m_detector.update(isBeamBroken(), current, getRollerVelocity(), m_commandedOutput, Timer.getFPGATimestamp());
+  }
+
+  /**
+   * Get the average velocity of both intake motors
+   *
+   * @return Velocity in RPM
+   */
+  public double getRollerVelocity() {
+    if (RobotBase.isSimulation()) {
+      return m_simVelocity;
+    }
+    return (m_intakeEncoder.getVelocity() + m_rollerEncoder.getVelocity()) / 2.0;
+  }
+
+  /**
+   * Run both motors closed-loop at a velocity
+   *
+   * @param speed Fraction of roller free speed
+   */
+  private void setVelocity(double speed) {
+    double rpm = speed * IntakeConstants.kRollerFreeSpeedRPM;
+    double feedforward = Math.signum(rpm) * IntakeConstants.kRollerKS + IntakeConstants.kRollerKV * rpm;
+    m_intakePID.setReference(rpm, ControlType.kVelocity, 0, feedforward);
+    m_rollerPID.setReference(rpm, ControlType.kVelocity, 0, feedforward);
+    m_targetVelocity = rpm;
+    m_commandedOutput = speed;
+  }
+
+  /**
+   * Run both motors open-loop
+   *
+   * @param output Percent output from -1.0 to 1.0
+   */
+  private void setOutput(double output) {
+    m_intakeMotor.set(output);
+    m_rollerMotor.set(output);
+    m_targetVelocity = Double.NaN;
+    m_commandedOutput = output;
+  }
+
+  /**
+   * Check if the rollers are running at their closed-loop target
+   *
+   * @return true when both motors are inside the velocity tolerance
+   */
+  public boolean isAtSpeed() {
+    double target = m_targetVelocity;
+    if (Double.isNaN(target)) {
+      return false;
+    }
+    if (RobotBase.isSimulation()) {
+      return Math.abs(m_simVelocity - target) < IntakeConstants.kRollerVelocityToleranceRPM;
+    }
+    return Math.abs(m_intakeEncoder.getVelocity() - target) < IntakeConstants.kRollerVelocityToleranceRPM
+        && Math.abs(m_rollerEncoder.getVelocity() - target) < IntakeConstants.kRollerVelocityToleranceRPM;
+  }
+
+  /**
+   * Beam break interrupt - switch to indexing immediately if we were intaking
+   */
+  private synchronized void onBeamBroken() {
+    m_lastDetectionTime = m_beamBreakInterrupt.getFallingTimestamp();
+    if (m_currentState == IntakeState.INTAKING) {
+      startIndexing();
+      m_detectionLatencyMs = (Timer.getFPGATimestamp() - m_lastDetectionTime) * 1000.0;
+    }
+  }
+
+  /**
+   * Beam break interrupt - time the ejection if we were outtaking
+   */
+  private synchronized void onBeamCleared() {
+    if (m_currentState == IntakeState.OUTTAKING && Double.isNaN(m_timeToEject)) {
+      m_timeToEject = m_beamBreakInterrupt.getRisingTimestamp() - m_outtakeStartTime;
+      m_ejectPending = true;
+    }
+  }
+
+  /**
+   * Slow the rollers and remember where the beam broke
+   */
+  private synchronized void startIndexing() {
+    setVelocity(IntakeConstants.kIndexSpeed);
+    m_indexStartPosition = m_rollerEncoder.getPosition();
+    m_currentState = IntakeState.INDEXING;
+  }
+
+  /**
+   * Register a motor with the fault monitor and attach the intake's rules
+   *
+   * @param name Motor name
+   * @param motor Motor to stop on a jam
+   */
+  private void addFaultRules(String name, CANSparkMax motor) {
+    FaultMonitor faults = FaultMonitor.getInstance();
+    int channel = faults.registerMotor(name, motor::getOutputCurrent, motor.getEncoder()::getVelocity);
+    faults.addRule(channel, FaultMonitor.Rule.currentSpike(CURRENT_SPIKE_THRESHOLD, CURRENT_SPIKE_DURATION),
+                   (motorName, rule, amps) -> {
+                     System.err.println("⚠️ WARNING: " + motorName + " motor current spike detected! Possible jam or overload.");
+                     System.err.println("Current: " + String.format("%.1f", amps) + "A (threshold: " +
+                                        CURRENT_SPIKE_THRESHOLD + "A)");
+                     // Stop the motor to prevent damage
+                     motor.set(0);
+                   });
+    faults.addRule(channel, FaultMonitor.Rule.thermal(CONTINUOUS_CURRENT, THERMAL_LIMIT),
+                   (motorName, rule, load) -> System.err.println("⚠️ WARNING: " + motorName + " motor I²t overload (" +
+                                                                 String.format("%.0f", load) + " A²s)"));
   }
 
   /**
    * Run intake to pick up coral
    */
-  public void intake() {
-    m_intakeMotor.set(IntakeConstants.kIntakeSpeed);
-    m_rollerMotor.set(IntakeConstants.kIntakeSpeed);
+  public synchronized void intake() {
+    setVelocity(IntakeConstants.kIntakeSpeed);
+    m_indexed = false;
     m_currentState = IntakeState.INTAKING;
   }
 
   /**
    * Run intake in reverse to eject coral
    */
-  public void outtake() {
-    m_intakeMotor.set(IntakeConstants.kOuttakeSpeed);
-    m_rollerMotor.set(IntakeConstants.kOuttakeSpeed);
+  public synchronized void outtake() {
+    if (m_currentState != IntakeState.OUTTAKING) {
+      m_outtakeStartTime = Timer.getFPGATimestamp();
+      m_timeToSpeed = Double.NaN;
+      m_timeToEject = Double.NaN;
+    }
+    setVelocity(IntakeConstants.kOuttakeSpeed);
+    m_indexed = false;
     m_currentState = IntakeState.OUTTAKING;
   }
 
   /**
    * Hold coral in place with low power
    */
-  public void hold() {
-    m_intakeMotor.set(IntakeConstants.kHoldSpeed);
-    m_rollerMotor.set(IntakeConstants.kHoldSpeed);
+  public synchronized void hold() {
+    setOutput(IntakeConstants.kHoldSpeed);
     m_currentState = IntakeState.HOLDING;
   }
 
   /**
    * Stop all intake motors
    */
-  public void stop() {
-    m_intakeMotor.set(0);
-    m_rollerMotor.set(0);
+  public synchronized void stop() {
+    setOutput(0);
+    m_indexed = false;
     m_currentState = IntakeState.STOPPED;
   }
 
   /**
-   * Check if coral is detected by beam break sensor
+   * Check if coral is detected (beam break fused with the roller current signature)
    *
    * @return true if coral is present
    */
   public boolean hasGamePiece() {
+    return m_detector.hasGamePiece();
+  }
+
+  /**
+   * Check the raw beam break sensor
+   *
+   * @return true if the beam is broken
+   */
+  public boolean isBeamBroken() {
     // Beam break returns false when beam is broken
     return !m_beamBreak.get();
   }
 
+  /**
+   * Get when the beam break last detected a coral
+   *
+   * @return FPGA timestamp of the edge in seconds
+   */
+  public double getLastDetectionTime() {
+    return m_lastDetectionTime;
+  }
+
+  /**
+   * Check if a coral is indexed and being held
+   * Doesn't require the beam break - a coral pushed past it while indexing is still held.
+   *
+   * @return true once indexing has finished
+   */
+  public boolean isIndexed() {
+    return m_currentState == IntakeState.HOLDING && m_indexed;
+  }
+
   /**
    * Get the current state of the intake
    *
@@ -121,54 +383,95 @@ public class IntakeSubsystem extends SubsystemBase {
    *
    * @param speed Speed from -1.0 to 1.0
    */
-  public void setSpeed(double speed) {
-    m_intakeMotor.set(speed);
-    m_rollerMotor.set(speed);
+  public synchronized void setSpeed(double speed) {
+    setOutput(speed);
   }
 
   @Override
   public void periodic() {
-    // Auto-transition to holding when game piece is detected during intake
-    if (m_currentState == IntakeState.INTAKING && hasGamePiece()) {
-      hold();
+    synchronized (this) {
+      // Backup for the interrupt - start indexing when game piece is detected during intake
+      if (m_currentState == IntakeState.INTAKING && hasGamePiece()) {
+        startIndexing();
+      }
+      // Hold once the coral has run the indexing distance past the beam break
+      if (m_currentState == IntakeState.INDEXING
+          && m_rollerEncoder.getPosition() - m_indexStartPosition >= IntakeConstants.kIndexRotations) {
+        hold();
+        m_indexed = true;
+      }
     }
 
-    // Current spike detection - detect jammed mechanisms
     double intakeCurrent = m_intakeMotor.getOutputCurrent();
     double rollerCurrent = m_rollerMotor.getOutputCurrent();
 
-    // Intake motor current spike detection
-    if (intakeCurrent > CURRENT_SPIKE_THRESHOLD) {
-      m_intakeCurrentSpikeCounter++;
-      if (m_intakeCurrentSpikeCounter >= CURRENT_SPIKE_DURATION) {
-        System.err.println("⚠️ WARNING: Intake motor current spike detected! Possible jam or overload.");
-        System.err.println("Current: " + intakeCurrent + "A (threshold: " + CURRENT_SPIKE_THRESHOLD + "A)");
-        // Stop the intake motor to prevent damage
-        m_intakeMotor.set(0);
-        m_intakeCurrentSpikeCounter = 0; // Reset counter
-      }
-    } else {
-      m_intakeCurrentSpikeCounter = 0; // Reset if current drops
+    // Telemetry
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putBoolean("Intake/Has Game Piece", hasGamePiece());
+    nt.putString("Intake/State", m_currentState.name());
+    nt.putNumber("Intake/Intake Current", intakeCurrent);
+    nt.putNumber("Intake/Roller Current", rollerCurrent);
+    nt.putNumber("Intake/Detect Latency (ms)", m_detectionLatencyMs);
+    nt.putNumber("Intake/Roller Velocity (RPM)", getRollerVelocity());
+    nt.putBoolean("Intake/At Speed", isAtSpeed());
+
+    // Ejection timing - time to speed is sampled here, the eject edge comes from the interrupt
+    if (m_currentState == IntakeState.OUTTAKING && Double.isNaN(m_timeToSpeed) && isAtSpeed()) {
+      m_timeToSpeed = Timer.getFPGATimestamp() - m_outtakeStartTime;
+      nt.putNumber("Intake/Time to Speed (s)", m_timeToSpeed);
+    }
+    if (m_ejectPending) {
+      m_ejectPending = false;
+      nt.putNumber("Intake/Time to Eject (s)", m_timeToEject);
+      System.out.println("Intake: coral ejected in " + String.format("%.3f", m_timeToEject) + "s");
     }
 
-    // Roller motor current spike detection
-    if (rollerCurrent > CURRENT_SPIKE_THRESHOLD) {
-      m_rollerCurrentSpikeCounter++;
-      if (m_rollerCurrentSpikeCounter >= CURRENT_SPIKE_DURATION) {
-        System.err.println("⚠️ WARNING: Roller motor current spike detected! Possible jam or overload.");
-        System.err.println("Current: " + rollerCurrent + "A (threshold: " + CURRENT_SPIKE_THRESHOLD + "A)");
-        // Stop the roller motor to prevent damage
-        m_rollerMotor.set(0);
-        m_rollerCurrentSpikeCounter = 0; // Reset counter
+    // Sensor fusion - disagreement shows which sensor is failing
+    nt.putBoolean("Intake/Beam Break", isBeamBroken());
+    nt.putBoolean("Intake/Current Signature", m_detector.isSignatureDetected());
+    nt.putNumber("Intake/Piece Confidence", m_detector.getConfidence());
+    nt.putNumber("Intake/Beam Break Trust", m_detector.getBeamBreakTrust());
+    nt.putBoolean("Intake/Sensor Disagree", m_detector.isDisagreeing());
+
+    boolean sensorFault = m_detector.getBeamBreakTrust() < 1.0 && m_detector.isDisagreeing();
+    if (sensorFault && !m_reportedSensorFault) {
+      System.err.println("⚠️ WARNING: Intake beam break disagrees with the roller current signature - check the sensor on DIO " +
+                         IntakeConstants.kBeamBreakChannel);
+    }
+    m_reportedSensorFault = sensorFault;
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    // Rollers spin at the commanded output - slower with a coral in them, stalled at the hard stop
+    double output = m_commandedOutput;
+    boolean loaded = !Double.isNaN(m_simCoralPosition);
+    double speedRatio = loaded ? SIM_LOADED_SPEED_RATIO : 1.0;
+    if (loaded && m_simCoralPosition >= SIM_HARD_STOP_ROTATIONS && output > 0.0) {
+      speedRatio = 0.0;
+    }
+    double delta = output * SIM_ROLLER_SPEED_RPS * speedRatio * 0.02;
+    m_rollerEncoder.setPosition(m_rollerEncoder.getPosition() + delta);
+    m_simVelocity = output * IntakeConstants.kRollerFreeSpeedRPM * speedRatio;
+    m_simCurrent = loaded ? Math.abs(output) * SIM_STALL_CURRENT * (1.0 - speedRatio) + SIM_FREE_CURRENT
+                          : SIM_FREE_CURRENT;
+
+    if (loaded) {
+      m_simCoralPosition = Math.min(m_simCoralPosition + delta, SIM_HARD_STOP_ROTATIONS);
+      if (m_simCoralPosition < -SIM_FEED_ROTATIONS) {
+        m_simCoralPosition = Double.NaN; // Ejected out of the mouth
       }
-    } else {
-      m_rollerCurrentSpikeCounter = 0; // Reset if current drops
     }
 
-    // Telemetry
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putBoolean("Intake/Has Game Piece", hasGamePiece());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putString("Intake/State", m_currentState.name());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Intake/Intake Current", intakeCurrent);
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Intake/Roller Current", rollerCurrent);
+    // Beam is broken while the coral spans it (reads false when broken)
+    boolean broken = m_simCoralPosition >= 0.0 && m_simCoralPosition < SIM_CORAL_LENGTH_ROTATIONS;
+    m_beamBreakSim.setValue(!broken);
+  }
+
+  /**
+   * Simulation only: place a coral at the intake mouth
+   */
+  public void simLoadCoral() {
+    m_simCoralPosition = -SIM_FEED_ROTATIONS;
   }
 }
@@ -1,23 +1,37 @@
 package frc.robot.subsystems;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import com.kauailabs.navx.AHRSProtocol;
 import com.kauailabs.navx.frc.AHRS;
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 
-import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.Constants.TippingConstants;
 import frc.robot.PathPlannerConfig;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.PowerManager;
+import frc.robot.util.TipDetector;
+import frc.robot.util.TippingModel;
+import frc.robot.util.VariableSlewRateLimiter;
 
 /**
  * Swerve drive subsystem using REV MAXSwerve modules
@@ -25,42 +39,70 @@ import frc.robot.PathPlannerConfig;
  * NavX gyroscope for field-oriented control
  */
 public class SwerveDriveSubsystem extends SubsystemBase {
+  // Calibration store keys for the module offsets (same order as getModuleStates())
+  public static final String[] OFFSET_KEYS = {
+      "swerve.FL.offset", "swerve.FR.offset", "swerve.BL.offset", "swerve.BR.offset"};
+
+  // Module offsets come from the runtime calibration store (Constants values are the defaults)
+  private static final CalibrationStore s_calibration = CalibrationStore.getInstance();
+
   // Create swerve modules
   private final SwerveModule m_frontLeft = new SwerveModule(
       DriveConstants.kFrontLeftDriveMotorId,
       DriveConstants.kFrontLeftTurningMotorId,
       DriveConstants.kFrontLeftDriveInverted,
       DriveConstants.kFrontLeftTurningInverted,
-      DriveConstants.kFrontLeftEncoderOffset);
+      s_calibration.get(OFFSET_KEYS[0], DriveConstants.kFrontLeftEncoderOffset));
 
   private final SwerveModule m_frontRight = new SwerveModule(
       DriveConstants.kFrontRightDriveMotorId,
       DriveConstants.kFrontRightTurningMotorId,
       DriveConstants.kFrontRightDriveInverted,
       DriveConstants.kFrontRightTurningInverted,
-      DriveConstants.kFrontRightEncoderOffset);
+      s_calibration.get(OFFSET_KEYS[1], DriveConstants.kFrontRightEncoderOffset));
 
   private final SwerveModule m_backLeft = new SwerveModule(
       DriveConstants.kBackLeftDriveMotorId,
       DriveConstants.kBackLeftTurningMotorId,
       DriveConstants.kBackLeftDriveInverted,
       DriveConstants.kBackLeftTurningInverted,
-      DriveConstants.kBackLeftEncoderOffset);
+      s_calibration.get(OFFSET_KEYS[2], DriveConstants.kBackLeftEncoderOffset));
 
   private final SwerveModule m_backRight = new SwerveModule(
       DriveConstants.kBackRightDriveMotorId,
       DriveConstants.kBackRightTurningMotorId,
       DriveConstants.kBackRightDriveInverted,
       DriveConstants.kBackRightTurningInverted,
-      DriveConstants.kBackRightEncoderOffset);
-
-  // NavX gyroscope
-  private final AHRS m_gyro = new AHRS(SPI.Port.kMXP);
-
-  // Slew rate limiters to make joystick inputs smoother and prevent tipping
-  private final SlewRateLimiter m_xLimiter = new SlewRateLimiter(DriveConstants.kMagnitudeSlewRate);
-  private final SlewRateLimiter m_yLimiter = new SlewRateLimiter(DriveConstants.kMagnitudeSlewRate);
-  private final SlewRateLimiter m_rotLimiter = new SlewRateLimiter(DriveConstants.kRotationalSlewRate);
+      s_calibration.get(OFFSET_KEYS[3], DriveConstants.kBackRightEncoderOffset));
+
+  // NavX gyroscope (at its max update rate - pitch and roll feed tip protection)
+  private final AHRS m_gyro = new AHRS(SPI.Port.kMXP, (byte) TippingConstants.kNavXUpdateRateHz);
+
+  // Tip protection runs in the NavX callback, so it reacts within one sample instead of one loop
+  private final TipDetector m_tipDetector = new TipDetector();
+  private volatile double m_tipReactionMs = 0.0; // NavX sample received to module command
+  private volatile BooleanSupplier m_tipDetectionSuspended = () -> false; // e.g. hanging from the climber
+
+  // Simulation: heading integrated from commanded rotation (the NavX doesn't move in sim)
+  private double m_simHeadingRadians = 0.0;
+  // Simulation: ground-truth pose (not affected by vision corrections)
+  private Pose2d m_simPose = new Pose2d();
+
+  // Acceleration and speed limits from the arm's center of mass, recomputed every loop
+  private static final double MAX_LIMITER_DT = 0.1; // seconds - longer gaps restart from the measured speed
+  private final TippingModel m_tippingModel = new TippingModel();
+  private DoubleSupplier m_armAngleSupplier = () -> 0.0; // Stowed until the arm is connected
+  private DoubleSupplier m_armExtensionSupplier = () -> 0.0;
+  private final VariableSlewRateLimiter m_rotLimiter = new VariableSlewRateLimiter();
+  private double m_commandedVx = 0.0; // Limited teleop velocity (m/s, in the drive() frame)
+  private double m_commandedVy = 0.0;
+  private double m_lastDriveTime = Double.NEGATIVE_INFINITY;
+  private double m_lastDriveAccel = 0.0; // Applied teleop acceleration last loop (m/s²)
+  private double m_brownoutAccel = Double.POSITIVE_INFINITY; // Acceleration limit from the battery model
+  private boolean m_lastFieldRelative = true;
+
+  // Drive motor current budget (max speed is scaled down with it)
+  private final int m_powerChannel;
 
   // Swerve drive kinematics (module positions relative to robot center)
   private final SwerveDriveKinematics m_kinematics = new SwerveDriveKinematics(
@@ -81,19 +123,39 @@ public class SwerveDriveSubsystem extends SubsystemBase {
           -DriveConstants.kWheelBaseMeters / 2,
           -DriveConstants.kTrackWidthMeters / 2));
 
-  // Odometry for tracking robot position
-  private final SwerveDriveOdometry m_odometry = new SwerveDriveOdometry(
+  // Pose estimator for tracking robot position (wheel odometry fused with vision)
+  private final SwerveDrivePoseEstimator m_poseEstimator = new SwerveDrivePoseEstimator(
       m_kinematics,
-      Rotation2d.fromDegrees(-m_gyro.getAngle()),
-      getModulePositions());
+      getGyroRotation(),
+      getModulePositions(),
+      new Pose2d());
 
   /** Creates a new SwerveDriveSubsystem. */
   public SwerveDriveSubsystem() {
+    // Motor fault rules (thermal/stall warnings)
+    m_frontLeft.registerFaults("Front Left");
+    m_frontRight.registerFaults("Front Right");
+    m_backLeft.registerFaults("Back Left");
+    m_backRight.registerFaults("Back Right");
+
+    // Drive motors get first claim on the battery
+    m_powerChannel = PowerManager.getInstance().register(
+        "Drive", PowerConstants.kDrivePriority, 4, DriveConstants.kDriveCurrentLimit,
+        PowerConstants.kDriveMinCurrentLimit, this::getDriveCurrent, this::setDriveCurrentLimit);
+
+    // Hot-reload module offsets when the calibration changes
+    s_calibration.addListener(this::applyCalibration);
+
+    // Sample pitch and roll as each NavX update arrives
+    m_gyro.registerCallback((systemTimestamp, sensorTimestamp, data, context) ->
+        onNavXUpdate(data, systemTimestamp, sensorTimestamp), null);
+
     // Calibrate gyro on boot (robot must be stationary!)
     new Thread(() -> {
       try {
         Thread.sleep(1000);
         zeroHeading();
+        m_tipDetector.setLevel(m_gyro.getPitch(), m_gyro.getRoll());
         System.out.println("✓ Gyro calibration complete");
       } catch (Exception e) {
         System.err.println("⚠️ ERROR: Gyro calibration failed: " + e.getMessage());
@@ -140,24 +202,90 @@ public class SwerveDriveSubsystem extends SubsystemBase {
   @Override
   public void periodic() {
     // Update odometry
-    m_odometry.update(
-        Rotation2d.fromDegrees(-m_gyro.getAngle()),
+    m_poseEstimator.update(
+        getGyroRotation(),
         getModulePositions());
 
+    // Drivetrain limits for the current arm configuration
+    m_tippingModel.update(m_armAngleSupplier.getAsDouble(), m_armExtensionSupplier.getAsDouble());
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putNumber("Swerve/Max Accel (mps2)", m_tippingModel.getMaxAcceleration());
+    nt.putNumber("Swerve/Max Speed (mps)", getMaxSpeed());
+    nt.putNumber("Swerve/Brownout Accel Limit (mps2)", Math.min(m_brownoutAccel, m_tippingModel.getMaxAcceleration()));
+    nt.putNumber("Swerve/CoM Height (m)", m_tippingModel.getCoMHeight());
+    nt.putNumber("Swerve/Tilt (deg)", m_tipDetector.getTiltDegrees());
+    nt.putNumber("Swerve/Tip Reaction (ms)", m_tipReactionMs);
+    nt.putBoolean("Swerve/Tip Recovery", m_tipDetector.isTipping());
+
     // Telemetry - publish to SmartDashboard for debugging
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve/Gyro Angle", getHeading());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve/Robot X", getPose().getX());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putNumber("Swerve/Robot Y", getPose().getY());
-    edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putBoolean("Swerve/Gyro Connected", m_gyro.isConnected());
+    nt.putNumber("Swerve/Gyro Angle", getHeading());
+    nt.putNumber("Swerve/Robot X", getPose().getX());
+    nt.putNumber("Swerve/Robot Y", getPose().getY());
+    nt.putBoolean("Swerve/Gyro Connected", m_gyro.isConnected());
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    final double dt = 0.02;
+
+    // Integrate the commanded rotation rate into the simulated heading
+    ChassisSpeeds commanded = m_kinematics.toChassisSpeeds(
+        m_frontLeft.getDesiredState(),
+        m_frontRight.getDesiredState(),
+        m_backLeft.getDesiredState(),
+        m_backRight.getDesiredState());
+    m_simHeadingRadians += commanded.omegaRadiansPerSecond * dt;
+    m_simPose = m_simPose.exp(new Twist2d(
+        commanded.vxMetersPerSecond * dt,
+        commanded.vyMetersPerSecond * dt,
+        commanded.omegaRadiansPerSecond * dt));
+
+    m_frontLeft.simulationUpdate(dt);
+    m_frontRight.simulationUpdate(dt);
+    m_backLeft.simulationUpdate(dt);
+    m_backRight.simulationUpdate(dt);
+  }
+
+  /**
+   * Simulation only: get the ground-truth robot pose
+   * Used by simulated sensors so they don't see the estimator's own corrections
+   *
+   * @return Simulated true pose
+   */
+  public Pose2d getSimulatedPose() {
+    return m_simPose;
+  }
+
+  /**
+   * Get the gyro heading as a Rotation2d (counter-clockwise positive)
+   *
+   * @return Robot heading from the gyro (or simulated heading in sim)
+   */
+  private Rotation2d getGyroRotation() {
+    if (RobotBase.isSimulation()) {
+      return new Rotation2d(m_simHeadingRadians);
+    }
+    return Rotation2d.fromDegrees(-m_gyro.getAngle());
   }
 
   /**
    * Returns the currently-estimated pose of the robot
+   * This is wheel odometry fused with any vision measurements
    *
    * @return The pose
    */
   public Pose2d getPose() {
-    return m_odometry.getPoseMeters();
+    return m_poseEstimator.getEstimatedPosition();
+  }
+
+  /**
+   * Add a vision pose measurement to the pose estimator
+   *
+   * @param visionPose Field-relative robot pose measured by the camera
+   * @param timestampSeconds FPGA timestamp of when the frame was captured
+   */
+  public void addVisionMeasurement(Pose2d visionPose, double timestampSeconds) {
+    m_poseEstimator.addVisionMeasurement(visionPose, timestampSeconds);
   }
 
   /**
@@ -166,35 +294,88 @@ public class SwerveDriveSubsystem extends SubsystemBase {
    * @param pose The pose to which to set the odometry
    */
   public void resetOdometry(Pose2d pose) {
-    m_odometry.resetPosition(
-        Rotation2d.fromDegrees(-m_gyro.getAngle()),
+    m_poseEstimator.resetPosition(
+        getGyroRotation(),
         getModulePositions(),
         pose);
+    m_simPose = pose;
   }
 
   /**
    * Method to drive the robot using joystick info
    * Field-relative mode: Robot moves relative to field orientation
    * Robot-relative mode: Robot moves relative to its own orientation
+   * Acceleration and max speed are limited by the tipping model for the current arm position,
+   * and acceleration also by the battery's predicted current headroom
    *
-   * @param xSpeed Speed of the robot in the x direction (forward/backward) in m/s
-   * @param ySpeed Speed of the robot in the y direction (left/right) in m/s
-   * @param rot Angular rate of the robot in rad/s
+   * @param xSpeed Speed in the x direction (forward/backward) as a fraction of max speed (-1 to 1)
+   * @param ySpeed Speed in the y direction (left/right) as a fraction of max speed (-1 to 1)
+   * @param rot Angular rate as a fraction of max angular speed (-1 to 1)
    * @param fieldRelative Whether the provided x and y speeds are relative to the field
    */
   public void drive(double xSpeed, double ySpeed, double rot, boolean fieldRelative) {
-    // Apply slew rate limiters for smoother control
-    double xSpeedFiltered = m_xLimiter.calculate(xSpeed) * DriveConstants.kMaxSpeedMetersPerSecond;
-    double ySpeedFiltered = m_yLimiter.calculate(ySpeed) * DriveConstants.kMaxSpeedMetersPerSecond;
-    double rotFiltered = m_rotLimiter.calculate(rot) * DriveConstants.kMaxAngularSpeed;
+    if (m_tipDetector.isTipping()) {
+      return; // Tip recovery owns the modules
+    }
+
+    double maxSpeed = getMaxSpeed();
+    double now = Timer.getFPGATimestamp();
+    double dt = now - m_lastDriveTime;
+    m_lastDriveTime = now;
+
+    // Another command was driving, or the frame changed - continue from the measured speed
+    if (dt > MAX_LIMITER_DT || fieldRelative != m_lastFieldRelative) {
+      ChassisSpeeds measured = getChassisSpeeds();
+      if (fieldRelative) {
+        measured = ChassisSpeeds.fromRobotRelativeSpeeds(measured, getGyroRotation());
+      }
+      m_commandedVx = measured.vxMetersPerSecond;
+      m_commandedVy = measured.vyMetersPerSecond;
+      m_rotLimiter.reset(measured.omegaRadiansPerSecond);
+      m_lastFieldRelative = fieldRelative;
+      m_lastDriveAccel = 0.0;
+      dt = 0.0;
+    }
+
+    // Acceleration the battery can supply without sagging below the floor - last loop's
+    // acceleration current is already in the measured draw, so the headroom adds to it
+    m_brownoutAccel = Math.max(PowerConstants.kMinBrownoutAcceleration,
+        m_lastDriveAccel + PowerManager.getInstance().getCurrentHeadroom(PowerConstants.kDriveHeadroomShare)
+        / PowerConstants.kDriveAmpsPerMps2);
+
+    // Target velocity, capped at the derated max speed
+    double targetVx = xSpeed * maxSpeed;
+    double targetVy = ySpeed * maxSpeed;
+    double targetSpeed = Math.hypot(targetVx, targetVy);
+    if (targetSpeed > maxSpeed) {
+      targetVx *= maxSpeed / targetSpeed;
+      targetVy *= maxSpeed / targetSpeed;
+    }
+
+    // Limit the change of the velocity vector (not x and y separately - diagonals would get 41% more)
+    double dvx = targetVx - m_commandedVx;
+    double dvy = targetVy - m_commandedVy;
+    double dv = Math.hypot(dvx, dvy);
+    double maxDelta = Math.min(m_tippingModel.getMaxAcceleration(), m_brownoutAccel) * dt;
+    if (dv > maxDelta) {
+      dvx *= maxDelta / dv;
+      dvy *= maxDelta / dv;
+      dv = maxDelta;
+    }
+    m_lastDriveAccel = dt > 0.0 ? dv / dt : 0.0;
+    m_commandedVx += dvx;
+    m_commandedVy += dvy;
+
+    double rotFiltered = m_rotLimiter.calculate(
+        rot * m_tippingModel.getMaxAngularSpeed(), m_tippingModel.getMaxAngularAcceleration());
 
     // Convert chassis speeds to module states
     SwerveModuleState[] swerveModuleStates =
         m_kinematics.toSwerveModuleStates(
             fieldRelative
                 ? ChassisSpeeds.fromFieldRelativeSpeeds(
-                    xSpeedFiltered, ySpeedFiltered, rotFiltered, Rotation2d.fromDegrees(-m_gyro.getAngle()))
-                : new ChassisSpeeds(xSpeedFiltered, ySpeedFiltered, rotFiltered));
+                    m_commandedVx, m_commandedVy, rotFiltered, getGyroRotation())
+                : new ChassisSpeeds(m_commandedVx, m_commandedVy, rotFiltered));
 
     setModuleStates(swerveModuleStates);
   }
@@ -209,12 +390,71 @@ public class SwerveDriveSubsystem extends SubsystemBase {
     SwerveDriveKinematics.desaturateWheelSpeeds(
         desiredStates, DriveConstants.kMaxSpeedMetersPerSecond);
 
+    applyModuleStates(desiredStates, false);
+  }
+
+  /**
+   * Send states to the modules - called from the main thread and the NavX callback thread
+   *
+   * @param desiredStates Module states (FL, FR, BL, BR)
+   * @param tipCorrection true if this is the tip recovery command
+   */
+  private synchronized void applyModuleStates(SwerveModuleState[] desiredStates, boolean tipCorrection) {
+    if (m_tipDetector.isTipping() && !tipCorrection) {
+      return; // Tip recovery owns the modules
+    }
     m_frontLeft.setDesiredState(desiredStates[0]);
     m_frontRight.setDesiredState(desiredStates[1]);
     m_backLeft.setDesiredState(desiredStates[2]);
     m_backRight.setDesiredState(desiredStates[3]);
   }
 
+  /**
+   * NavX callback - detect tipping and drive the wheels back under the center of mass
+   * Runs on the NavX I/O thread at the NavX update rate
+   *
+   * @param data NavX sample
+   * @param systemTimestamp Time the sample was received (ms, FPGA clock)
+   * @param sensorTimestamp Time the sample was taken (ms, NavX clock)
+   */
+  private void onNavXUpdate(AHRSProtocol.AHRSUpdateBase data, long systemTimestamp, long sensorTimestamp) {
+    boolean wasTipping = m_tipDetector.isTipping();
+
+    // Hanging from the climber tilts the robot on purpose - don't fight it or retract the arm
+    if (m_tipDetectionSuspended.getAsBoolean()) {
+      m_tipDetector.reset();
+      if (wasTipping) {
+        applyModuleStates(m_kinematics.toSwerveModuleStates(new ChassisSpeeds()), true);
+        System.out.println("✓ Tip recovery stopped - climbing");
+      }
+      return;
+    }
+
+    boolean tipping = m_tipDetector.update(data.pitch, data.roll, sensorTimestamp / 1000.0);
+
+    if (tipping && DriverStation.isEnabled()) {
+      applyModuleStates(m_kinematics.toSwerveModuleStates(new ChassisSpeeds(
+          m_tipDetector.getCorrectionVx(), m_tipDetector.getCorrectionVy(), 0.0)), true);
+      if (!wasTipping) {
+        m_tipReactionMs = Timer.getFPGATimestamp() * 1000.0 - systemTimestamp; // Both FPGA time
+        System.err.println("⚠️ TIP DETECTED (" + String.format("%.1f", m_tipDetector.getTiltDegrees()) +
+                           "°) - correcting drive and retracting arm");
+      }
+    } else if (wasTipping && !tipping) {
+      applyModuleStates(m_kinematics.toSwerveModuleStates(new ChassisSpeeds()), true);
+      System.out.println("✓ Tip recovered - driver control restored");
+    }
+  }
+
+  /**
+   * Check if tip recovery is active (driver input is being overridden)
+   *
+   * @return true while recovering from a tip
+   */
+  public boolean isTipping() {
+    return m_tipDetector.isTipping();
+  }
+
   /**
    * Resets the drive encoders to currently read a position of 0
    */
@@ -245,6 +485,7 @@ public class SwerveDriveSubsystem extends SubsystemBase {
    */
   public void zeroHeading() {
     m_gyro.reset();
+    m_simHeadingRadians = 0.0;
   }
 
   /**
@@ -253,7 +494,7 @@ public class SwerveDriveSubsystem extends SubsystemBase {
    * @return the robot's heading in degrees, from -180 to 180
    */
   public double getHeading() {
-    return Rotation2d.fromDegrees(-m_gyro.getAngle()).getDegrees();
+    return getGyroRotation().getDegrees();
   }
 
   /**
@@ -295,23 +536,68 @@ public class SwerveDriveSubsystem extends SubsystemBase {
   }
 
   /**
-   * Stop all swerve modules
+   * Get the chassis angular offset of each module
+   *
+   * @return Offsets in radians (FL, FR, BL, BR)
+   */
+  public double[] getModuleOffsets() {
+    return new double[] {
+      m_frontLeft.getChassisAngularOffset(),
+      m_frontRight.getChassisAngularOffset(),
+      m_backLeft.getChassisAngularOffset(),
+      m_backRight.getChassisAngularOffset()
+    };
+  }
+
+  /**
+   * Apply module offsets from the calibration store
+   * The store notifies on any change (arm presets included), so only modules whose
+   * offset actually differs are updated
+   */
+  private void applyCalibration() {
+    boolean changed = applyOffset(m_frontLeft, OFFSET_KEYS[0], DriveConstants.kFrontLeftEncoderOffset);
+    changed |= applyOffset(m_frontRight, OFFSET_KEYS[1], DriveConstants.kFrontRightEncoderOffset);
+    changed |= applyOffset(m_backLeft, OFFSET_KEYS[2], DriveConstants.kBackLeftEncoderOffset);
+    changed |= applyOffset(m_backRight, OFFSET_KEYS[3], DriveConstants.kBackRightEncoderOffset);
+    if (changed) {
+      System.out.println("✓ Swerve module offsets reloaded from calibration");
+    }
+  }
+
+  /**
+   * Apply one module offset from the calibration store if it differs from the applied one
+   *
+   * @return true if the offset changed
+   */
+  private static boolean applyOffset(SwerveModule module, String key, double defaultOffset) {
+    double offset = s_calibration.get(key, defaultOffset);
+    if (offset == module.getChassisAngularOffset()) {
+      return false;
+    }
+    module.setChassisAngularOffset(offset);
+    return true;
+  }
+
+  /**
+   * Stop all swerve modules (wheels keep their angle; ignored while tip recovery owns the modules)
    */
   public void stop() {
-    m_frontLeft.stop();
-    m_frontRight.stop();
-    m_backLeft.stop();
-    m_backRight.stop();
+    applyModuleStates(new SwerveModuleState[] {
+        new SwerveModuleState(0.0, m_frontLeft.getDesiredState().angle),
+        new SwerveModuleState(0.0, m_frontRight.getDesiredState().angle),
+        new SwerveModuleState(0.0, m_backLeft.getDesiredState().angle),
+        new SwerveModuleState(0.0, m_backRight.getDesiredState().angle)}, false);
   }
 
   /**
    * Sets modules to X pattern (prevents being pushed when disabled)
    */
   public void setX() {
-    m_frontLeft.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)));
-    m_frontRight.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)));
-    m_backLeft.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)));
-    m_backRight.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)));
+    applyModuleStates(new SwerveModuleState[] {
+        new SwerveModuleState(0, Rotation2d.fromDegrees(45)),
+        new SwerveModuleState(0, Rotation2d.fromDegrees(-45)),
+        new SwerveModuleState(0, Rotation2d.fromDegrees(-45)),
+        new SwerveModuleState(0, Rotation2d.fromDegrees(45))}, false);
   }
 
   /**
@@ -332,14 +618,76 @@ public class SwerveDriveSubsystem extends SubsystemBase {
     // Convert chassis speeds to module states
     SwerveModuleState[] moduleStates = m_kinematics.toSwerveModuleStates(speeds);
 
-    // Normalize wheel speeds
-    SwerveDriveKinematics.desaturateWheelSpeeds(moduleStates, DriveConstants.kMaxSpeedMetersPerSecond);
+    // Normalize wheel speeds (capped at the tipping-model and power-budget max speed)
+    SwerveDriveKinematics.desaturateWheelSpeeds(moduleStates, getMaxSpeed());
 
     // Set each module state
-    m_frontLeft.setDesiredState(moduleStates[0]);
-    m_frontRight.setDesiredState(moduleStates[1]);
-    m_backLeft.setDesiredState(moduleStates[2]);
-    m_backRight.setDesiredState(moduleStates[3]);
+    applyModuleStates(moduleStates, false);
+  }
+
+  /**
+   * Drive using field-relative velocities in physical units
+   * Used by closed-loop commands like DriveToPose (no slew limiting)
+   *
+   * @param vxMetersPerSecond Field-relative X velocity
+   * @param vyMetersPerSecond Field-relative Y velocity
+   * @param omegaRadiansPerSecond Angular velocity (counter-clockwise positive)
+   */
+  public void driveFieldRelative(double vxMetersPerSecond, double vyMetersPerSecond,
+                                 double omegaRadiansPerSecond) {
+    driveRobotRelative(ChassisSpeeds.fromFieldRelativeSpeeds(
+        vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond, getPose().getRotation()));
+  }
+
+  /**
+   * Connect the arm state used by the tipping model
+   *
+   * @param armAngle Arm angle in encoder ticks
+   * @param extension Extension in encoder ticks
+   */
+  public void setArmStateSupplier(DoubleSupplier armAngle, DoubleSupplier extension) {
+    m_armAngleSupplier = armAngle;
+    m_armExtensionSupplier = extension;
+  }
+
+  /**
+   * Connect the state that suspends tip detection (e.g. the climber being deployed)
+   *
+   * @param suspended Read on the NavX thread - must be cheap and thread-safe
+   */
+  public void setTipDetectionSuspended(BooleanSupplier suspended) {
+    m_tipDetectionSuspended = suspended;
+  }
+
+  /**
+   * Get the allowed translational speed - the tipping limit, scaled by the power budget
+   *
+   * @return Max speed in m/s
+   */
+  public double getMaxSpeed() {
+    return m_tippingModel.getMaxSpeed() * PowerManager.getInstance().getOutputScale(m_powerChannel);
+  }
+
+  /**
+   * Get the total drive motor current
+   *
+   * @return Current in amps
+   */
+  private double getDriveCurrent() {
+    return m_frontLeft.getDriveCurrent() + m_frontRight.getDriveCurrent()
+        + m_backLeft.getDriveCurrent() + m_backRight.getDriveCurrent();
+  }
+
+  /**
+   * Apply a new drive motor current limit to all modules
+   *
+   * @param amps Per-motor smart current limit
+   */
+  private void setDriveCurrentLimit(int amps) {
+    m_frontLeft.setDriveCurrentLimit(amps);
+    m_frontRight.setDriveCurrentLimit(amps);
+    m_backLeft.setDriveCurrentLimit(amps);
+    m_backRight.setDriveCurrentLimit(amps);
   }
 
   /**
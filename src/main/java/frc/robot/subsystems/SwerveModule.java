@@ -10,6 +10,7 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.util.FaultMonitor;
 
 /**
  * Individual MAXSwerve module
@@ -24,9 +25,22 @@ public class SwerveModule {
 
   private final SparkPIDController m_turningPIDController;
 
-  private final double m_chassisAngularOffset;
+  private double m_chassisAngularOffset; // Can be recalibrated at runtime
   private SwerveModuleState m_desiredState = new SwerveModuleState(0.0, new Rotation2d());
 
+  // Fault rules (warnings only - the drivetrain never shuts itself off)
+  private static final double DRIVE_CONTINUOUS_CURRENT = 40.0; // Amps
+  private static final double DRIVE_THERMAL_LIMIT = 6000.0; // A²s above continuous
+  private static final double DRIVE_STALL_CURRENT = 35.0; // Amps
+  private static final double DRIVE_STALL_SPEED = 0.1; // m/s
+  private static final double DRIVE_STALL_DURATION = 1.0; // Seconds
+  private static final double TURNING_SPIKE_CURRENT = 20.0; // Amps
+  private static final double TURNING_SPIKE_DURATION = 0.5; // Seconds
+
+  // Simulation: last commanded (optimized) speed and angle
+  private double m_simSpeed = 0.0;
+  private double m_simAngle = 0.0;
+
   /**
    * Constructs a MAXSwerve Module
    *
@@ -159,6 +173,46 @@ public class SwerveModule {
         ControlType.kPosition);
 
     m_desiredState = desiredState;
+    m_simSpeed = optimizedDesiredState.speedMetersPerSecond;
+    m_simAngle = optimizedDesiredState.angle.getRadians();
+  }
+
+  /**
+   * Register this module's motors with the fault monitor
+   *
+   * @param name Module name (e.g. "Front Left")
+   */
+  public void registerFaults(String name) {
+    FaultMonitor faults = FaultMonitor.getInstance();
+    FaultMonitor.Listener warn = (motorName, rule, value) ->
+        System.err.println("⚠️ WARNING: " + motorName + " " + rule + " (" + String.format("%.1f", value) + ")");
+
+    int drive = faults.registerMotor(name + " Drive", m_driveMotor::getOutputCurrent, m_driveEncoder::getVelocity);
+    faults.addRule(drive, FaultMonitor.Rule.thermal(DRIVE_CONTINUOUS_CURRENT, DRIVE_THERMAL_LIMIT), warn);
+    faults.addRule(drive, FaultMonitor.Rule.stall(DRIVE_STALL_CURRENT, DRIVE_STALL_SPEED, DRIVE_STALL_DURATION), warn);
+
+    int turning = faults.registerMotor(name + " Turning", m_turningMotor::getOutputCurrent, m_turningEncoder::getVelocity);
+    faults.addRule(turning, FaultMonitor.Rule.currentSpike(TURNING_SPIKE_CURRENT, TURNING_SPIKE_DURATION), warn);
+  }
+
+  /**
+   * Get the last state commanded to this module
+   *
+   * @return Desired module state (without chassis offset)
+   */
+  public SwerveModuleState getDesiredState() {
+    return m_desiredState;
+  }
+
+  /**
+   * Simulation only: treat the module as ideal (reaches its commanded state instantly)
+   * and advance the encoders so odometry moves in simulation
+   *
+   * @param dtSeconds Time since the last update
+   */
+  public void simulationUpdate(double dtSeconds) {
+    m_driveEncoder.setPosition(m_driveEncoder.getPosition() + m_simSpeed * dtSeconds);
+    m_turningEncoder.setPosition(m_simAngle);
   }
 
   /**
@@ -168,6 +222,24 @@ public class SwerveModule {
     m_driveEncoder.setPosition(0);
   }
 
+  /**
+   * Get the chassis angular offset
+   *
+   * @return Offset in radians
+   */
+  public double getChassisAngularOffset() {
+    return m_chassisAngularOffset;
+  }
+
+  /**
+   * Change the chassis angular offset (takes effect on the next state read or command)
+   *
+   * @param chassisAngularOffset New offset in radians
+   */
+  public void setChassisAngularOffset(double chassisAngularOffset) {
+    m_chassisAngularOffset = chassisAngularOffset;
+  }
+
   /**
    * Reset turning encoder to chassis angular offset
    * Call this when wheels are pointed straight forward
@@ -203,11 +275,31 @@ public class SwerveModule {
     return m_driveEncoder.getVelocity();
   }
 
+  /**
+   * Get drive motor output current
+   *
+   * @return Current in amps
+   */
+  public double getDriveCurrent() {
+    return m_driveMotor.getOutputCurrent();
+  }
+
+  /**
+   * Change the drive motor smart current limit (a CAN config write - don't call every loop)
+   *
+   * @param amps New current limit
+   */
+  public void setDriveCurrentLimit(int amps) {
+    m_driveMotor.setSmartCurrentLimit(amps);
+  }
+
   /**
    * Stop both drive and turning motors
    */
   public void stop() {
     m_driveMotor.set(0);
     m_turningMotor.set(0);
+    m_simSpeed = 0.0;
+    m_desiredState = new SwerveModuleState(0.0, m_desiredState.angle);
   }
 }
@@ -1,11 +1,20 @@
 package frc.robot.subsystems;
 
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.VisionConstants;
+import frc.robot.util.NTWriteCoalescer;
+import frc.robot.util.ReefTargeting;
 
 /**
  * Subsystem for Limelight vision processing
@@ -19,6 +28,26 @@ public class VisionSubsystem extends SubsystemBase {
   private final NetworkTableEntry m_tv; // Valid target (0 or 1)
   private final NetworkTableEntry m_ledMode; // LED mode control
   private final NetworkTableEntry m_camMode; // Camera mode (vision/driver)
+  private final NetworkTableEntry m_botPose; // Robot pose in field space (blue alliance origin)
+  private final NetworkTableEntry m_tl; // Pipeline latency (ms)
+  private final NetworkTableEntry m_cl; // Capture latency (ms)
+  private final NetworkTableEntry m_heartbeat; // Increments once per processed frame
+  private final NetworkTableEntry m_pipeline; // Requested pipeline index
+  private final NetworkTableEntry m_crop; // Crop window [xMin, xMax, yMin, yMax] in -1 to 1
+
+  // Outbound writes go through the coalescer so unchanged values aren't resent every loop
+  private final NTWriteCoalescer m_writer = NTWriteCoalescer.getInstance();
+  private final int m_ledModeHandle;
+  private final int m_camModeHandle;
+  private final int m_pipelineHandle;
+  private final int m_cropHandle;
+
+  private static final double[] NO_POSE = new double[0];
+  private static final double STATS_WINDOW_SECONDS = 1.0;
+
+  // Where fused pose measurements are sent (normally the drive pose estimator)
+  private BiConsumer<Pose2d, Double> m_poseConsumer;
+  private long m_lastPoseChange = 0;
 
   // LED modes
   public enum LEDMode {
@@ -33,6 +62,34 @@ public class VisionSubsystem extends SubsystemBase {
     }
   }
 
+  // Pipelines
+  public enum Pipeline {
+    APRILTAG(VisionConstants.kAprilTagPipeline),       // AprilTag localization and reef targeting
+    GAME_PIECE(VisionConstants.kGamePiecePipeline);    // Coral detection for intaking
+
+    public final int value;
+    Pipeline(int value) {
+      this.value = value;
+    }
+  }
+
+  // Automatic pipeline and crop control (disabled until configured)
+  private BooleanSupplier m_hasGamePiece;
+  private Supplier<Pose2d> m_poseSupplier;
+  private ReefTargeting m_targeting; // Our own instance - the crop query mustn't touch shared targeting state
+  private Pipeline m_currentPipeline = Pipeline.APRILTAG;
+  private double m_gamePieceSince = Double.NaN; // When the game-piece pipeline was last selected
+  private boolean m_aprilTagRequested = false; // A tag-steering command needs the AprilTag pipeline
+  private final double[] m_cropWindow = {-1.0, 1.0, -1.0, 1.0};
+
+  // Per-pipeline frame statistics (indexed by Pipeline ordinal)
+  private final int[] m_frameCount = new int[Pipeline.values().length];
+  private final double[] m_latencySum = new double[Pipeline.values().length];
+  private final double[] m_activeSeconds = new double[Pipeline.values().length];
+  private double m_statsWindowStart = Double.NaN;
+  private double m_lastStatsTime = Double.NaN;
+  private double m_lastHeartbeat = -1.0;
+
   // Camera modes
   public enum CameraMode {
     VISION(0),      // Vision processing mode
@@ -52,20 +109,279 @@ public class VisionSubsystem extends SubsystemBase {
     m_tv = m_limelight.getEntry("tv");
     m_ledMode = m_limelight.getEntry("ledMode");
     m_camMode = m_limelight.getEntry("camMode");
+    m_botPose = m_limelight.getEntry("botpose_wpiblue");
+    m_tl = m_limelight.getEntry("tl");
+    m_cl = m_limelight.getEntry("cl");
+    m_heartbeat = m_limelight.getEntry("hb");
+    m_pipeline = m_limelight.getEntry("pipeline");
+    m_crop = m_limelight.getEntry("crop");
+
+    m_ledModeHandle = m_writer.register(m_ledMode, "Limelight/ledMode");
+    m_camModeHandle = m_writer.register(m_camMode, "Limelight/camMode");
+    m_pipelineHandle = m_writer.register(m_pipeline, "Limelight/pipeline");
+    m_cropHandle = m_writer.register(m_crop, "Limelight/crop");
 
     // Start with LEDs off to save battery
     setLEDMode(LEDMode.OFF);
     setCameraMode(CameraMode.VISION);
+    setPipeline(Pipeline.APRILTAG);
+    m_writer.setNumberArray(m_cropHandle, m_cropWindow);
   }
 
   @Override
   public void periodic() {
     // Publish vision data to SmartDashboard
-    SmartDashboard.putBoolean("Vision/Has Target", hasTarget());
-    SmartDashboard.putNumber("Vision/X Offset", getHorizontalOffset());
-    SmartDashboard.putNumber("Vision/Y Offset", getVerticalOffset());
-    SmartDashboard.putNumber("Vision/Target Area", getTargetArea());
-    SmartDashboard.putNumber("Vision/Distance (m)", getDistanceToTarget());
+    m_writer.putBoolean("Vision/Has Target", hasTarget());
+    m_writer.putNumber("Vision/X Offset", getHorizontalOffset());
+    m_writer.putNumber("Vision/Y Offset", getVerticalOffset());
+    m_writer.putNumber("Vision/Target Area", getTargetArea());
+    m_writer.putNumber("Vision/Distance (m)", getDistanceToTarget());
+
+    // Pick the pipeline and crop window for the next frames
+    if (m_hasGamePiece != null) {
+      updatePipelineAndCrop();
+    }
+    updateFrameStats();
+
+    // Feed AprilTag pose measurements to the pose estimator
+    if (m_poseConsumer != null && hasTarget()) {
+      double[] botPose = m_botPose.getDoubleArray(NO_POSE);
+      // botpose layout: [x, y, z, roll, pitch, yaw, total latency (ms), ...]
+      long lastChange = m_botPose.getLastChange();
+      if (botPose.length >= 7 && (botPose[0] != 0.0 || botPose[1] != 0.0)
+          && lastChange != m_lastPoseChange) { // Only send each camera frame once
+        m_lastPoseChange = lastChange;
+        double timestamp = Timer.getFPGATimestamp() - botPose[6] / 1000.0;
+        m_poseConsumer.accept(
+            new Pose2d(botPose[0], botPose[1], Rotation2d.fromDegrees(botPose[5])),
+            timestamp);
+      }
+    }
+  }
+
+  /**
+   * Enable automatic pipeline and crop control
+   * Uses the AprilTag pipeline while holding coral (to score) and the game-piece
+   * pipeline otherwise (to intake), and crops the image around where the target is
+   * expected so the Limelight processes fewer pixels per frame. While intaking, the
+   * AprilTag pipeline still runs briefly every kPoseRefreshPeriodSeconds (unless a coral
+   * is in view) so the pose estimator keeps getting vision updates. Commands that steer on
+   * the reef tag override this with setAprilTagRequested().
+   *
+   * @param hasGamePiece Whether the robot is holding coral
+   * @param poseSupplier Fused robot pose
+   * @param fieldLayout Field layout used to predict where the reef tag is
+   */
+  public void configurePipelineControl(BooleanSupplier hasGamePiece, Supplier<Pose2d> poseSupplier,
+                                       AprilTagFieldLayout fieldLayout) {
+    m_hasGamePiece = hasGamePiece;
+    m_poseSupplier = poseSupplier;
+    m_targeting = new ReefTargeting(fieldLayout);
+    m_targeting.refreshAlliance();
+  }
+
+  /**
+   * Choose the pipeline from robot state and set the crop window
+   */
+  private void updatePipelineAndCrop() {
+    double now = Timer.getFPGATimestamp();
+    Pipeline pipeline;
+    if (m_hasGamePiece.getAsBoolean() || m_aprilTagRequested) {
+      pipeline = Pipeline.APRILTAG;
+      m_gamePieceSince = Double.NaN;
+    } else {
+      if (Double.isNaN(m_gamePieceSince)) {
+        m_gamePieceSince = now;
+      }
+      // Interleave short AprilTag slots for localization, but not while tracking a coral
+      double phase = (now - m_gamePieceSince) % VisionConstants.kPoseRefreshPeriodSeconds;
+      boolean trackingCoral = m_currentPipeline == Pipeline.GAME_PIECE && hasTarget();
+      pipeline = phase >= VisionConstants.kPoseRefreshPeriodSeconds - VisionConstants.kPoseRefreshSeconds
+          && !trackingCoral ? Pipeline.APRILTAG : Pipeline.GAME_PIECE;
+    }
+    if (pipeline == Pipeline.APRILTAG && m_currentPipeline != Pipeline.APRILTAG) {
+      // Alliance is only known once the DS connects - pick it up whenever tag tracking starts
+      m_targeting.refreshAlliance();
+    }
+    setPipeline(pipeline);
+
+    if (pipeline != Pipeline.APRILTAG) {
+      // Coral can be anywhere on the floor - use the full frame
+      setCropWindow(-1.0, 1.0, -1.0, 1.0);
+      return;
+    }
+
+    double halfHFov = VisionConstants.kLimelightHorizontalFovDegrees / 2.0;
+    double halfVFov = VisionConstants.kLimelightVerticalFovDegrees / 2.0;
+
+    if (hasTarget()) {
+      // Tracking: keep a tight window around where the tag was last seen
+      double margin = VisionConstants.kCropTrackingMarginDegrees + getTargetAngularRadius();
+      setCropAround(getHorizontalOffset(), getVerticalOffset(), margin, halfHFov, halfVFov);
+      return;
+    }
+
+    // Not tracking: predict where the nearest reef tag should appear from the pose
+    Pose2d pose = m_poseSupplier.get();
+    if (m_targeting.update(pose)) {
+      double heading = pose.getRotation().getRadians();
+      double fieldDx = m_targeting.getTargetTagX() - pose.getX();
+      double fieldDy = m_targeting.getTargetTagY() - pose.getY();
+      double forward = fieldDx * Math.cos(heading) + fieldDy * Math.sin(heading);
+      double left = -fieldDx * Math.sin(heading) + fieldDy * Math.cos(heading);
+
+      if (forward > 0.0) {
+        double tx = -Math.toDegrees(Math.atan2(left, forward));
+        double ty = Math.toDegrees(Math.atan2(
+            VisionConstants.kReefTagHeightMeters - VisionConstants.kLimelightHeightMeters, forward))
+            - VisionConstants.kLimelightMountAngleDegrees;
+        if (Math.abs(tx) < halfHFov && Math.abs(ty) < halfVFov) {
+          setCropAround(tx, ty, VisionConstants.kCropPredictedMarginDegrees, halfHFov, halfVFov);
+          return;
+        }
+      }
+    }
+
+    // Target position unknown - search the full frame
+    setCropWindow(-1.0, 1.0, -1.0, 1.0);
+  }
+
+  /**
+   * Approximate angular radius of the tracked tag from its image area
+   *
+   * @return Radius in degrees
+   */
+  private double getTargetAngularRadius() {
+    // ta is percent of the image, so sqrt gives the fraction of the image width
+    double fraction = Math.sqrt(Math.max(0.0, getTargetArea()) / 100.0);
+    return fraction * VisionConstants.kLimelightHorizontalFovDegrees / 2.0;
+  }
+
+  /**
+   * Set the crop window centered on an angle in the image
+   */
+  private void setCropAround(double txDegrees, double tyDegrees, double marginDegrees,
+                             double halfHFov, double halfVFov) {
+    setCropWindow(
+        (txDegrees - marginDegrees) / halfHFov,
+        (txDegrees + marginDegrees) / halfHFov,
+        (tyDegrees - marginDegrees) / halfVFov,
+        (tyDegrees + marginDegrees) / halfVFov);
+  }
+
+  /**
+   * Set the Limelight crop window (only sends it if it changed)
+   * Coordinates are normalized to the image: -1 is left/bottom, 1 is right/top
+   *
+   * @param xMin Left edge
+   * @param xMax Right edge
+   * @param yMin Bottom edge
+   * @param yMax Top edge
+   */
+  public void setCropWindow(double xMin, double xMax, double yMin, double yMax) {
+    xMin = Math.max(-1.0, xMin);
+    xMax = Math.min(1.0, xMax);
+    yMin = Math.max(-1.0, yMin);
+    yMax = Math.min(1.0, yMax);
+
+    // Skip tiny changes so the crop isn't rewritten every loop
+    final double epsilon = 0.02;
+    if (Math.abs(xMin - m_cropWindow[0]) < epsilon && Math.abs(xMax - m_cropWindow[1]) < epsilon &&
+        Math.abs(yMin - m_cropWindow[2]) < epsilon && Math.abs(yMax - m_cropWindow[3]) < epsilon) {
+      return;
+    }
+
+    m_cropWindow[0] = xMin;
+    m_cropWindow[1] = xMax;
+    m_cropWindow[2] = yMin;
+    m_cropWindow[3] = yMax;
+    m_writer.setNumberArray(m_cropHandle, m_cropWindow);
+  }
+
+  /**
+   * Select the Limelight pipeline
+   *
+   * @param pipeline Pipeline to use
+   */
+  public void setPipeline(Pipeline pipeline) {
+    m_writer.setNumber(m_pipelineHandle, pipeline.value);
+    m_currentPipeline = pipeline;
+  }
+
+  /**
+   * Hold the AprilTag pipeline regardless of intake state (for commands that steer on tx)
+   *
+   * @param requested true from the command's start until it ends
+   */
+  public void setAprilTagRequested(boolean requested) {
+    m_aprilTagRequested = requested;
+    if (requested && m_hasGamePiece != null) {
+      updatePipelineAndCrop(); // Switch now instead of on the next loop
+    }
+  }
+
+  /**
+   * Get total camera latency for the latest frame
+   *
+   * @return Pipeline plus capture latency in milliseconds
+   */
+  public double getLatencyMs() {
+    return m_tl.getDouble(0.0) + m_cl.getDouble(0.0);
+  }
+
+  /**
+   * Count processed frames per pipeline and publish achieved FPS and latency
+   */
+  private void updateFrameStats() {
+    double heartbeat = m_heartbeat.getDouble(-1.0);
+    int index = m_currentPipeline.ordinal();
+    if (heartbeat != m_lastHeartbeat) {
+      // The camera can process several frames per robot loop
+      int newFrames = (int) (heartbeat - m_lastHeartbeat);
+      if (m_lastHeartbeat < 0 || newFrames < 1 || newFrames > 10) {
+        newFrames = 1; // First frame or camera restarted
+      }
+      m_lastHeartbeat = heartbeat;
+      m_frameCount[index] += newFrames;
+      m_latencySum[index] += getLatencyMs() * newFrames;
+    }
+
+    // Track how long each pipeline was active so FPS is per pipeline, not per window
+    double now = Timer.getFPGATimestamp();
+    if (Double.isNaN(m_lastStatsTime)) {
+      m_lastStatsTime = now; // First window starts now, not at boot
+      m_statsWindowStart = now;
+    }
+    m_activeSeconds[index] += now - m_lastStatsTime;
+    m_lastStatsTime = now;
+    if (now - m_statsWindowStart < STATS_WINDOW_SECONDS) {
+      return;
+    }
+
+    for (Pipeline pipeline : Pipeline.values()) {
+      int i = pipeline.ordinal();
+      if (m_frameCount[i] > 0 && m_activeSeconds[i] > 0.0) {
+        m_writer.putNumber("Vision/" + pipeline.name() + "/FPS",
+            m_frameCount[i] / m_activeSeconds[i]);
+        m_writer.putNumber("Vision/" + pipeline.name() + "/Latency (ms)",
+            m_latencySum[i] / m_frameCount[i]);
+      }
+      m_frameCount[i] = 0;
+      m_latencySum[i] = 0.0;
+      m_activeSeconds[i] = 0.0;
+    }
+    m_writer.putString("Vision/Pipeline", m_currentPipeline.name());
+    m_statsWindowStart = now;
+  }
+
+  /**
+   * Set where vision pose measurements are sent
+   * Normally this is the drive subsystem's pose estimator
+   *
+   * @param poseConsumer Consumer of (field pose, capture timestamp in seconds)
+   */
+  public void setPoseConsumer(BiConsumer<Pose2d, Double> poseConsumer) {
+    m_poseConsumer = poseConsumer;
   }
 
   /**
@@ -162,7 +478,7 @@ public class VisionSubsystem extends SubsystemBase {
    * @param mode LED mode to set
    */
   public void setLEDMode(LEDMode mode) {
-    m_ledMode.setNumber(mode.value);
+    m_writer.setNumber(m_ledModeHandle, mode.value);
   }
 
   /**
@@ -171,7 +487,7 @@ public class VisionSubsystem extends SubsystemBase {
    * @param mode Camera mode to set
    */
   public void setCameraMode(CameraMode mode) {
-    m_camMode.setNumber(mode.value);
+    m_writer.setNumber(m_camModeHandle, mode.value);
   }
 
   /**
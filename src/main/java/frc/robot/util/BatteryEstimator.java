@@ -0,0 +1,171 @@
+package frc.robot.util;
+
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * Online battery model from paired voltage/current samples
+ * The battery (plus main breaker and wiring) is modeled as an open-circuit voltage behind an
+ * internal resistance: V = Voc - R * I. Both are fit by recursive least squares with a
+ * forgetting factor, so the model follows the battery as it discharges and heats up. With
+ * the fit, the voltage a current draw would produce can be predicted before it happens, and
+ * the largest draw that keeps the voltage above a floor can be found.
+ *
+ * R is only observable while the current changes. The covariance is capped so it can't wind
+ * up during steady draw, the estimates are clamped to physical ranges, and the fit isn't
+ * reported as converged until the current has spread enough to separate Voc from R. Until
+ * then predictions use the nominal resistance.
+ *
+ * update() is called from the main loop with each PDH sample, while predictions may be read
+ * from other threads, so each result is published as one immutable estimate - a reader never
+ * pairs the voltage of one fit with the resistance of another.
+ */
+public class BatteryEstimator {
+  private static final double INITIAL_VOC_VARIANCE = 1.0; // V² - also the covariance cap
+  private static final double INITIAL_R_VARIANCE = 1e-4; // Ohm²
+  private static final int MIN_SAMPLES = 50; // Before the fit can be trusted
+  private static final double MIN_RESISTANCE = 1e-6; // Guards the max current division
+
+  /**
+   * A published fit - Voc and R always come from the same update
+   */
+  private static final class Estimate {
+    final double voc;
+    final double resistance;
+    final boolean converged;
+
+    Estimate(double voc, double resistance, boolean converged) {
+      this.voc = voc;
+      this.resistance = resistance;
+      this.converged = converged;
+    }
+  }
+
+  // Fit state: theta = [Voc, R], regressor = [1, -I]
+  private double m_voc = Double.NaN;
+  private double m_resistance = PowerConstants.kNominalBatteryResistanceOhms;
+  private double m_p00 = INITIAL_VOC_VARIANCE;
+  private double m_p01 = 0.0;
+  private double m_p11 = INITIAL_R_VARIANCE;
+
+  // Excitation - the spread of current over the forgetting window
+  private double m_currentMean = 0.0;
+  private double m_currentVariance = 0.0;
+  private int m_samples = 0;
+  private boolean m_converged = false;
+
+  private volatile Estimate m_estimate =
+      new Estimate(Double.NaN, PowerConstants.kNominalBatteryResistanceOhms, false);
+
+  /**
+   * Process a new sample
+   * Voltage and current must be measured together (e.g. from the same PDH snapshot).
+   *
+   * @param voltage Battery voltage (volts)
+   * @param current Total current draw (amps)
+   */
+  public synchronized void update(double voltage, double current) {
+    if (!Double.isFinite(voltage) || !Double.isFinite(current) || voltage <= 0.0) {
+      return;
+    }
+    double lambda = PowerConstants.kBatteryForgettingFactor;
+
+    // Start from the nominal resistance
+    if (Double.isNaN(m_voc)) {
+      m_voc = clampVoc(voltage + m_resistance * current);
+      m_currentMean = current;
+    }
+
+    // Recursive least squares step
+    double phi1 = -current;
+    double a = m_p00 + m_p01 * phi1; // P * phi
+    double b = m_p01 + m_p11 * phi1;
+    double denominator = lambda + a + phi1 * b;
+    double k0 = a / denominator;
+    double k1 = b / denominator;
+    double error = voltage - (m_voc + m_resistance * phi1);
+
+    m_voc = clampVoc(m_voc + k0 * error);
+    m_resistance = Math.max(PowerConstants.kMinBatteryResistanceOhms,
+                            Math.min(PowerConstants.kMaxBatteryResistanceOhms, m_resistance + k1 * error));
+
+    m_p00 = (m_p00 - k0 * a) / lambda;
+    m_p01 = (m_p01 - k0 * b) / lambda;
+    m_p11 = (m_p11 - k1 * b) / lambda;
+
+    // Cap the covariance - without excitation it grows without bound under forgetting
+    double s0 = Math.min(1.0, INITIAL_VOC_VARIANCE / m_p00);
+    double s1 = Math.min(1.0, INITIAL_R_VARIANCE / m_p11);
+    m_p00 *= s0;
+    m_p11 *= s1;
+    m_p01 *= Math.sqrt(s0 * s1);
+
+    // Current spread over the same window
+    double delta = current - m_currentMean;
+    m_currentMean += (1.0 - lambda) * delta;
+    m_currentVariance = lambda * (m_currentVariance + (1.0 - lambda) * delta * delta);
+    m_samples++;
+
+    if (!m_converged && m_samples >= MIN_SAMPLES
+        && Math.sqrt(m_currentVariance) >= PowerConstants.kMinCurrentSpreadAmps) {
+      m_converged = true;
+    }
+
+    if (m_converged) {
+      m_estimate = new Estimate(m_voc, m_resistance, true);
+    } else {
+      // Pivot the nominal resistance line through the fit at the operating current
+      double nominal = PowerConstants.kNominalBatteryResistanceOhms;
+      m_estimate = new Estimate(m_voc + (nominal - m_resistance) * m_currentMean, nominal, false);
+    }
+  }
+
+  private static double clampVoc(double voc) {
+    return Math.max(PowerConstants.kMinOpenCircuitVoltage, Math.min(PowerConstants.kMaxOpenCircuitVoltage, voc));
+  }
+
+  /**
+   * Predict the battery voltage at a current draw
+   *
+   * @param current Total current draw (amps)
+   * @return Predicted voltage, or NaN before the first sample
+   */
+  public double predictVoltage(double current) {
+    Estimate estimate = m_estimate;
+    return estimate.voc - estimate.resistance * current;
+  }
+
+  /**
+   * Get the largest total current draw that keeps the voltage above a floor
+   *
+   * @param minVoltage Voltage floor (volts)
+   * @return Current in amps (0 if already below the floor), or infinity before the first sample
+   */
+  public double getMaxCurrent(double minVoltage) {
+    Estimate estimate = m_estimate;
+    if (Double.isNaN(estimate.voc)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return Math.max(0.0, (estimate.voc - minVoltage) / Math.max(MIN_RESISTANCE, estimate.resistance));
+  }
+
+  /**
+   * @return Estimated open-circuit voltage (volts), or NaN before the first sample
+   */
+  public double getOpenCircuitVoltage() {
+    return m_estimate.voc;
+  }
+
+  /**
+   * @return Estimated internal resistance (ohms), nominal until converged
+   */
+  public double getInternalResistance() {
+    return m_estimate.resistance;
+  }
+
+  /**
+   * @return true once the current has varied enough to fit the resistance
+   */
+  public boolean isConverged() {
+    return m_estimate.converged;
+  }
+}
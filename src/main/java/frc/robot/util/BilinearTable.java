@@ -0,0 +1,217 @@
+package frc.robot.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 2D lookup table on a uniform grid with bilinear interpolation
+ * Values are stored in a flat primitive array, and lookups compute the cell index
+ * arithmetically (no search, no branches), so it's cheap enough for a 200Hz loop.
+ * Inputs outside the grid are clamped to the edge.
+ *
+ * CSV format (lines starting with # are comments):
+ *   y\x,x0,x1,...
+ *   y0,v00,v01,...
+ *   y1,v10,v11,...
+ */
+public class BilinearTable {
+  private final double m_xMin;
+  private final double m_xStep;
+  private final int m_xCount;
+  private final double m_yMin;
+  private final double m_yStep;
+  private final int m_yCount;
+  private final double[] m_values; // Row-major: m_values[yIndex * m_xCount + xIndex]
+
+  /**
+   * Creates a table filled with zeros
+   *
+   * @param xMin First x grid value
+   * @param xStep Spacing between x grid values
+   * @param xCount Number of x grid values (at least 2)
+   * @param yMin First y grid value
+   * @param yStep Spacing between y grid values
+   * @param yCount Number of y grid values (at least 2)
+   */
+  public BilinearTable(double xMin, double xStep, int xCount,
+                       double yMin, double yStep, int yCount) {
+    if (xCount < 2 || yCount < 2 || xStep <= 0 || yStep <= 0) {
+      throw new IllegalArgumentException("Table needs at least 2x2 points with positive spacing");
+    }
+    m_xMin = xMin;
+    m_xStep = xStep;
+    m_xCount = xCount;
+    m_yMin = yMin;
+    m_yStep = yStep;
+    m_yCount = yCount;
+    m_values = new double[xCount * yCount];
+  }
+
+  /**
+   * Look up an interpolated value
+   *
+   * @param x X input (clamped to the grid)
+   * @param y Y input (clamped to the grid)
+   * @return Bilinearly interpolated value
+   */
+  public double get(double x, double y) {
+    double fx = Math.max(0.0, Math.min(m_xCount - 1, (x - m_xMin) / m_xStep));
+    double fy = Math.max(0.0, Math.min(m_yCount - 1, (y - m_yMin) / m_yStep));
+    int ix = Math.min((int) fx, m_xCount - 2);
+    int iy = Math.min((int) fy, m_yCount - 2);
+    double tx = fx - ix;
+    double ty = fy - iy;
+
+    int i = iy * m_xCount + ix;
+    double bottom = m_values[i] + (m_values[i + 1] - m_values[i]) * tx;
+    double top = m_values[i + m_xCount] + (m_values[i + m_xCount + 1] - m_values[i + m_xCount]) * tx;
+    return bottom + (top - bottom) * ty;
+  }
+
+  /**
+   * Set the value at a grid point
+   *
+   * @param xIndex X grid index
+   * @param yIndex Y grid index
+   * @param value Value to store
+   */
+  public void set(int xIndex, int yIndex, double value) {
+    m_values[yIndex * m_xCount + xIndex] = value;
+  }
+
+  /**
+   * Get the value at a grid point
+   *
+   * @param xIndex X grid index
+   * @param yIndex Y grid index
+   * @return Stored value
+   */
+  public double getPoint(int xIndex, int yIndex) {
+    return m_values[yIndex * m_xCount + xIndex];
+  }
+
+  public int getXCount() {
+    return m_xCount;
+  }
+
+  public int getYCount() {
+    return m_yCount;
+  }
+
+  /**
+   * Get the x value of a grid column
+   *
+   * @param xIndex X grid index
+   * @return X value
+   */
+  public double getX(int xIndex) {
+    return m_xMin + xIndex * m_xStep;
+  }
+
+  /**
+   * Get the y value of a grid row
+   *
+   * @param yIndex Y grid index
+   * @return Y value
+   */
+  public double getY(int yIndex) {
+    return m_yMin + yIndex * m_yStep;
+  }
+
+  /**
+   * Load a table from a CSV file
+   *
+   * @param path File to read
+   * @return The loaded table
+   * @throws IOException If the file can't be read or the grid isn't uniform
+   */
+  public static BilinearTable loadCsv(Path path) throws IOException {
+    List<double[]> rows = new ArrayList<>();
+    double[] xs = null;
+
+    for (String line : Files.readAllLines(path)) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] cells = line.split(",");
+      double[] numbers = new double[cells.length - 1];
+      try {
+        for (int i = 1; i < cells.length; i++) {
+          numbers[i - 1] = Double.parseDouble(cells[i].trim());
+        }
+        if (xs == null) {
+          xs = numbers; // Header row holds the x grid
+        } else {
+          double[] row = new double[numbers.length + 1];
+          row[0] = Double.parseDouble(cells[0].trim());
+          System.arraycopy(numbers, 0, row, 1, numbers.length);
+          rows.add(row);
+        }
+      } catch (NumberFormatException e) {
+        throw new IOException("Bad number in " + path + ": " + line, e);
+      }
+    }
+
+    if (xs == null || xs.length < 2 || rows.size() < 2) {
+      throw new IOException(path + " needs a header row and at least 2x2 values");
+    }
+
+    double[] ys = new double[rows.size()];
+    for (int i = 0; i < ys.length; i++) {
+      ys[i] = rows.get(i)[0];
+    }
+
+    BilinearTable table = new BilinearTable(
+        xs[0], xs[1] - xs[0], xs.length, ys[0], ys[1] - ys[0], ys.length);
+    checkUniform(xs, table.m_xStep, path);
+    checkUniform(ys, table.m_yStep, path);
+
+    for (int iy = 0; iy < ys.length; iy++) {
+      double[] row = rows.get(iy);
+      if (row.length != xs.length + 1) {
+        throw new IOException(path + ": row " + iy + " has " + (row.length - 1) + " values, expected " + xs.length);
+      }
+      for (int ix = 0; ix < xs.length; ix++) {
+        table.set(ix, iy, row[ix + 1]);
+      }
+    }
+    return table;
+  }
+
+  private static void checkUniform(double[] axis, double step, Path path) throws IOException {
+    for (int i = 1; i < axis.length; i++) {
+      if (Math.abs(axis[i] - axis[i - 1] - step) > 1e-6 * Math.max(1.0, Math.abs(step))) {
+        throw new IOException(path + ": grid spacing must be uniform and increasing");
+      }
+    }
+  }
+
+  /**
+   * Write the table to a CSV file (same format as loadCsv)
+   *
+   * @param path File to write
+   * @param comment Comment line written at the top of the file
+   * @throws IOException If the file can't be written
+   */
+  public void writeCsv(Path path, String comment) throws IOException {
+    StringBuilder csv = new StringBuilder();
+    csv.append("# ").append(comment).append('\n');
+    csv.append("y\\x");
+    for (int ix = 0; ix < m_xCount; ix++) {
+      csv.append(',').append(getX(ix));
+    }
+    csv.append('\n');
+    for (int iy = 0; iy < m_yCount; iy++) {
+      csv.append(getY(iy));
+      for (int ix = 0; ix < m_xCount; ix++) {
+        csv.append(',').append(String.format("%.4f", getPoint(ix, iy)));
+      }
+      csv.append('\n');
+    }
+    Files.writeString(path, csv);
+  }
+}
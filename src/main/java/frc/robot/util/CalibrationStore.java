@@ -0,0 +1,350 @@
+package frc.robot.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Runtime calibration values (arm setpoints, swerve offsets) stored on the roboRIO
+ * The values live in calibration.json in /home/lvuser (simulation/ in the project when simulating,
+ * so nothing lands in the source tree), which can be edited by hand. A compact
+ * binary cache next to it is stamped with the JSON file's size and modification time, so a
+ * normal boot reads the cache and never has to load the JSON parser.
+ *
+ * A background thread writes changes made with put() and watches the JSON file. When the file
+ * changes it is reloaded, and listeners are called from update() on the main robot thread.
+ * Keys use dotted names, e.g. "arm.LEVEL_2.angle" or "swerve.FL.offset".
+ */
+public final class CalibrationStore {
+  private static CalibrationStore s_instance;
+
+  private static final String JSON_FILE = "calibration.json";
+  private static final String CACHE_FILE = "calibration.bin";
+  private static final String SIM_DIRECTORY = "simulation"; // Ignored by git
+  private static final int CACHE_MAGIC = 0x43414C42; // "CALB"
+  private static final int CACHE_VERSION = 1;
+  private static final long POLL_PERIOD_MS = 500;
+
+  private final Path m_jsonFile;
+  private final Path m_cacheFile;
+  private ObjectMapper m_mapper; // Created on first use - only needed when the JSON changed
+
+  // Immutable snapshot, replaced on every change
+  private volatile Map<String, Double> m_values = Collections.emptyMap();
+  private volatile int m_version = 0;
+  private int m_notifiedVersion = 0;
+  private boolean m_dirty = false; // guarded by this
+
+  // JSON file stamp when it was last read or written (watcher thread only)
+  private long m_jsonSize = -1;
+  private long m_jsonModified = -1;
+
+  private final List<Runnable> m_listeners = new ArrayList<>();
+
+  /**
+   * Get the shared calibration store (loads it on first use)
+   *
+   * @return The store instance
+   */
+  public static synchronized CalibrationStore getInstance() {
+    if (s_instance == null) {
+      s_instance = new CalibrationStore(getStorageDirectory());
+      s_instance.start();
+    }
+    return s_instance;
+  }
+
+  /**
+   * Get the directory for files the robot writes at runtime (calibration, homing, characterization)
+   *
+   * @return /home/lvuser on the robot, the simulation directory when simulating
+   */
+  public static Path getStorageDirectory() {
+    Path directory = Filesystem.getOperatingDirectory().toPath();
+    if (RobotBase.isReal()) {
+      return directory;
+    }
+    Path simDirectory = directory.resolve(SIM_DIRECTORY);
+    try {
+      Files.createDirectories(simDirectory);
+      return simDirectory;
+    } catch (IOException e) {
+      System.err.println("⚠️ Could not create " + simDirectory + " - writing to " + directory);
+      return directory;
+    }
+  }
+
+  private CalibrationStore(Path directory) {
+    m_jsonFile = directory.resolve(JSON_FILE);
+    m_cacheFile = directory.resolve(CACHE_FILE);
+    load();
+  }
+
+  /**
+   * Get a calibration value
+   * Missing keys are added with their default, so the file lists everything that can be calibrated.
+   *
+   * @param key Dotted key
+   * @param defaultValue Value used when nothing is calibrated yet
+   * @return The calibrated value
+   */
+  public double get(String key, double defaultValue) {
+    Double value = m_values.get(key);
+    if (value != null) {
+      return value;
+    }
+    synchronized (this) {
+      if (!m_values.containsKey(key)) {
+        Map<String, Double> values = new TreeMap<>(m_values);
+        values.put(key, defaultValue);
+        m_values = Collections.unmodifiableMap(values);
+        m_dirty = true;
+      }
+      return m_values.get(key);
+    }
+  }
+
+  /**
+   * Set a calibration value - listeners see it on the next update(), the file is written in the background
+   *
+   * @param key Dotted key
+   * @param value New value
+   */
+  public synchronized void put(String key, double value) {
+    Map<String, Double> values = new TreeMap<>(m_values);
+    values.put(key, value);
+    m_values = Collections.unmodifiableMap(values);
+    m_dirty = true;
+    m_version++;
+  }
+
+  /**
+   * Register a listener called (on the main thread) whenever values change
+   *
+   * @param listener Called from update() after a put() or a reload
+   */
+  public void addListener(Runnable listener) {
+    m_listeners.add(listener);
+  }
+
+  /**
+   * Notify listeners of changes - call once per loop
+   */
+  public void update() {
+    int version = m_version;
+    if (version == m_notifiedVersion) {
+      return;
+    }
+    m_notifiedVersion = version;
+    for (Runnable listener : m_listeners) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Load at boot: binary cache if it matches the JSON file, otherwise parse the JSON
+   */
+  private void load() {
+    try {
+      if (!Files.exists(m_jsonFile)) {
+        System.out.println("No " + JSON_FILE + " yet - using default calibration");
+        return;
+      }
+      BasicFileAttributes attributes = Files.readAttributes(m_jsonFile, BasicFileAttributes.class);
+      m_jsonSize = attributes.size();
+      m_jsonModified = attributes.lastModifiedTime().toMillis();
+
+      Map<String, Double> cached = readCache(m_jsonSize, m_jsonModified);
+      if (cached != null) {
+        m_values = Collections.unmodifiableMap(cached);
+        System.out.println("✓ Calibration loaded from cache (" + cached.size() + " values)");
+        return;
+      }
+
+      m_values = Collections.unmodifiableMap(readJson());
+      writeCache(m_values, m_jsonSize, m_jsonModified);
+      System.out.println("✓ Calibration loaded from " + JSON_FILE + " (" + m_values.size() + " values)");
+    } catch (IOException e) {
+      System.err.println("⚠️ Could not load calibration - using defaults: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Start the background writer/watcher thread
+   */
+  private void start() {
+    Thread watcher = new Thread(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        try {
+          Thread.sleep(POLL_PERIOD_MS);
+          poll();
+        } catch (InterruptedException e) {
+          return;
+        } catch (IOException e) {
+          System.err.println("⚠️ Calibration store error: " + e.getMessage());
+        }
+      }
+    }, "CalibrationStore");
+    watcher.setDaemon(true);
+    watcher.setPriority(Thread.MIN_PRIORITY);
+    watcher.start();
+  }
+
+  /**
+   * Write pending changes, or reload the JSON file if someone else changed it
+   */
+  private void poll() throws IOException {
+    Map<String, Double> toWrite = null;
+    synchronized (this) {
+      if (m_dirty) {
+        m_dirty = false;
+        toWrite = m_values;
+      }
+    }
+
+    if (toWrite != null) {
+      writeJson(toWrite);
+      return;
+    }
+
+    if (!Files.exists(m_jsonFile)) {
+      return;
+    }
+    BasicFileAttributes attributes = Files.readAttributes(m_jsonFile, BasicFileAttributes.class);
+    long size = attributes.size();
+    long modified = attributes.lastModifiedTime().toMillis();
+    if (size == m_jsonSize && modified == m_jsonModified) {
+      return;
+    }
+
+    Map<String, Double> values = readJson();
+    m_jsonSize = size;
+    m_jsonModified = modified;
+    writeCache(values, size, modified);
+    synchronized (this) {
+      m_values = Collections.unmodifiableMap(values);
+      m_version++;
+    }
+    System.out.println("✓ Calibration reloaded from " + JSON_FILE + " (" + values.size() + " values)");
+  }
+
+  private ObjectMapper mapper() {
+    if (m_mapper == null) {
+      m_mapper = new ObjectMapper();
+    }
+    return m_mapper;
+  }
+
+  /**
+   * Parse the JSON file, dropping keys without a value (they go back to their defaults)
+   */
+  private Map<String, Double> readJson() throws IOException {
+    TreeMap<String, Double> values =
+        mapper().readValue(m_jsonFile.toFile(), new TypeReference<TreeMap<String, Double>>() {});
+    values.entrySet().removeIf(entry -> {
+      if (entry.getValue() != null) {
+        return false;
+      }
+      System.err.println("⚠️ Calibration " + entry.getKey() + " is null in " + JSON_FILE + " - using the default");
+      return true;
+    });
+    return values;
+  }
+
+  /**
+   * Write the JSON file (temp file + atomic rename) and refresh the cache
+   */
+  private void writeJson(Map<String, Double> values) throws IOException {
+    Path temp = m_jsonFile.resolveSibling(JSON_FILE + ".tmp");
+    mapper().writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), values);
+    Files.move(temp, m_jsonFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+    BasicFileAttributes attributes = Files.readAttributes(m_jsonFile, BasicFileAttributes.class);
+    m_jsonSize = attributes.size();
+    m_jsonModified = attributes.lastModifiedTime().toMillis();
+    writeCache(values, m_jsonSize, m_jsonModified);
+  }
+
+  /**
+   * Read the binary cache
+   *
+   * @return The values, or null if the cache is missing, corrupt, or stale
+   */
+  private Map<String, Double> readCache(long jsonSize, long jsonModified) throws IOException {
+    if (!Files.exists(m_cacheFile)) {
+      return null;
+    }
+    byte[] bytes = Files.readAllBytes(m_cacheFile);
+    if (bytes.length < 4) {
+      return null;
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length - 4);
+    if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+      System.err.println("⚠️ Calibration cache checksum mismatch - reading JSON");
+      return null;
+    }
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+    if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION
+        || in.readLong() != jsonSize || in.readLong() != jsonModified) {
+      return null;
+    }
+    int count = in.readInt();
+    Map<String, Double> values = new TreeMap<>();
+    for (int i = 0; i < count; i++) {
+      values.put(in.readUTF(), in.readDouble());
+    }
+    return values;
+  }
+
+  /**
+   * Write the binary cache stamped with the JSON file it was built from
+   */
+  private void writeCache(Map<String, Double> values, long jsonSize, long jsonModified) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(CACHE_MAGIC);
+    out.writeInt(CACHE_VERSION);
+    out.writeLong(jsonSize);
+    out.writeLong(jsonModified);
+    out.writeInt(values.size());
+    for (Map.Entry<String, Double> entry : values.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeDouble(entry.getValue());
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes.toByteArray());
+    out.writeInt((int) crc.getValue());
+
+    Path temp = m_cacheFile.resolveSibling(CACHE_FILE + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+      channel.force(true);
+    }
+    Files.move(temp, m_cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+}
@@ -0,0 +1,352 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Shared fault detection for every motor on the robot
+ * Each motor registers its current and velocity signals. These are sampled into primitive
+ * ring-buffer windows, which give moving averages. Subsystems attach declarative rules
+ * (current spike, stall, I²t thermal) with a listener that is called when a rule trips.
+ *
+ * update() runs once per loop from robotPeriodic(). It evaluates motors round-robin and
+ * stops when the per-loop time budget is used up, so a slow loop can never grow because of
+ * fault checks. Each motor uses its own sample interval, so the statistics stay correct
+ * even if a motor is skipped for a loop.
+ */
+public final class FaultMonitor {
+  private static FaultMonitor s_instance;
+
+  private static final int WINDOW = 8; // Samples per moving-average window (power of 2)
+  private static final int WINDOW_MASK = WINDOW - 1;
+  private static final long BUDGET_NANOS = 1_000_000; // 1 ms per loop
+  private static final double MAX_SAMPLE_DT = 0.1; // seconds - ignore gaps longer than this
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Kind of fault a rule detects */
+  public enum FaultType {
+    CURRENT_SPIKE,
+    STALL,
+    THERMAL
+  }
+
+  /** Called when a rule trips (on the main robot thread) */
+  @FunctionalInterface
+  public interface Listener {
+    /**
+     * @param motorName Name the motor was registered with
+     * @param rule The rule that tripped
+     * @param value Signal value that tripped it (amps, or A²s for thermal)
+     */
+    void onFault(String motorName, Rule rule, double value);
+  }
+
+  /**
+   * A declarative fault rule
+   */
+  public static final class Rule {
+    public final FaultType type;
+    public final double currentThreshold; // Amps (continuous rating for THERMAL)
+    public final double velocityThreshold; // Max |velocity| for STALL (encoder units)
+    public final double limit; // A²s above the continuous rating for THERMAL
+    public final double duration; // Seconds the condition must hold
+
+    private Rule(FaultType type, double currentThreshold, double velocityThreshold,
+                 double limit, double duration) {
+      this.type = type;
+      this.currentThreshold = currentThreshold;
+      this.velocityThreshold = velocityThreshold;
+      this.limit = limit;
+      this.duration = duration;
+    }
+
+    /**
+     * Average current above a threshold for a duration
+     *
+     * @param amps Current threshold
+     * @param seconds How long the average must stay above it
+     * @return The rule
+     */
+    public static Rule currentSpike(double amps, double seconds) {
+      return new Rule(FaultType.CURRENT_SPIKE, amps, 0.0, 0.0, seconds);
+    }
+
+    /**
+     * High current while the motor isn't moving
+     *
+     * @param amps Average current threshold
+     * @param maxVelocity Average |velocity| below which the motor counts as stopped
+     * @param seconds How long both must hold
+     * @return The rule
+     */
+    public static Rule stall(double amps, double maxVelocity, double seconds) {
+      return new Rule(FaultType.STALL, amps, maxVelocity, 0.0, seconds);
+    }
+
+    /**
+     * I²t thermal estimate - integrates (I² - I_continuous²) and trips above a limit
+     *
+     * @param continuousAmps Current the motor can carry indefinitely
+     * @param limitAmpSquaredSeconds Accumulated A²s that trips the rule
+     * @return The rule
+     */
+    public static Rule thermal(double continuousAmps, double limitAmpSquaredSeconds) {
+      return new Rule(FaultType.THERMAL, continuousAmps, 0.0, limitAmpSquaredSeconds, 0.0);
+    }
+
+    @Override
+    public String toString() {
+      switch (type) {
+        case CURRENT_SPIKE:
+          return "current spike (>" + currentThreshold + "A for " + duration + "s)";
+        case STALL:
+          return "stall (>" + currentThreshold + "A below " + velocityThreshold + " for " + duration + "s)";
+        default:
+          return "I²t thermal (" + currentThreshold + "A continuous, " + limit + "A²s)";
+      }
+    }
+  }
+
+  /**
+   * Per-rule state
+   */
+  private static final class RuleState {
+    final int handle;
+    final Rule rule;
+    final Listener listener;
+    double conditionTime = 0.0;
+    double accumulator = 0.0; // I²t for THERMAL rules
+    boolean active = false;
+
+    RuleState(int handle, Rule rule, Listener listener) {
+      this.handle = handle;
+      this.rule = rule;
+      this.listener = listener;
+    }
+  }
+
+  // Per-motor signals and statistics (indexed by motor handle)
+  private int m_count = 0;
+  private String[] m_names = new String[INITIAL_CAPACITY];
+  private DoubleSupplier[] m_currentSignals = new DoubleSupplier[INITIAL_CAPACITY];
+  private DoubleSupplier[] m_velocitySignals = new DoubleSupplier[INITIAL_CAPACITY];
+  private double[] m_currentWindow = new double[INITIAL_CAPACITY * WINDOW];
+  private double[] m_velocityWindow = new double[INITIAL_CAPACITY * WINDOW];
+  private double[] m_currentSum = new double[INITIAL_CAPACITY];
+  private double[] m_velocitySum = new double[INITIAL_CAPACITY];
+  private int[] m_head = new int[INITIAL_CAPACITY];
+  private int[] m_samples = new int[INITIAL_CAPACITY];
+  private double[] m_lastSampleTime = new double[INITIAL_CAPACITY];
+  private final List<List<RuleState>> m_rules = new ArrayList<>();
+
+  private int m_nextMotor = 0;
+  private int m_nextRuleHandle = 0;
+  private int m_activeFaults = 0;
+  private String m_lastFault = "None";
+
+  /**
+   * Get the shared fault monitor
+   *
+   * @return The monitor instance
+   */
+  public static synchronized FaultMonitor getInstance() {
+    if (s_instance == null) {
+      s_instance = new FaultMonitor();
+    }
+    return s_instance;
+  }
+
+  private FaultMonitor() {}
+
+  /**
+   * Register a motor's signals
+   *
+   * @param name Motor name for events and telemetry
+   * @param current Output current supplier (amps)
+   * @param velocity Velocity supplier (encoder units - only used by stall rules)
+   * @return Motor handle for addRule() and queries
+   */
+  public int registerMotor(String name, DoubleSupplier current, DoubleSupplier velocity) {
+    if (m_count == m_names.length) {
+      int capacity = m_names.length * 2;
+      m_names = Arrays.copyOf(m_names, capacity);
+      m_currentSignals = Arrays.copyOf(m_currentSignals, capacity);
+      m_velocitySignals = Arrays.copyOf(m_velocitySignals, capacity);
+      m_currentWindow = Arrays.copyOf(m_currentWindow, capacity * WINDOW);
+      m_velocityWindow = Arrays.copyOf(m_velocityWindow, capacity * WINDOW);
+      m_currentSum = Arrays.copyOf(m_currentSum, capacity);
+      m_velocitySum = Arrays.copyOf(m_velocitySum, capacity);
+      m_head = Arrays.copyOf(m_head, capacity);
+      m_samples = Arrays.copyOf(m_samples, capacity);
+      m_lastSampleTime = Arrays.copyOf(m_lastSampleTime, capacity);
+    }
+
+    int motor = m_count++;
+    m_names[motor] = name;
+    m_currentSignals[motor] = current;
+    m_velocitySignals[motor] = velocity;
+    m_rules.add(new ArrayList<>());
+    return motor;
+  }
+
+  /**
+   * Attach a rule to a motor
+   *
+   * @param motor Motor handle from registerMotor()
+   * @param rule Rule to evaluate
+   * @param listener Called when the rule trips
+   * @return Rule handle for removeRule()
+   */
+  public int addRule(int motor, Rule rule, Listener listener) {
+    int handle = m_nextRuleHandle++;
+    m_rules.get(motor).add(new RuleState(handle, rule, listener));
+    return handle;
+  }
+
+  /**
+   * Detach a rule
+   *
+   * @param ruleHandle Handle from addRule()
+   */
+  public void removeRule(int ruleHandle) {
+    for (List<RuleState> rules : m_rules) {
+      for (int i = 0; i < rules.size(); i++) {
+        if (rules.get(i).handle == ruleHandle) {
+          if (rules.get(i).active) {
+            m_activeFaults--;
+          }
+          rules.remove(i);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Get a motor's moving-average current
+   *
+   * @param motor Motor handle
+   * @return Average current over the window (amps)
+   */
+  public double getAverageCurrent(int motor) {
+    return m_samples[motor] == 0 ? 0.0 : m_currentSum[motor] / m_samples[motor];
+  }
+
+  /**
+   * Get a motor's moving-average speed
+   *
+   * @param motor Motor handle
+   * @return Average |velocity| over the window (encoder units)
+   */
+  public double getAverageSpeed(int motor) {
+    return m_samples[motor] == 0 ? 0.0 : m_velocitySum[motor] / m_samples[motor];
+  }
+
+  /**
+   * Check if any rule on a motor is currently tripped
+   *
+   * @param motor Motor handle
+   * @return true if a fault is active
+   */
+  public boolean isFaulted(int motor) {
+    for (RuleState state : m_rules.get(motor)) {
+      if (state.active) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sample and evaluate motors within the time budget - call once per loop
+   */
+  public void update() {
+    if (m_count == 0) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    long deadline = start + BUDGET_NANOS;
+    int evaluated = 0;
+
+    // Always evaluate at least one motor, then continue round-robin while there's budget left
+    do {
+      evaluate(m_nextMotor);
+      m_nextMotor = (m_nextMotor + 1) % m_count;
+      evaluated++;
+    } while (evaluated < m_count && System.nanoTime() < deadline);
+
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putNumber("Faults/Motors per Loop", evaluated);
+    nt.putNumber("Faults/Eval Time (ms)", (System.nanoTime() - start) / 1e6);
+    nt.putNumber("Faults/Active", m_activeFaults);
+  }
+
+  /**
+   * Sample one motor's signals and evaluate its rules
+   */
+  private void evaluate(int motor) {
+    double now = Timer.getFPGATimestamp();
+    double dt = m_samples[motor] == 0 ? 0.0 : Math.min(now - m_lastSampleTime[motor], MAX_SAMPLE_DT);
+    m_lastSampleTime[motor] = now;
+
+    double current = m_currentSignals[motor].getAsDouble();
+    double speed = m_velocitySignals[motor] == null ? 0.0 : Math.abs(m_velocitySignals[motor].getAsDouble());
+
+    // Ring buffer windows with running sums
+    int slot = motor * WINDOW + m_head[motor];
+    m_currentSum[motor] += current - m_currentWindow[slot];
+    m_velocitySum[motor] += speed - m_velocityWindow[slot];
+    m_currentWindow[slot] = current;
+    m_velocityWindow[slot] = speed;
+    m_head[motor] = (m_head[motor] + 1) & WINDOW_MASK;
+    if (m_samples[motor] < WINDOW) {
+      m_samples[motor]++;
+    }
+
+    double averageCurrent = getAverageCurrent(motor);
+    double averageSpeed = getAverageSpeed(motor);
+
+    List<RuleState> rules = m_rules.get(motor);
+    for (int i = 0; i < rules.size(); i++) {
+      RuleState state = rules.get(i);
+      Rule rule = state.rule;
+
+      boolean condition;
+      double value;
+      switch (rule.type) {
+        case CURRENT_SPIKE:
+          condition = averageCurrent > rule.currentThreshold;
+          value = averageCurrent;
+          break;
+        case STALL:
+          condition = averageCurrent > rule.currentThreshold && averageSpeed < rule.velocityThreshold;
+          value = averageCurrent;
+          break;
+        default: // THERMAL
+          state.accumulator = Math.max(0.0, state.accumulator
+              + (current * current - rule.currentThreshold * rule.currentThreshold) * dt);
+          condition = state.accumulator > rule.limit;
+          value = state.accumulator;
+          break;
+      }
+
+      state.conditionTime = condition ? state.conditionTime + dt : 0.0;
+
+      if (condition && !state.active && state.conditionTime >= rule.duration) {
+        state.active = true;
+        m_activeFaults++;
+        m_lastFault = m_names[motor] + ": " + rule;
+        edu.wpi.first.wpilibj.smartdashboard.SmartDashboard.putString("Faults/Last Fault", m_lastFault);
+        state.listener.onFault(m_names[motor], rule, value);
+      } else if (!condition && state.active) {
+        state.active = false; // Re-arm once the condition clears
+        m_activeFaults--;
+      }
+    }
+  }
+}
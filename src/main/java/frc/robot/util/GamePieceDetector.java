@@ -0,0 +1,141 @@
+package frc.robot.util;
+
+import frc.robot.Constants.IntakeConstants;
+
+/**
+ * Game piece detection from the beam break fused with the roller current/velocity signature
+ * A coral in the rollers loads them: current rises, and when the rollers aren't running a
+ * velocity loop, velocity also drops well below the free speed for the commanded output.
+ * Held against the hard stop at hold speed, the rollers stall outright. The signature is
+ * only informative while the rollers are driven and have settled after a command change
+ * (spin-up looks just like a load), and is latched in between.
+ *
+ * The two sensors are combined with trust weights. The beam break starts fully trusted, so
+ * it wins a short disagreement. If they keep disagreeing while the signature is informative,
+ * the beam break loses trust and the signature takes over, so an unplugged or dirty sensor
+ * can't leave the intake running forever. Trust recovers once they agree again.
+ *
+ * update() is called from the intake's sampling Notifier, so results are published through
+ * volatile fields and can be read from the main thread.
+ */
+public class GamePieceDetector {
+  private static final double MIN_OUTPUT = 0.05; // Below this the rollers say nothing about the coral
+  private static final double MAX_DT = 0.1; // seconds - ignore longer gaps
+  private static final double BEAM_TRUST = 1.0; // Nominal beam break weight
+  private static final double SIGNATURE_TRUST = 0.5; // Signature weight (fixed)
+  private static final double MIN_BEAM_TRUST = 0.2; // Below the signature weight, so it wins
+  private static final double TRUST_RATE = 4.0; // Beam break trust lost/regained per second
+
+  private double m_lastTime = Double.NaN;
+  private double m_lastOutput = 0.0;
+  private double m_settleTime = 0.0;
+  private double m_loadedTime = 0.0;
+  private double m_freeTime = 0.0;
+  private double m_disagreeTime = 0.0;
+  private double m_beamTrust = BEAM_TRUST;
+  private boolean m_signature = false;
+
+  private volatile boolean m_hasGamePiece = false;
+  private volatile double m_confidence = 0.0;
+  private volatile boolean m_signatureDetected = false;
+  private volatile boolean m_disagree = false;
+  private volatile double m_beamTrustOut = BEAM_TRUST;
+
+  /**
+   * Process a new sample
+   *
+   * @param beamBroken true if the beam break sees a coral
+   * @param current Average roller motor current (amps)
+   * @param velocity Average roller motor velocity (RPM)
+   * @param output Commanded roller output or velocity as a fraction of free speed (-1 to 1)
+   * @param timestampSeconds Sample time
+   * @return Fused game piece state
+   */
+  public synchronized boolean update(boolean beamBroken, double current, double velocity,
+                                     double output, double timestampSeconds) {
+    double dt = timestampSeconds - m_lastTime;
+    m_lastTime = timestampSeconds;
+    if (!(dt > 0.0 && dt < MAX_DT)) {
+      dt = 0.0;
+    }
+
+    // Spin-up after a command change looks like a load - wait for it to settle
+    m_settleTime = output == m_lastOutput ? m_settleTime + dt : 0.0;
+    m_lastOutput = output;
+
+    // Current/velocity signature, latched while the rollers aren't driven
+    boolean informative = Math.abs(output) >= MIN_OUTPUT
+        && m_settleTime >= IntakeConstants.kSignatureSettleSeconds;
+    if (informative) {
+      double ratio = Math.abs(velocity) / (Math.abs(output) * IntakeConstants.kRollerFreeSpeedRPM);
+      boolean loaded = current > IntakeConstants.kSignatureLoadedCurrent
+          || ratio < IntakeConstants.kSignatureLoadedRatio;
+      boolean free = current < IntakeConstants.kSignatureLoadedCurrent
+          && ratio > IntakeConstants.kSignatureFreeRatio;
+      m_loadedTime = loaded ? m_loadedTime + dt : 0.0;
+      m_freeTime = free ? m_freeTime + dt : 0.0;
+      if (m_loadedTime >= IntakeConstants.kSignatureDwellSeconds) {
+        m_signature = true;
+      } else if (m_freeTime >= IntakeConstants.kSignatureDwellSeconds) {
+        m_signature = false;
+      }
+    } else {
+      m_loadedTime = 0.0;
+      m_freeTime = 0.0;
+    }
+
+    // Disagreement only counts while the signature is backed by fresh evidence
+    boolean disagree = informative && beamBroken != m_signature;
+    m_disagreeTime = disagree ? m_disagreeTime + dt : 0.0;
+    if (m_disagreeTime >= IntakeConstants.kSensorDisagreeSeconds) {
+      m_beamTrust = Math.max(MIN_BEAM_TRUST, m_beamTrust - TRUST_RATE * dt);
+    } else if (!disagree) {
+      m_beamTrust = Math.min(BEAM_TRUST, m_beamTrust + TRUST_RATE * dt);
+    }
+
+    double confidence = (m_beamTrust * (beamBroken ? 1.0 : 0.0) + SIGNATURE_TRUST * (m_signature ? 1.0 : 0.0))
+        / (m_beamTrust + SIGNATURE_TRUST);
+
+    m_confidence = confidence;
+    m_signatureDetected = m_signature;
+    m_disagree = disagree;
+    m_beamTrustOut = m_beamTrust;
+    m_hasGamePiece = confidence > 0.5;
+    return m_hasGamePiece;
+  }
+
+  /**
+   * @return Fused game piece state
+   */
+  public boolean hasGamePiece() {
+    return m_hasGamePiece;
+  }
+
+  /**
+   * @return Trust-weighted confidence that a coral is present (0 to 1)
+   */
+  public double getConfidence() {
+    return m_confidence;
+  }
+
+  /**
+   * @return true if the current/velocity signature sees a coral
+   */
+  public boolean isSignatureDetected() {
+    return m_signatureDetected;
+  }
+
+  /**
+   * @return true while the beam break and the signature disagree
+   */
+  public boolean isDisagreeing() {
+    return m_disagree;
+  }
+
+  /**
+   * @return Current beam break weight (1.0 = fully trusted)
+   */
+  public double getBeamBreakTrust() {
+    return m_beamTrustOut;
+  }
+}
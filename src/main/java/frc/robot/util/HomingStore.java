@@ -0,0 +1,219 @@
+package frc.robot.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the arm homing state to roboRIO flash so a reboot doesn't lose it
+ * The record is a small fixed-size binary block with a fingerprint and CRC32. It is written to
+ * a memory-mapped temp file, forced to disk, and then atomically renamed over the real file,
+ * so a brownout mid-write can never leave a half-written record behind. The directory is
+ * synced after the rename so the new entry itself survives a power loss.
+ *
+ * A background thread watches the reported state and only writes when the homed flag changes
+ * or the arm comes to rest somewhere new - never while it is moving - to keep flash wear down.
+ */
+public class HomingStore {
+  private static final int MAGIC = 0x484F4D45; // "HOME"
+  private static final int VERSION = 2;
+  // magic, version, fingerprint, homed, arm, extension, CRC
+  private static final int RECORD_SIZE = 4 + 4 + 8 + 4 + 8 + 8 + 4;
+  private static final long POLL_PERIOD_MS = 50;
+  private static final long SETTLE_MS = 200; // At rest this long before the position is saved
+  private static final double CHANGE_THRESHOLD = 1.0; // encoder ticks - smaller moves aren't rewritten
+
+  /** A restored homing record */
+  public static final class Record {
+    public final boolean homed;
+    public final double armPosition;
+    public final double extensionPosition;
+
+    Record(boolean homed, double armPosition, double extensionPosition) {
+      this.homed = homed;
+      this.armPosition = armPosition;
+      this.extensionPosition = extensionPosition;
+    }
+  }
+
+  private final Path m_file;
+  private final Path m_tempFile;
+  private final long m_fingerprint;
+
+  // Latest state from the robot thread (guarded by this)
+  private boolean m_homed;
+  private double m_armPosition;
+  private double m_extensionPosition;
+  private boolean m_dirty = false;
+
+  // Last state written and motion tracking (writer thread only)
+  private boolean m_writtenHomed;
+  private double m_writtenArm = Double.NaN;
+  private double m_writtenExtension = Double.NaN;
+  private double m_polledArm = Double.NaN;
+  private double m_polledExtension = Double.NaN;
+  private long m_restMillis = 0;
+
+  /**
+   * Creates a homing store
+   *
+   * @param file Where the record lives
+   * @param fingerprint Identifies the robot configuration - records with a different one are ignored
+   */
+  public HomingStore(Path file, long fingerprint) {
+    m_file = file;
+    m_tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    m_fingerprint = fingerprint;
+  }
+
+  /**
+   * Load the saved record
+   *
+   * @return The record, or null if missing, corrupt, or from a different configuration
+   */
+  public Record load() {
+    if (!Files.exists(m_file)) {
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(m_file, StandardOpenOption.READ)) {
+      if (channel.size() != RECORD_SIZE) {
+        System.err.println("⚠️ Homing record has the wrong size - ignoring");
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, RECORD_SIZE);
+
+      CRC32 crc = new CRC32();
+      ByteBuffer body = buffer.duplicate();
+      body.limit(RECORD_SIZE - 4);
+      crc.update(body);
+      if ((int) crc.getValue() != buffer.getInt(RECORD_SIZE - 4)) {
+        System.err.println("⚠️ Homing record checksum mismatch - ignoring");
+        return null;
+      }
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        System.err.println("⚠️ Homing record has an unknown format - ignoring");
+        return null;
+      }
+      if (buffer.getLong() != m_fingerprint) {
+        System.out.println("Homing record is from a different arm configuration - ignoring");
+        return null;
+      }
+
+      boolean homed = buffer.getInt() != 0;
+      double arm = buffer.getDouble();
+      double extension = buffer.getDouble();
+      return new Record(homed, arm, extension);
+    } catch (IOException e) {
+      System.err.println("⚠️ Could not read homing record: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Report the current state (cheap - call every loop; the writer thread decides when to save)
+   *
+   * @param homed Whether the arm is homed
+   * @param armPosition Arm encoder position
+   * @param extensionPosition Extension encoder position
+   */
+  public synchronized void update(boolean homed, double armPosition, double extensionPosition) {
+    m_homed = homed;
+    m_armPosition = armPosition;
+    m_extensionPosition = extensionPosition;
+    m_dirty = true;
+  }
+
+  /**
+   * Start the background writer thread
+   */
+  public void start() {
+    Thread writer = new Thread(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        try {
+          Thread.sleep(POLL_PERIOD_MS);
+          writeIfChanged();
+        } catch (InterruptedException e) {
+          return;
+        } catch (IOException e) {
+          System.err.println("⚠️ Could not save homing record: " + e.getMessage());
+        }
+      }
+    }, "HomingStore");
+    writer.setDaemon(true);
+    writer.setPriority(Thread.MIN_PRIORITY);
+    writer.start();
+  }
+
+  /**
+   * Write the latest state if the homed flag changed, or the arm settled somewhere new
+   */
+  private void writeIfChanged() throws IOException {
+    boolean homed;
+    double arm;
+    double extension;
+    synchronized (this) {
+      if (!m_dirty) {
+        return;
+      }
+      m_dirty = false;
+      homed = m_homed;
+      arm = m_armPosition;
+      extension = m_extensionPosition;
+    }
+
+    // Time at rest since the last poll
+    boolean still = Math.abs(arm - m_polledArm) < CHANGE_THRESHOLD
+        && Math.abs(extension - m_polledExtension) < CHANGE_THRESHOLD;
+    m_restMillis = still ? m_restMillis + POLL_PERIOD_MS : 0;
+    m_polledArm = arm;
+    m_polledExtension = extension;
+
+    boolean moved = !(Math.abs(arm - m_writtenArm) < CHANGE_THRESHOLD
+        && Math.abs(extension - m_writtenExtension) < CHANGE_THRESHOLD);
+    if (homed == m_writtenHomed && !(moved && m_restMillis >= SETTLE_MS)) {
+      return;
+    }
+
+    write(homed, arm, extension);
+    m_writtenHomed = homed;
+    m_writtenArm = arm;
+    m_writtenExtension = extension;
+  }
+
+  /**
+   * Write a record: memory-mapped temp file, force to flash, atomic rename
+   */
+  private void write(boolean homed, double arm, double extension) throws IOException {
+    try (FileChannel channel = FileChannel.open(m_tempFile, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, RECORD_SIZE);
+      buffer.putInt(MAGIC);
+      buffer.putInt(VERSION);
+      buffer.putLong(m_fingerprint);
+      buffer.putInt(homed ? 1 : 0);
+      buffer.putDouble(arm);
+      buffer.putDouble(extension);
+
+      CRC32 crc = new CRC32();
+      ByteBuffer body = buffer.duplicate();
+      body.flip();
+      crc.update(body);
+      buffer.putInt((int) crc.getValue());
+      buffer.force();
+    }
+
+    Files.move(m_tempFile, m_file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+    // The rename is only durable once the directory entry is on flash
+    try (FileChannel directory = FileChannel.open(m_file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+      directory.force(true);
+    }
+  }
+}
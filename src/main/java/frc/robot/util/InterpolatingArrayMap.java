@@ -0,0 +1,117 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+
+/**
+ * Interpolating lookup table backed by sorted primitive arrays
+ * Keys are kept sorted so a lookup is a binary search plus one linear interpolation, with no
+ * boxing or allocation. Lookups outside the key range clamp to the first or last value.
+ */
+public class InterpolatingArrayMap {
+  private static final int INITIAL_CAPACITY = 8;
+
+  private double[] m_keys = new double[INITIAL_CAPACITY];
+  private double[] m_values = new double[INITIAL_CAPACITY];
+  private int m_size = 0;
+
+  /**
+   * Creates an empty map
+   */
+  public InterpolatingArrayMap() {}
+
+  /**
+   * Creates a map from parallel key and value arrays (keys don't need to be sorted)
+   *
+   * @param keys Keys
+   * @param values Value for each key
+   */
+  public InterpolatingArrayMap(double[] keys, double[] values) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("Keys and values must have the same length");
+    }
+    for (int i = 0; i < keys.length; i++) {
+      put(keys[i], values[i]);
+    }
+  }
+
+  /**
+   * Add a point, replacing the value if the key already exists
+   *
+   * @param key Key
+   * @param value Value at that key
+   */
+  public void put(double key, double value) {
+    int index = Arrays.binarySearch(m_keys, 0, m_size, key);
+    if (index >= 0) {
+      m_values[index] = value;
+      return;
+    }
+
+    int insert = -index - 1;
+    if (m_size == m_keys.length) {
+      m_keys = Arrays.copyOf(m_keys, m_size * 2);
+      m_values = Arrays.copyOf(m_values, m_size * 2);
+    }
+    System.arraycopy(m_keys, insert, m_keys, insert + 1, m_size - insert);
+    System.arraycopy(m_values, insert, m_values, insert + 1, m_size - insert);
+    m_keys[insert] = key;
+    m_values[insert] = value;
+    m_size++;
+  }
+
+  /**
+   * Look up an interpolated value
+   *
+   * @param key Key to look up
+   * @return Linearly interpolated value (clamped at the ends, 0 if the map is empty)
+   */
+  public double get(double key) {
+    if (m_size == 0) {
+      return 0.0;
+    }
+    if (key <= m_keys[0]) {
+      return m_values[0];
+    }
+    if (key >= m_keys[m_size - 1]) {
+      return m_values[m_size - 1];
+    }
+
+    int index = Arrays.binarySearch(m_keys, 0, m_size, key);
+    if (index >= 0) {
+      return m_values[index];
+    }
+
+    // key lies between upper - 1 and upper
+    int upper = -index - 1;
+    double t = (key - m_keys[upper - 1]) / (m_keys[upper] - m_keys[upper - 1]);
+    return m_values[upper - 1] + t * (m_values[upper] - m_values[upper - 1]);
+  }
+
+  /**
+   * @return Number of points
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * @return Smallest key (0 if empty)
+   */
+  public double getMinKey() {
+    return m_size == 0 ? 0.0 : m_keys[0];
+  }
+
+  /**
+   * @return Largest key (0 if empty)
+   */
+  public double getMaxKey() {
+    return m_size == 0 ? 0.0 : m_keys[m_size - 1];
+  }
+
+  /**
+   * Remove all points
+   */
+  public void clear() {
+    m_size = 0;
+  }
+}
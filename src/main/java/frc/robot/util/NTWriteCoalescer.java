@@ -0,0 +1,274 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Coalesces outbound NetworkTables writes
+ * Code can "write" a value every loop; only values that differ from the last one
+ * actually sent are kept, and all real changes go out together in one flush at the
+ * end of robotPeriodic(). Per-topic request and write rates are published so the
+ * reduction is visible on the dashboard.
+ *
+ * Unchanged values are still resent round-robin, a few per flush, so every topic is
+ * refreshed regularly and a dashboard that reconnects catches up without waiting for
+ * each value to change. Numbers and booleans take the allocation-free path; strings
+ * and number arrays (e.g. a Limelight crop window) are compared by value.
+ */
+public final class NTWriteCoalescer {
+  private static NTWriteCoalescer s_instance;
+
+  private static final double STATS_PERIOD_SECONDS = 1.0;
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int REFRESH_PER_FLUSH = 2; // Unchanged values resent per flush (round robin)
+
+  // Value type of each slot
+  private static final byte TYPE_NUMBER = 0;
+  private static final byte TYPE_BOOLEAN = 1;
+  private static final byte TYPE_STRING = 2;
+  private static final byte TYPE_NUMBER_ARRAY = 3;
+
+  private final NetworkTable m_dashboard = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  private final NetworkTable m_statsTable = NetworkTableInstance.getDefault().getTable("NT Writes");
+  private final Map<String, Integer> m_handles = new HashMap<>();
+
+  // Per-topic slots (indexed by handle)
+  private int m_count = 0;
+  private NetworkTableEntry[] m_entries = new NetworkTableEntry[INITIAL_CAPACITY];
+  private String[] m_names = new String[INITIAL_CAPACITY];
+  private byte[] m_types = new byte[INITIAL_CAPACITY];
+  private boolean[] m_hasWritten = new boolean[INITIAL_CAPACITY];
+  private boolean[] m_dirty = new boolean[INITIAL_CAPACITY];
+  private double[] m_lastWritten = new double[INITIAL_CAPACITY];
+  private double[] m_pending = new double[INITIAL_CAPACITY];
+  private Object[] m_lastWrittenObject = new Object[INITIAL_CAPACITY]; // Strings and (copied) arrays
+  private Object[] m_pendingObject = new Object[INITIAL_CAPACITY];
+  private int[] m_requests = new int[INITIAL_CAPACITY];
+  private int[] m_writes = new int[INITIAL_CAPACITY];
+
+  private int m_refreshCursor = 0;
+  private double m_statsWindowStart = 0.0;
+
+  /**
+   * Get the shared coalescer
+   *
+   * @return The coalescer instance
+   */
+  public static synchronized NTWriteCoalescer getInstance() {
+    if (s_instance == null) {
+      s_instance = new NTWriteCoalescer();
+    }
+    return s_instance;
+  }
+
+  private NTWriteCoalescer() {}
+
+  /**
+   * Register a numeric topic and get a handle for fast writes
+   *
+   * @param entry NetworkTables entry to write
+   * @param name Name used for the write-rate counters
+   * @return Handle for setNumber()/setBoolean()/setString()/setNumberArray()
+   */
+  public synchronized int register(NetworkTableEntry entry, String name) {
+    Integer existing = m_handles.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    if (m_count == m_entries.length) {
+      int capacity = m_entries.length * 2;
+      m_entries = Arrays.copyOf(m_entries, capacity);
+      m_names = Arrays.copyOf(m_names, capacity);
+      m_types = Arrays.copyOf(m_types, capacity);
+      m_hasWritten = Arrays.copyOf(m_hasWritten, capacity);
+      m_dirty = Arrays.copyOf(m_dirty, capacity);
+      m_lastWritten = Arrays.copyOf(m_lastWritten, capacity);
+      m_pending = Arrays.copyOf(m_pending, capacity);
+      m_lastWrittenObject = Arrays.copyOf(m_lastWrittenObject, capacity);
+      m_pendingObject = Arrays.copyOf(m_pendingObject, capacity);
+      m_requests = Arrays.copyOf(m_requests, capacity);
+      m_writes = Arrays.copyOf(m_writes, capacity);
+    }
+
+    int handle = m_count++;
+    m_entries[handle] = entry;
+    m_names[handle] = name;
+    m_handles.put(name, handle);
+    return handle;
+  }
+
+  /**
+   * Request a numeric write (sent at the next flush if it changed)
+   *
+   * @param handle Handle from register()
+   * @param value Value to write
+   */
+  public synchronized void setNumber(int handle, double value) {
+    setScalar(handle, value, TYPE_NUMBER);
+  }
+
+  /**
+   * Request a boolean write (sent at the next flush if it changed)
+   *
+   * @param handle Handle from register()
+   * @param value Value to write
+   */
+  public synchronized void setBoolean(int handle, boolean value) {
+    setScalar(handle, value ? 1.0 : 0.0, TYPE_BOOLEAN);
+  }
+
+  /**
+   * Request a string write (sent at the next flush if it changed)
+   *
+   * @param handle Handle from register()
+   * @param value Value to write
+   */
+  public synchronized void setString(int handle, String value) {
+    m_requests[handle]++;
+    m_types[handle] = TYPE_STRING;
+    m_pendingObject[handle] = value;
+    m_dirty[handle] = !m_hasWritten[handle] || !value.equals(m_lastWrittenObject[handle]);
+  }
+
+  /**
+   * Request a number array write (sent at the next flush if any element changed)
+   * The array is copied, so the caller can keep reusing it.
+   *
+   * @param handle Handle from register()
+   * @param value Values to write
+   */
+  public synchronized void setNumberArray(int handle, double[] value) {
+    m_requests[handle]++;
+    m_types[handle] = TYPE_NUMBER_ARRAY;
+    double[] pending = m_pendingObject[handle] instanceof double[] ? (double[]) m_pendingObject[handle] : null;
+    if (pending == null || pending.length != value.length) {
+      pending = new double[value.length];
+      m_pendingObject[handle] = pending;
+    }
+    System.arraycopy(value, 0, pending, 0, value.length);
+    m_dirty[handle] = !m_hasWritten[handle] || !Arrays.equals(pending, (double[]) m_lastWrittenObject[handle]);
+  }
+
+  private void setScalar(int handle, double value, byte type) {
+    m_requests[handle]++;
+    m_types[handle] = type;
+    m_pending[handle] = value;
+    m_dirty[handle] = !m_hasWritten[handle] || Double.compare(value, m_lastWritten[handle]) != 0;
+  }
+
+  /**
+   * Coalesced version of SmartDashboard.putNumber()
+   *
+   * @param key Dashboard key
+   * @param value Value to write
+   */
+  public synchronized void putNumber(String key, double value) {
+    setNumber(dashboardHandle(key), value);
+  }
+
+  /**
+   * Coalesced version of SmartDashboard.putBoolean()
+   *
+   * @param key Dashboard key
+   * @param value Value to write
+   */
+  public synchronized void putBoolean(String key, boolean value) {
+    setBoolean(dashboardHandle(key), value);
+  }
+
+  /**
+   * Coalesced version of SmartDashboard.putString()
+   *
+   * @param key Dashboard key
+   * @param value Value to write
+   */
+  public synchronized void putString(String key, String value) {
+    setString(dashboardHandle(key), value);
+  }
+
+  /**
+   * Get (or create) the handle for a SmartDashboard key
+   */
+  private int dashboardHandle(String key) {
+    Integer handle = m_handles.get(key);
+    if (handle != null) {
+      return handle;
+    }
+    return register(m_dashboard.getEntry(key), key);
+  }
+
+  /**
+   * Send all changed values, plus the next few unchanged ones - call once at the end of robotPeriodic()
+   */
+  public synchronized void flush() {
+    // Refresh a slice of the values that have been sent before, whether or not they changed
+    int refresh = Math.min(REFRESH_PER_FLUSH, m_count);
+    for (int n = 0; n < refresh; n++) {
+      m_refreshCursor = (m_refreshCursor + 1) % m_count;
+      if (m_hasWritten[m_refreshCursor]) {
+        m_dirty[m_refreshCursor] = true;
+      }
+    }
+
+    for (int i = 0; i < m_count; i++) {
+      if (!m_dirty[i]) {
+        continue;
+      }
+      switch (m_types[i]) {
+        case TYPE_BOOLEAN:
+          m_entries[i].setBoolean(m_pending[i] != 0.0);
+          break;
+        case TYPE_STRING:
+          m_entries[i].setString((String) m_pendingObject[i]);
+          m_lastWrittenObject[i] = m_pendingObject[i];
+          break;
+        case TYPE_NUMBER_ARRAY:
+          double[] pending = (double[]) m_pendingObject[i];
+          m_entries[i].setDoubleArray(pending);
+          m_lastWrittenObject[i] = pending.clone();
+          break;
+        default:
+          m_entries[i].setDouble(m_pending[i]);
+          break;
+      }
+      m_lastWritten[i] = m_pending[i];
+      m_hasWritten[i] = true;
+      m_dirty[i] = false;
+      m_writes[i]++;
+    }
+
+    publishStats();
+  }
+
+  /**
+   * Publish per-topic requested vs. actual write rates at a low rate
+   */
+  private void publishStats() {
+    double now = Timer.getFPGATimestamp();
+    double elapsed = now - m_statsWindowStart;
+    if (elapsed < STATS_PERIOD_SECONDS) {
+      return;
+    }
+
+    int totalRequests = 0;
+    int totalWrites = 0;
+    for (int i = 0; i < m_count; i++) {
+      m_statsTable.getEntry(m_names[i] + "/Requested per s").setDouble(m_requests[i] / elapsed);
+      m_statsTable.getEntry(m_names[i] + "/Written per s").setDouble(m_writes[i] / elapsed);
+      totalRequests += m_requests[i];
+      totalWrites += m_writes[i];
+      m_requests[i] = 0;
+      m_writes[i] = 0;
+    }
+    m_statsTable.getEntry("Total/Requested per s").setDouble(totalRequests / elapsed);
+    m_statsTable.getEntry("Total/Written per s").setDouble(totalWrites / elapsed);
+    m_statsWindowStart = now;
+  }
+}
@@ -0,0 +1,171 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Samples the Power Distribution Hub on its own thread
+ * Every channel current, the voltage, temperature and total current are read at a fixed rate
+ * into two preallocated snapshots. The sampler fills the back one and then publishes it, so
+ * the main loop never makes a PDH call and never allocates - read() just copies the latest
+ * snapshot. Channels can be grouped per subsystem, and group totals are computed with each
+ * sample.
+ */
+public class PdhSampler {
+  /** One complete PDH sample */
+  public static final class Snapshot {
+    public final double[] channelCurrents;
+    public final double[] groupCurrents;
+    public double voltage;
+    public double temperature;
+    public double totalCurrent;
+    public double timestamp; // FPGA time of the sample (seconds)
+
+    /**
+     * @param channels Number of PDH channels
+     * @param groups Number of channel groups
+     */
+    public Snapshot(int channels, int groups) {
+      channelCurrents = new double[channels];
+      groupCurrents = new double[groups];
+    }
+
+    void copyTo(Snapshot out) {
+      System.arraycopy(channelCurrents, 0, out.channelCurrents, 0, channelCurrents.length);
+      System.arraycopy(groupCurrents, 0, out.groupCurrents, 0, groupCurrents.length);
+      out.voltage = voltage;
+      out.temperature = temperature;
+      out.totalCurrent = totalCurrent;
+      out.timestamp = timestamp;
+    }
+  }
+
+  private final PowerDistribution m_pdh;
+  private final int m_channels;
+  private final double m_period;
+  private final Notifier m_notifier = new Notifier(this::sample);
+
+  private final List<String> m_groupNames = new ArrayList<>();
+  private final List<int[]> m_groupChannels = new ArrayList<>();
+
+  // Double buffer - the sampler only writes the snapshot that isn't published
+  private Snapshot[] m_buffers;
+  private volatile int m_published = 0; // Index of the latest complete snapshot
+  private volatile int m_sequence = 0; // Incremented when a write starts and when it is published
+  private volatile boolean m_hasSample = false;
+
+  /**
+   * Create a sampler (call addGroup() as needed, then start())
+   *
+   * @param pdh Power distribution to sample
+   * @param periodSeconds Sample period
+   */
+  public PdhSampler(PowerDistribution pdh, double periodSeconds) {
+    m_pdh = pdh;
+    m_channels = pdh.getNumChannels();
+    m_period = periodSeconds;
+  }
+
+  /**
+   * Attribute a set of PDH channels to a subsystem
+   *
+   * @param name Group name
+   * @param channels PDH channels feeding the subsystem
+   * @return Group index into Snapshot.groupCurrents
+   */
+  public int addGroup(String name, int... channels) {
+    if (m_buffers != null) {
+      throw new IllegalStateException("PdhSampler groups must be added before start()");
+    }
+    m_groupNames.add(name);
+    m_groupChannels.add(channels.clone());
+    return m_groupNames.size() - 1;
+  }
+
+  /**
+   * Allocate the snapshots and start sampling
+   */
+  public void start() {
+    m_buffers = new Snapshot[] {newSnapshot(), newSnapshot()};
+    m_notifier.setName("PdhSampler");
+    m_notifier.startPeriodic(m_period);
+  }
+
+  /**
+   * Create a snapshot sized for this PDH (for callers of read())
+   *
+   * @return Empty snapshot
+   */
+  public Snapshot newSnapshot() {
+    return new Snapshot(m_channels, m_groupNames.size());
+  }
+
+  /**
+   * Read the PDH into the back buffer and publish it (runs on the Notifier)
+   */
+  private void sample() {
+    int back = 1 - m_published;
+    Snapshot snapshot = m_buffers[back];
+    m_sequence++;
+
+    for (int channel = 0; channel < m_channels; channel++) {
+      snapshot.channelCurrents[channel] = m_pdh.getCurrent(channel);
+    }
+    for (int group = 0; group < m_groupChannels.size(); group++) {
+      double sum = 0.0;
+      for (int channel : m_groupChannels.get(group)) {
+        sum += snapshot.channelCurrents[channel];
+      }
+      snapshot.groupCurrents[group] = sum;
+    }
+    snapshot.voltage = m_pdh.getVoltage();
+    snapshot.temperature = m_pdh.getTemperature();
+    snapshot.totalCurrent = m_pdh.getTotalCurrent();
+    snapshot.timestamp = Timer.getFPGATimestamp();
+
+    m_published = back;
+    m_sequence++;
+    m_hasSample = true;
+  }
+
+  /**
+   * Copy the latest snapshot
+   * Retries if the sampler republished over the snapshot while it was being copied.
+   *
+   * @param out Snapshot to fill (from newSnapshot())
+   * @return false if nothing has been sampled yet
+   */
+  public boolean read(Snapshot out) {
+    if (!m_hasSample) {
+      return false;
+    }
+    int sequence;
+    do {
+      sequence = m_sequence;
+      m_buffers[m_published].copyTo(out);
+      // One write goes to the other buffer - only the write after it can touch ours
+    } while (m_sequence - sequence >= 2);
+    return true;
+  }
+
+  /**
+   * Get a group's name
+   *
+   * @param group Group index from addGroup()
+   * @return Group name
+   */
+  public String getGroupName(int group) {
+    return m_groupNames.get(group);
+  }
+
+  /**
+   * @return Number of channel groups
+   */
+  public int getGroupCount() {
+    return m_groupNames.size();
+  }
+}
@@ -0,0 +1,308 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntConsumer;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.PowerConstants;
+
+/**
+ * Battery-aware current budget shared by every subsystem
+ * Subsystems register a consumer with a priority, motor count, nominal and minimum per-motor
+ * current limits, a measured-demand signal, and a callback that applies a new smart current
+ * limit. When the PDH channels of a consumer are known, their measured branch current
+ * (setPdhDemand()) replaces the motor-reported demand while it is fresh. The total budget shrinks as the (low-pass filtered) battery voltage drops - filtered
+ * so the sag caused by a burst of current doesn't immediately cut the budget that allowed it,
+ * and the budget doesn't oscillate with its own load. Every consumer keeps its
+ * minimum, then the rest is handed out in priority order - first to cover measured demand
+ * (plus headroom), then up to the nominal limits - so low-priority mechanisms give up current
+ * before the drivetrain does.
+ *
+ * update() runs from robotPeriodic() but only reallocates at a low rate. Limits are rounded to
+ * a step and only written when they change, since every smart current limit change is a
+ * blocking CAN config write. Consumers can also read an output scale (allocated / nominal).
+ *
+ * PDH samples also feed a battery model (see BatteryEstimator). The budget never exceeds the
+ * current that keeps the predicted voltage above the brownout floor, and getCurrentHeadroom()
+ * gives the extra draw still available right now, so drive and arm commands can be clipped
+ * every loop before the voltage sags rather than after. Each such consumer spends only its
+ * own share of the headroom (the shares add up to at most 1), so they can't both claim the
+ * whole of it at once.
+ */
+public final class PowerManager {
+  private static PowerManager s_instance;
+
+  /**
+   * A registered current consumer
+   */
+  private static final class Consumer {
+    final String name;
+    final int priority;
+    final int motorCount;
+    final int nominalLimit;
+    final int minLimit;
+    final DoubleSupplier demand;
+    final IntConsumer applyLimit;
+
+    int appliedLimit;
+    double allocated;
+    volatile double outputScale = 1.0;
+    double pdhDemand = Double.NaN; // From the PDH channel group, if there is one
+    double pdhTime = Double.NEGATIVE_INFINITY;
+
+    Consumer(String name, int priority, int motorCount, int nominalLimit, int minLimit,
+             DoubleSupplier demand, IntConsumer applyLimit) {
+      this.name = name;
+      this.priority = priority;
+      this.motorCount = motorCount;
+      this.nominalLimit = nominalLimit;
+      this.minLimit = minLimit;
+      this.demand = demand;
+      this.applyLimit = applyLimit;
+      this.appliedLimit = nominalLimit;
+    }
+  }
+
+  private final List<Consumer> m_consumers = new ArrayList<>(); // Indexed by handle
+  private final List<Consumer> m_byPriority = new ArrayList<>(); // Allocation order
+  private double m_lastUpdate = Double.NEGATIVE_INFINITY;
+  private final LinearFilter m_voltageFilter = LinearFilter.singlePoleIIR(
+      PowerConstants.kVoltageFilterSeconds, PowerConstants.kVoltageFilterPeriodSeconds);
+  private double m_filteredVoltage = Double.NaN;
+  private double m_budget = PowerConstants.kMaxTotalCurrentAmps;
+  private int m_limitWrites = 0;
+
+  private final BatteryEstimator m_battery = new BatteryEstimator();
+  private volatile double m_measuredCurrent = 0.0; // Total draw from the latest PDH sample
+  private volatile double m_expectedDemand = 0.0; // Consumers' demand with headroom, within their limits
+
+  /**
+   * Get the shared power manager
+   *
+   * @return The manager instance
+   */
+  public static synchronized PowerManager getInstance() {
+    if (s_instance == null) {
+      s_instance = new PowerManager();
+    }
+    return s_instance;
+  }
+
+  private PowerManager() {}
+
+  /**
+   * Register a current consumer
+   * The motors are assumed to already be configured at the nominal limit.
+   *
+   * @param name Name for telemetry
+   * @param priority Lower number = served first
+   * @param motorCount Number of motors sharing the limit
+   * @param nominalLimit Per-motor smart current limit with a healthy battery (amps)
+   * @param minLimit Per-motor limit that is never taken away (amps)
+   * @param demand Measured total current of the consumer's motors (amps)
+   * @param applyLimit Applies a new per-motor smart current limit
+   * @return Handle for getOutputScale()
+   */
+  public synchronized int register(String name, int priority, int motorCount, int nominalLimit, int minLimit,
+                                   DoubleSupplier demand, IntConsumer applyLimit) {
+    Consumer consumer = new Consumer(name, priority, motorCount, nominalLimit, minLimit, demand, applyLimit);
+    int index = 0;
+    while (index < m_byPriority.size() && m_byPriority.get(index).priority <= priority) {
+      index++;
+    }
+    m_byPriority.add(index, consumer);
+    m_consumers.add(consumer);
+    return m_consumers.size() - 1;
+  }
+
+  /**
+   * Get the output scale for a consumer
+   *
+   * @param handle Handle from register()
+   * @return Allocated / nominal current, between the minimum output scale and 1.0
+   */
+  public double getOutputScale(int handle) {
+    return m_consumers.get(handle).outputScale;
+  }
+
+  /**
+   * Find a consumer by name (e.g. to attribute a PDH channel group to it)
+   *
+   * @param name Name given to register()
+   * @return Handle, or -1 if no consumer has that name
+   */
+  public synchronized int getHandle(String name) {
+    for (int handle = 0; handle < m_consumers.size(); handle++) {
+      if (m_consumers.get(handle).name.equals(name)) {
+        return handle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Attribute measured PDH branch current to a consumer
+   * Used as its demand instead of the motor-reported current until it goes stale.
+   *
+   * @param handle Handle from register() or getHandle()
+   * @param current Total current of the consumer's PDH channels (amps)
+   */
+  public synchronized void setPdhDemand(int handle, double current) {
+    Consumer consumer = m_consumers.get(handle);
+    consumer.pdhDemand = current;
+    consumer.pdhTime = Timer.getFPGATimestamp();
+  }
+
+  /**
+   * Feed a PDH sample to the battery model
+   *
+   * @param voltage Battery voltage (volts)
+   * @param totalCurrent Total current draw measured with the voltage (amps)
+   */
+  public void addBatterySample(double voltage, double totalCurrent) {
+    m_battery.update(voltage, totalCurrent);
+    m_measuredCurrent = totalCurrent;
+  }
+
+  /**
+   * Get the extra current that can be drawn before the predicted voltage reaches the floor
+   *
+   * @return Headroom in amps (0 if already at the floor, infinity before the first sample)
+   */
+  public double getCurrentHeadroom() {
+    return Math.max(0.0, m_battery.getMaxCurrent(PowerConstants.kMinPredictedVoltage) - m_measuredCurrent);
+  }
+
+  /**
+   * Get one consumer's share of the current headroom
+   *
+   * @param share Fraction of the headroom reserved for the consumer (e.g. kDriveHeadroomShare)
+   * @return Headroom in amps available to that consumer
+   */
+  public double getCurrentHeadroom(double share) {
+    return getCurrentHeadroom() * share;
+  }
+
+  /**
+   * Get the total current the robot is expected to draw in the near term
+   * Each consumer's measured demand with headroom (as allocated, so within its current limit),
+   * or the measured total if that is higher.
+   *
+   * @return Expected total current in amps
+   */
+  public double getExpectedCurrent() {
+    return Math.max(m_expectedDemand, m_measuredCurrent);
+  }
+
+  /**
+   * @return The online battery model
+   */
+  public BatteryEstimator getBatteryEstimator() {
+    return m_battery;
+  }
+
+  /**
+   * Reallocate current limits if the update period has passed
+   * Call once per loop from robotPeriodic()
+   */
+  public synchronized void update() {
+    // Filter every loop, even though the budget is only recomputed at a low rate
+    double voltage = RobotController.getBatteryVoltage();
+    if (Double.isNaN(m_filteredVoltage)) {
+      m_voltageFilter.reset(new double[] {voltage}, new double[] {voltage}); // Start settled
+    }
+    m_filteredVoltage = m_voltageFilter.calculate(voltage);
+
+    double now = Timer.getFPGATimestamp();
+    if (now - m_lastUpdate < PowerConstants.kUpdatePeriodSeconds) {
+      return;
+    }
+    m_lastUpdate = now;
+
+    // Voltage derating, but never more than the battery can deliver above the brownout floor
+    m_budget = Math.max(PowerConstants.kMaxTotalCurrentAmps * PowerConstants.kMinBudgetFraction,
+                        Math.min(getBudget(m_filteredVoltage),
+                                 m_battery.getMaxCurrent(PowerConstants.kMinPredictedVoltage)));
+
+    // Everyone keeps their minimum
+    double remaining = m_budget;
+    for (Consumer consumer : m_byPriority) {
+      consumer.allocated = consumer.minLimit * consumer.motorCount;
+      remaining -= consumer.allocated;
+    }
+
+    // Measured demand (with headroom) in priority order
+    double expectedDemand = 0.0;
+    for (Consumer consumer : m_byPriority) {
+      boolean pdhFresh = now - consumer.pdhTime <= PowerConstants.kPdhDemandStaleSeconds;
+      double demand = (pdhFresh ? consumer.pdhDemand : consumer.demand.getAsDouble())
+          * PowerConstants.kDemandHeadroom;
+      double want = MathUtil.clamp(demand, consumer.allocated, consumer.nominalLimit * consumer.motorCount);
+      double grant = MathUtil.clamp(want - consumer.allocated, 0.0, Math.max(0.0, remaining));
+      consumer.allocated += grant;
+      remaining -= grant;
+      expectedDemand += Math.min(demand, consumer.allocated);
+    }
+    m_expectedDemand = expectedDemand;
+
+    // Anything left tops consumers back up toward nominal, still in priority order
+    for (Consumer consumer : m_byPriority) {
+      double grant = MathUtil.clamp(consumer.nominalLimit * consumer.motorCount - consumer.allocated,
+                                    0.0, Math.max(0.0, remaining));
+      consumer.allocated += grant;
+      remaining -= grant;
+    }
+
+    for (Consumer consumer : m_byPriority) {
+      apply(consumer);
+    }
+
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putNumber("Power/Budget (A)", m_budget);
+    nt.putNumber("Power/Filtered Voltage (V)", m_filteredVoltage);
+    nt.putNumber("Power/Limit Writes", m_limitWrites);
+    nt.putNumber("Power/Expected Demand (A)", expectedDemand);
+    nt.putNumber("Power/Battery Voc (V)", m_battery.getOpenCircuitVoltage());
+    nt.putNumber("Power/Battery Resistance (mOhm)", m_battery.getInternalResistance() * 1000.0);
+    nt.putBoolean("Power/Battery Model Converged", m_battery.isConverged());
+  }
+
+  /**
+   * Total current budget for a battery voltage
+   *
+   * @param voltage Filtered battery voltage
+   * @return Budget in amps
+   */
+  private static double getBudget(double voltage) {
+    double fraction = (voltage - PowerConstants.kDerateEndVoltage)
+        / (PowerConstants.kDerateStartVoltage - PowerConstants.kDerateEndVoltage);
+    fraction = MathUtil.clamp(fraction, PowerConstants.kMinBudgetFraction, 1.0);
+    return PowerConstants.kMaxTotalCurrentAmps * fraction;
+  }
+
+  /**
+   * Round the allocation to a per-motor limit and write it only if it changed
+   */
+  private void apply(Consumer consumer) {
+    int perMotor = (int) (consumer.allocated / consumer.motorCount);
+    perMotor -= perMotor % PowerConstants.kLimitStepAmps;
+    perMotor = Math.max(consumer.minLimit, Math.min(consumer.nominalLimit, perMotor));
+
+    if (perMotor != consumer.appliedLimit) {
+      consumer.applyLimit.accept(perMotor);
+      consumer.appliedLimit = perMotor;
+      m_limitWrites++;
+    }
+    consumer.outputScale = Math.max(PowerConstants.kMinOutputScale,
+                                    (double) perMotor / consumer.nominalLimit);
+
+    NTWriteCoalescer nt = NTWriteCoalescer.getInstance();
+    nt.putNumber("Power/" + consumer.name + " Limit (A)", perMotor);
+    nt.putNumber("Power/" + consumer.name + " Scale", consumer.outputScale);
+  }
+}
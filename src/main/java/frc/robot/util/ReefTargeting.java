@@ -0,0 +1,289 @@
+package frc.robot.util;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * Pose-based targeting for the reef
+ * Loads the AprilTag field layout once and flattens the reef faces into primitive arrays,
+ * so the heading and distance to the nearest reef face can be computed every loop from the
+ * fused pose without allocating. Works before the tag is in the camera's field of view.
+ */
+public class ReefTargeting {
+  // Reef face AprilTag IDs (2025 Reefscape)
+  private static final int[] RED_REEF_TAGS = {6, 7, 8, 9, 10, 11};
+  private static final int[] BLUE_REEF_TAGS = {17, 18, 19, 20, 21, 22};
+
+  // Flat index of reef faces (one entry per tag)
+  private final int m_faceCount;
+  private final int[] m_tagId;
+  private final boolean[] m_isRed;
+  private final double[] m_tagX; // Tag position on field (meters)
+  private final double[] m_tagY;
+  private final double[] m_normalX; // Unit vector pointing out of the face
+  private final double[] m_normalY;
+  private final double[] m_scoringX; // Robot center when scoring on this face
+  private final double[] m_scoringY;
+  private final double[] m_scoringHeading; // Robot heading when facing this face (radians)
+
+  private boolean m_redAlliance = false;
+
+  // Results of the last update() call
+  private int m_bestFace = -1;
+  private double m_distance = 0.0;
+  private double m_targetHeading = 0.0;
+  private double m_headingError = 0.0;
+
+  /**
+   * Creates reef targeting using this season's field layout
+   */
+  public ReefTargeting() {
+    this(AprilTagFieldLayout.loadField(AprilTagFields.k2025Reefscape));
+  }
+
+  /**
+   * Creates reef targeting from a specific field layout
+   *
+   * @param layout AprilTag field layout containing the reef tags
+   */
+  public ReefTargeting(AprilTagFieldLayout layout) {
+    int total = RED_REEF_TAGS.length + BLUE_REEF_TAGS.length;
+    int[] tagId = new int[total];
+    boolean[] isRed = new boolean[total];
+    double[] tagX = new double[total];
+    double[] tagY = new double[total];
+    double[] normalX = new double[total];
+    double[] normalY = new double[total];
+    double[] scoringX = new double[total];
+    double[] scoringY = new double[total];
+    double[] scoringHeading = new double[total];
+
+    int count = 0;
+    for (int i = 0; i < total; i++) {
+      boolean red = i < RED_REEF_TAGS.length;
+      int id = red ? RED_REEF_TAGS[i] : BLUE_REEF_TAGS[i - RED_REEF_TAGS.length];
+
+      var tagPose = layout.getTagPose(id);
+      if (tagPose.isEmpty()) {
+        System.err.println("⚠️ WARNING: Reef tag " + id + " missing from field layout");
+        continue;
+      }
+
+      Pose2d pose = tagPose.get().toPose2d();
+      double facing = pose.getRotation().getRadians();
+      tagId[count] = id;
+      isRed[count] = red;
+      tagX[count] = pose.getX();
+      tagY[count] = pose.getY();
+      normalX[count] = Math.cos(facing);
+      normalY[count] = Math.sin(facing);
+      scoringX[count] = tagX[count] + normalX[count] * VisionConstants.kReefStandoffMeters;
+      scoringY[count] = tagY[count] + normalY[count] * VisionConstants.kReefStandoffMeters;
+      scoringHeading[count] = MathUtil.angleModulus(facing + Math.PI); // Face back toward the tag
+      count++;
+    }
+
+    m_faceCount = count;
+    m_tagId = tagId;
+    m_isRed = isRed;
+    m_tagX = tagX;
+    m_tagY = tagY;
+    m_normalX = normalX;
+    m_normalY = normalY;
+    m_scoringX = scoringX;
+    m_scoringY = scoringY;
+    m_scoringHeading = scoringHeading;
+
+    System.out.println("✓ Reef targeting loaded " + m_faceCount + " reef faces");
+  }
+
+  /**
+   * Read the alliance color from the Driver Station
+   * Call this when a targeting command starts, not every loop
+   */
+  public void refreshAlliance() {
+    var alliance = DriverStation.getAlliance();
+    m_redAlliance = alliance.isPresent() && alliance.get() == DriverStation.Alliance.Red;
+  }
+
+  /**
+   * Find the nearest valid reef face from the given pose
+   *
+   * @param pose Current fused robot pose
+   * @return true if a valid face was found
+   */
+  public boolean update(Pose2d pose) {
+    return update(pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  /**
+   * Find the nearest valid reef face from the given robot position
+   * A face is valid if it belongs to our alliance's reef, faces the robot,
+   * and is within targeting range
+   *
+   * @param x Robot X position in meters
+   * @param y Robot Y position in meters
+   * @param headingRadians Robot heading in radians
+   * @return true if a valid face was found
+   */
+  public boolean update(double x, double y, double headingRadians) {
+    int best = -1;
+    double bestDistanceSq = VisionConstants.kReefMaxTargetingDistanceMeters
+        * VisionConstants.kReefMaxTargetingDistanceMeters;
+
+    for (int i = 0; i < m_faceCount; i++) {
+      if (m_isRed[i] != m_redAlliance) {
+        continue;
+      }
+
+      double dx = x - m_tagX[i];
+      double dy = y - m_tagY[i];
+
+      // Skip faces pointing away from the robot (other side of the reef)
+      if (dx * m_normalX[i] + dy * m_normalY[i] <= 0.0) {
+        continue;
+      }
+
+      double distanceSq = dx * dx + dy * dy;
+      if (distanceSq < bestDistanceSq) {
+        bestDistanceSq = distanceSq;
+        best = i;
+      }
+    }
+
+    m_bestFace = best;
+    if (best < 0) {
+      m_distance = 0.0;
+      m_headingError = 0.0;
+      return false;
+    }
+
+    m_distance = Math.sqrt(bestDistanceSq);
+    m_targetHeading = Math.atan2(m_tagY[best] - y, m_tagX[best] - x);
+    m_headingError = MathUtil.angleModulus(m_targetHeading - headingRadians);
+    return true;
+  }
+
+  /**
+   * Check if the last update found a valid reef face
+   *
+   * @return true if a face is being targeted
+   */
+  public boolean hasTarget() {
+    return m_bestFace >= 0;
+  }
+
+  /**
+   * Get the AprilTag ID of the targeted reef face
+   *
+   * @return Tag ID, or -1 if no target
+   */
+  public int getTargetTagId() {
+    return m_bestFace >= 0 ? m_tagId[m_bestFace] : -1;
+  }
+
+  /**
+   * Get the distance from the robot center to the targeted reef face
+   *
+   * @return Distance in meters (0 if no target)
+   */
+  public double getDistanceMeters() {
+    return m_distance;
+  }
+
+  /**
+   * Get the field heading that points the robot at the targeted face
+   *
+   * @return Heading in radians
+   */
+  public double getTargetHeadingRadians() {
+    return m_targetHeading;
+  }
+
+  /**
+   * Get how far the robot must rotate to point at the targeted face
+   * Positive = rotate counter-clockwise
+   *
+   * @return Heading error in radians (-pi to pi, 0 if no target)
+   */
+  public double getHeadingErrorRadians() {
+    return m_headingError;
+  }
+
+  /**
+   * Get the X position of the targeted tag
+   *
+   * @return Tag X in meters
+   */
+  public double getTargetTagX() {
+    return m_bestFace >= 0 ? m_tagX[m_bestFace] : 0.0;
+  }
+
+  /**
+   * Get the Y position of the targeted tag
+   *
+   * @return Tag Y in meters
+   */
+  public double getTargetTagY() {
+    return m_bestFace >= 0 ? m_tagY[m_bestFace] : 0.0;
+  }
+
+  /**
+   * Get the robot pose for scoring on the targeted face
+   * Allocates a new Pose2d, so call it once per command rather than every loop
+   *
+   * @return Scoring pose, or null if no target
+   */
+  public Pose2d getScoringPose() {
+    return getBranchScoringPose(0.0);
+  }
+
+  /**
+   * Get the robot pose for scoring on one branch of the targeted face
+   *
+   * @param leftBranch true for the branch on the robot's left when facing the reef
+   * @return Scoring pose, or null if no target
+   */
+  public Pose2d getBranchScoringPose(boolean leftBranch) {
+    return getBranchScoringPose(leftBranch
+        ? VisionConstants.kReefBranchOffsetMeters
+        : -VisionConstants.kReefBranchOffsetMeters);
+  }
+
+  /**
+   * Get the scoring pose for a specific reef tag, regardless of alliance or robot position
+   *
+   * @param tagId AprilTag ID of the reef face
+   * @return Scoring pose, or null if the tag is not a reef face
+   */
+  public Pose2d getScoringPoseForTag(int tagId) {
+    for (int i = 0; i < m_faceCount; i++) {
+      if (m_tagId[i] == tagId) {
+        return new Pose2d(m_scoringX[i], m_scoringY[i], new Rotation2d(m_scoringHeading[i]));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Scoring pose on the targeted face shifted sideways along the face
+   *
+   * @param leftOffsetMeters Offset to the robot's left when facing the reef
+   * @return Scoring pose, or null if no target
+   */
+  private Pose2d getBranchScoringPose(double leftOffsetMeters) {
+    if (m_bestFace < 0) {
+      return null;
+    }
+    // Robot's left when facing the face is (normalY, -normalX)
+    return new Pose2d(
+        m_scoringX[m_bestFace] + m_normalY[m_bestFace] * leftOffsetMeters,
+        m_scoringY[m_bestFace] - m_normalX[m_bestFace] * leftOffsetMeters,
+        new Rotation2d(m_scoringHeading[m_bestFace]));
+  }
+}
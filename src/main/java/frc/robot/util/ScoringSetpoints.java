@@ -0,0 +1,114 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmMotionPlanner;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+
+/**
+ * Arm scoring setpoints that follow the distance to the reef
+ * The distance to the nearest reef face (from the fused pose, so vision is already included)
+ * is looked up in interpolating tables that give an arm angle and extension offset from the
+ * scoring preset. The robot can then score from farther out instead of driving to the exact
+ * standoff first. The adjusted setpoint is clamped to the arm's safe envelope, so a level
+ * that is already near a limit (e.g. L4 extension) stops at the limit instead of producing a
+ * setpoint the motion planner would reject. Call refreshAlliance() when a scoring command
+ * starts and update() every loop while it runs.
+ */
+public class ScoringSetpoints {
+  private final ReefTargeting m_targeting;
+  private final InterpolatingArrayMap m_armOffsets = new InterpolatingArrayMap(
+      ArmConstants.kScoringDistancesMeters, ArmConstants.kScoringArmOffsets);
+  private final InterpolatingArrayMap m_extensionOffsets = new InterpolatingArrayMap(
+      ArmConstants.kScoringDistancesMeters, ArmConstants.kScoringExtensionOffsets);
+
+  // Results of the last update() call
+  private boolean m_inRange = false;
+  private double m_distance = 0.0;
+  private double m_armOffset = 0.0;
+  private double m_extensionOffset = 0.0;
+
+  /**
+   * Creates the setpoint service
+   *
+   * @param targeting Reef targeting used to find the nearest face
+   */
+  public ScoringSetpoints(ReefTargeting targeting) {
+    m_targeting = targeting;
+  }
+
+  /**
+   * Read the alliance color so distances are measured to our own reef
+   * Call this when a scoring command starts, not every loop
+   */
+  public void refreshAlliance() {
+    m_targeting.refreshAlliance();
+  }
+
+  /**
+   * Recompute the offsets for the current pose
+   *
+   * @param pose Current fused robot pose
+   * @return true if a reef face is within scoring range
+   */
+  public boolean update(Pose2d pose) {
+    m_inRange = m_targeting.update(pose)
+        && m_targeting.getDistanceMeters() <= m_armOffsets.getMaxKey();
+    m_distance = m_targeting.getDistanceMeters();
+    if (m_inRange) {
+      m_armOffset = m_armOffsets.get(m_distance);
+      m_extensionOffset = m_extensionOffsets.get(m_distance);
+    } else {
+      m_armOffset = 0.0;
+      m_extensionOffset = 0.0;
+    }
+    return m_inRange;
+  }
+
+  /**
+   * Check if the last update found a reef face within scoring range
+   *
+   * @return true if in range
+   */
+  public boolean isInRange() {
+    return m_inRange;
+  }
+
+  /**
+   * Get the distance to the targeted reef face
+   *
+   * @return Distance in meters (0 if no target)
+   */
+  public double getDistanceMeters() {
+    return m_distance;
+  }
+
+  /**
+   * Get the arm angle for a scoring level at the current distance
+   *
+   * @param level Scoring preset
+   * @return Arm angle in encoder ticks (the preset itself when out of range)
+   */
+  public double getArmAngle(ArmPosition level) {
+    double extension = getExtension(level);
+    double arm = MathUtil.clamp(level.getArmAngle() + m_armOffset,
+                                ArmConstants.kMinArmPosition, ArmConstants.kMaxArmPosition);
+    if (!ArmMotionPlanner.isConfigurationSafe(arm, extension)) {
+      // Extended - the arm angle range is narrower
+      arm = MathUtil.clamp(arm, ArmConstants.kMinArmPositionExtended, ArmConstants.kMaxArmPositionExtended);
+    }
+    return arm;
+  }
+
+  /**
+   * Get the extension for a scoring level at the current distance
+   *
+   * @param level Scoring preset
+   * @return Extension in encoder ticks (the preset itself when out of range)
+   */
+  public double getExtension(ArmPosition level) {
+    return MathUtil.clamp(level.getExtension() + m_extensionOffset,
+                          ArmConstants.kRetractedPosition, ArmConstants.kMaxExtensionPosition);
+  }
+}
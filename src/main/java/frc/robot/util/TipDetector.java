@@ -0,0 +1,129 @@
+package frc.robot.util;
+
+import frc.robot.Constants.TippingConstants;
+
+/**
+ * Tip detection and corrective drive vector from pitch and roll
+ * Recovery starts when the tilt crosses the tip angle, or when it is tilting fast while
+ * already leaning. It ends once the tilt drops back below the recovered angle. The
+ * correction drives the wheels toward the low side, back under the center of mass.
+ * Tilt is measured from a level baseline captured at boot (setLevel()), so a NavX that isn't
+ * mounted perfectly flat doesn't count as a lean.
+ *
+ * update() is called from the NavX callback thread, so results are published through
+ * volatile fields and can be read from the main thread.
+ */
+public class TipDetector {
+  private static final double RATE_FILTER = 0.5; // Low-pass weight of the newest tilt rate sample
+  private static final double MAX_DT = 0.1; // seconds - ignore rates across longer gaps
+
+  private double m_lastTilt = 0.0;
+  private double m_lastTime = Double.NaN;
+  private double m_tiltRate = 0.0;
+
+  private volatile double m_levelPitch = 0.0; // Baseline from setLevel()
+  private volatile double m_levelRoll = 0.0;
+
+  private volatile boolean m_tipping = false;
+  private volatile double m_tilt = 0.0;
+  private volatile double m_correctionVx = 0.0;
+  private volatile double m_correctionVy = 0.0;
+
+  /**
+   * Process a new sample
+   *
+   * @param pitchDegrees Pitch from the NavX
+   * @param rollDegrees Roll from the NavX
+   * @param timestampSeconds Sample time
+   * @return true if recovery is active
+   */
+  public boolean update(double pitchDegrees, double rollDegrees, double timestampSeconds) {
+    pitchDegrees -= m_levelPitch;
+    rollDegrees -= m_levelRoll;
+    double tilt = Math.hypot(pitchDegrees, rollDegrees);
+    double dt = timestampSeconds - m_lastTime;
+    if (dt > 0.0 && dt < MAX_DT) {
+      m_tiltRate += RATE_FILTER * ((tilt - m_lastTilt) / dt - m_tiltRate);
+    }
+    m_lastTilt = tilt;
+    m_lastTime = timestampSeconds;
+
+    boolean tipping;
+    if (m_tipping) {
+      tipping = tilt > TippingConstants.kTipRecoveredAngleDegrees;
+    } else {
+      tipping = tilt > TippingConstants.kTipAngleDegrees
+          || (m_tiltRate > TippingConstants.kTipRateDegreesPerSecond
+              && tilt > TippingConstants.kTipRateMinAngleDegrees);
+    }
+
+    double vx = 0.0;
+    double vy = 0.0;
+    if (tipping) {
+      vx = TippingConstants.kPitchSign * TippingConstants.kTipCorrectionGain * pitchDegrees;
+      vy = TippingConstants.kRollSign * TippingConstants.kTipCorrectionGain * rollDegrees;
+      double speed = Math.hypot(vx, vy);
+      if (speed > TippingConstants.kTipMaxCorrectionSpeed) {
+        vx *= TippingConstants.kTipMaxCorrectionSpeed / speed;
+        vy *= TippingConstants.kTipMaxCorrectionSpeed / speed;
+      }
+    }
+
+    m_tilt = tilt;
+    m_correctionVx = vx;
+    m_correctionVy = vy;
+    m_tipping = tipping;
+    return tipping;
+  }
+
+  /**
+   * Capture the level baseline - call while the robot is sitting flat
+   *
+   * @param pitchDegrees Current NavX pitch
+   * @param rollDegrees Current NavX roll
+   */
+  public void setLevel(double pitchDegrees, double rollDegrees) {
+    m_levelPitch = pitchDegrees;
+    m_levelRoll = rollDegrees;
+  }
+
+  /**
+   * Clear recovery and the tilt rate history (e.g. while detection is suspended)
+   * Call from the same thread as update().
+   */
+  public void reset() {
+    m_lastTime = Double.NaN;
+    m_tiltRate = 0.0;
+    m_correctionVx = 0.0;
+    m_correctionVy = 0.0;
+    m_tipping = false;
+  }
+
+  /**
+   * @return true while tip recovery is active
+   */
+  public boolean isTipping() {
+    return m_tipping;
+  }
+
+  /**
+   * @return Total tilt in degrees
+   */
+  public double getTiltDegrees() {
+    return m_tilt;
+  }
+
+  /**
+   * @return Corrective robot-relative X velocity (m/s)
+   */
+  public double getCorrectionVx() {
+    return m_correctionVx;
+  }
+
+  /**
+   * @return Corrective robot-relative Y velocity (m/s)
+   */
+  public double getCorrectionVy() {
+    return m_correctionVy;
+  }
+}
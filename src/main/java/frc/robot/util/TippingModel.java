@@ -0,0 +1,94 @@
+package frc.robot.util;
+
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.TippingConstants;
+
+/**
+ * Center-of-mass tipping model for the drivetrain limits
+ * The robot is a chassis mass plus an arm mass whose CoM moves with the arm angle and
+ * extension. The robot tips when a * h > g * d, where h is the CoM height and d is the
+ * horizontal distance from the CoM to the nearest wheel contact line. The allowed
+ * acceleration is that limit times a safety factor, capped at the traction limit.
+ *
+ * Max speed is derated with the square root of the acceleration ratio, which keeps the
+ * stopping distance the same as with the arm stowed. Call update() once per loop.
+ */
+public class TippingModel {
+  private static final double GRAVITY = 9.81; // m/s²
+
+  private double m_comHeight;
+  private double m_comX;
+  private double m_maxAcceleration = DriveConstants.kMaxAccelerationMetersPerSecondSquared;
+  private double m_scale = 1.0;
+
+  /**
+   * Recompute the limits for an arm configuration
+   *
+   * @param armTicks Arm angle in encoder ticks
+   * @param extensionTicks Extension in encoder ticks
+   */
+  public void update(double armTicks, double extensionTicks) {
+    double angle = TippingConstants.kArmStowedAngleRadians + armTicks * TippingConstants.kArmRadiansPerTick;
+    double radius = TippingConstants.kArmCoMRadiusMeters
+        + Math.max(0.0, extensionTicks) * TippingConstants.kExtensionCoMMetersPerTick;
+    double armX = TippingConstants.kArmPivotXMeters + radius * Math.cos(angle);
+    double armZ = TippingConstants.kArmPivotHeightMeters + radius * Math.sin(angle);
+
+    double totalMass = TippingConstants.kChassisMassKg + TippingConstants.kArmMassKg;
+    m_comX = TippingConstants.kArmMassKg * armX / totalMass;
+    m_comHeight = Math.max(0.01,
+        (TippingConstants.kChassisMassKg * TippingConstants.kChassisCoMHeightMeters
+            + TippingConstants.kArmMassKg * armZ) / totalMass);
+
+    // Nearest tipping edge - front/back shrinks as the CoM moves forward or back, sides don't
+    double support = Math.min(DriveConstants.kWheelBaseMeters / 2 - Math.abs(m_comX),
+                              DriveConstants.kTrackWidthMeters / 2);
+    double tipping = GRAVITY * Math.max(0.0, support) / m_comHeight;
+
+    m_maxAcceleration = Math.min(DriveConstants.kMaxAccelerationMetersPerSecondSquared,
+                                 tipping * TippingConstants.kSafetyFactor);
+    m_scale = m_maxAcceleration / DriveConstants.kMaxAccelerationMetersPerSecondSquared;
+  }
+
+  /**
+   * @return Allowed translational acceleration (m/s²)
+   */
+  public double getMaxAcceleration() {
+    return m_maxAcceleration;
+  }
+
+  /**
+   * @return Allowed translational speed (m/s)
+   */
+  public double getMaxSpeed() {
+    return DriveConstants.kMaxSpeedMetersPerSecond * Math.sqrt(m_scale);
+  }
+
+  /**
+   * @return Allowed angular acceleration (rad/s²)
+   */
+  public double getMaxAngularAcceleration() {
+    return DriveConstants.kMaxAngularAccelerationRadiansPerSecondSquared * m_scale;
+  }
+
+  /**
+   * @return Allowed angular speed (rad/s)
+   */
+  public double getMaxAngularSpeed() {
+    return DriveConstants.kMaxAngularSpeed * Math.sqrt(m_scale);
+  }
+
+  /**
+   * @return Combined center of mass height (meters)
+   */
+  public double getCoMHeight() {
+    return m_comHeight;
+  }
+
+  /**
+   * @return Combined center of mass forward of robot center (meters)
+   */
+  public double getCoMX() {
+    return m_comX;
+  }
+}
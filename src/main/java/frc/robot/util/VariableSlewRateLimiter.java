@@ -0,0 +1,43 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Slew rate limiter whose rate can change every call
+ * WPILib's SlewRateLimiter fixes the rate at construction; this one takes it as an argument,
+ * so limits computed each loop (e.g. from the tipping model) can be applied directly.
+ */
+public class VariableSlewRateLimiter {
+  private static final double MAX_DT = 0.1; // seconds - longer gaps don't allow a bigger jump
+
+  private double m_value = 0.0;
+  private double m_lastTime = Double.NaN;
+
+  /**
+   * Move toward the input by at most rateLimit * dt
+   *
+   * @param input Desired value
+   * @param rateLimit Maximum rate of change (units per second)
+   * @return Limited value
+   */
+  public double calculate(double input, double rateLimit) {
+    double now = Timer.getFPGATimestamp();
+    double dt = Double.isNaN(m_lastTime) ? 0.0 : Math.min(now - m_lastTime, MAX_DT);
+    m_lastTime = now;
+
+    double maxStep = rateLimit * dt;
+    m_value += MathUtil.clamp(input - m_value, -maxStep, maxStep);
+    return m_value;
+  }
+
+  /**
+   * Reset the limiter to a value
+   *
+   * @param value Value to continue from
+   */
+  public void reset(double value) {
+    m_value = value;
+    m_lastTime = Double.NaN;
+  }
+}
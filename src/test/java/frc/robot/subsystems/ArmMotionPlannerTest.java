@@ -0,0 +1,79 @@
+package frc.robot.subsystems;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmSubsystem.ArmPosition;
+
+/**
+ * Unit tests for the arm motion planner
+ */
+public class ArmMotionPlannerTest {
+  private final ArmMotionPlanner m_planner = new ArmMotionPlanner();
+
+  /**
+   * Check that every segment of a plan (including from the start) is collision-free
+   */
+  private void assertPlanSafe(double startArm, double startExt, double[] plan) {
+    assertNotNull("Plan should exist", plan);
+    assertEquals("Plan should hold arm/extension pairs", 0, plan.length % 2);
+
+    double arm = startArm;
+    double ext = startExt;
+    for (int i = 0; i < plan.length; i += 2) {
+      assertTrue("Segment " + i / 2 + " should be collision-free",
+                 m_planner.isMoveSafe(arm, ext, plan[i], plan[i + 1]));
+      arm = plan[i];
+      ext = plan[i + 1];
+    }
+  }
+
+  @Test
+  public void testCollisionRule() {
+    assertTrue("Stowed should be safe",
+               ArmMotionPlanner.isConfigurationSafe(ArmConstants.kStowedPosition, ArmConstants.kRetractedPosition));
+    assertFalse("Extended at stowed angle should collide",
+                ArmMotionPlanner.isConfigurationSafe(ArmConstants.kStowedPosition, ArmConstants.kExtendedPosition));
+    assertFalse("Beyond max extension should be unsafe",
+                ArmMotionPlanner.isConfigurationSafe(ArmConstants.kLevel3Position,
+                                                     ArmConstants.kMaxExtensionPosition + 1));
+  }
+
+  @Test
+  public void testAllPresetPlansAreSafe() {
+    for (ArmPosition from : ArmPosition.values()) {
+      for (ArmPosition to : ArmPosition.values()) {
+        double[] plan = m_planner.getPlan(from, to);
+        assertPlanSafe(from.getArmAngle(), from.getExtension(), plan);
+        assertEquals("Plan should end at the target arm angle",
+                     to.getArmAngle(), plan[plan.length - 2], 1e-9);
+        assertEquals("Plan should end at the target extension",
+                     to.getExtension(), plan[plan.length - 1], 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testDirectMoveWhenClear() {
+    // Both retracted - nothing in the way
+    double[] plan = m_planner.getPlan(ArmPosition.STOWED, ArmPosition.LEVEL_2);
+    assertEquals("Clear move should be a single waypoint", 2, plan.length);
+  }
+
+  @Test
+  public void testStowedToExtendedAvoidsFrame() {
+    // Extending at the stowed angle would hit the frame, so the arm must raise first
+    double[] plan = m_planner.getPlan(ArmPosition.STOWED, ArmPosition.LEVEL_4);
+    assertTrue("Move should need an intermediate waypoint", plan.length > 2);
+    assertTrue("First waypoint should not extend into the frame",
+               plan[1] <= ArmConstants.kRetractedPosition + 100);
+  }
+
+  @Test
+  public void testUnsafeGoalRejected() {
+    assertNull("Unsafe goal should have no plan",
+               m_planner.plan(ArmConstants.kStowedPosition, ArmConstants.kRetractedPosition,
+                              ArmConstants.kStowedPosition, ArmConstants.kExtendedPosition));
+  }
+}
@@ -0,0 +1,73 @@
+package frc.robot.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unit tests for the online battery model
+ */
+public class BatteryEstimatorTest {
+  private static final double VOC = 12.4;
+  private static final double RESISTANCE = 0.03;
+
+  /**
+   * Feed samples from a V = Voc - R * I battery with a current that steps between levels
+   */
+  private BatteryEstimator feed(BatteryEstimator estimator, double voc, double resistance, int samples) {
+    Random random = new Random(6045);
+    double current = 10.0;
+    for (int i = 0; i < samples; i++) {
+      if (i % 25 == 0) {
+        current = 10.0 + 150.0 * random.nextDouble();
+      }
+      double noise = 0.02 * random.nextGaussian();
+      estimator.update(voc - resistance * current + noise, current);
+    }
+    return estimator;
+  }
+
+  @Test
+  public void testConvergesToBatteryModel() {
+    BatteryEstimator estimator = feed(new BatteryEstimator(), VOC, RESISTANCE, 1000);
+    assertTrue("Varying current should converge the fit", estimator.isConverged());
+    assertEquals(VOC, estimator.getOpenCircuitVoltage(), 0.05);
+    assertEquals(RESISTANCE, estimator.getInternalResistance(), 0.003);
+  }
+
+  @Test
+  public void testPredictions() {
+    BatteryEstimator estimator = feed(new BatteryEstimator(), VOC, RESISTANCE, 1000);
+    assertEquals("200A should sag by I * R", VOC - 200.0 * RESISTANCE, estimator.predictVoltage(200.0), 0.2);
+    assertEquals("Max current should reach the floor", (VOC - 7.5) / RESISTANCE, estimator.getMaxCurrent(7.5), 15.0);
+    assertEquals("Already below the floor", 0.0, estimator.getMaxCurrent(13.0), 1e-9);
+  }
+
+  @Test
+  public void testTracksBatteryChange() {
+    // A weaker battery after the first fit - forgetting lets the model follow it
+    BatteryEstimator estimator = feed(new BatteryEstimator(), VOC, RESISTANCE, 1000);
+    feed(estimator, 11.8, 0.05, 2000);
+    assertEquals(11.8, estimator.getOpenCircuitVoltage(), 0.05);
+    assertEquals(0.05, estimator.getInternalResistance(), 0.005);
+  }
+
+  @Test
+  public void testSteadyCurrentDoesNotConverge() {
+    BatteryEstimator estimator = new BatteryEstimator();
+    for (int i = 0; i < 1000; i++) {
+      estimator.update(VOC - RESISTANCE * 40.0, 40.0);
+    }
+    assertFalse("Constant current can't separate Voc from R", estimator.isConverged());
+    assertEquals("Prediction at the measured current should still match",
+                 VOC - RESISTANCE * 40.0, estimator.predictVoltage(40.0), 0.01);
+  }
+
+  @Test
+  public void testBeforeFirstSample() {
+    BatteryEstimator estimator = new BatteryEstimator();
+    assertTrue(Double.isNaN(estimator.predictVoltage(100.0)));
+    assertEquals(Double.POSITIVE_INFINITY, estimator.getMaxCurrent(7.5), 0.0);
+  }
+}
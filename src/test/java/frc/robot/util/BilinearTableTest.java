@@ -0,0 +1,60 @@
+package frc.robot.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for the bilinear lookup table
+ */
+public class BilinearTableTest {
+
+  private BilinearTable createTable() {
+    // v = x + 10 * y on a 3x3 grid (bilinear interpolation reproduces it exactly)
+    BilinearTable table = new BilinearTable(0.0, 100.0, 3, 0.0, 1.0, 3);
+    for (int ix = 0; ix < 3; ix++) {
+      for (int iy = 0; iy < 3; iy++) {
+        table.set(ix, iy, table.getX(ix) + 10.0 * table.getY(iy));
+      }
+    }
+    return table;
+  }
+
+  @Test
+  public void testGridPoints() {
+    BilinearTable table = createTable();
+    assertEquals(0.0, table.get(0.0, 0.0), 1e-9);
+    assertEquals(220.0, table.get(200.0, 2.0), 1e-9);
+  }
+
+  @Test
+  public void testInterpolation() {
+    BilinearTable table = createTable();
+    assertEquals("Midpoint should interpolate", 65.0, table.get(50.0, 1.5), 1e-9);
+    assertEquals("Last cell should interpolate", 170.0, table.get(150.0, 2.0), 1e-9);
+  }
+
+  @Test
+  public void testClampsOutsideGrid() {
+    BilinearTable table = createTable();
+    assertEquals("Below grid should clamp", 0.0, table.get(-50.0, -1.0), 1e-9);
+    assertEquals("Above grid should clamp", 220.0, table.get(500.0, 9.0), 1e-9);
+  }
+
+  @Test
+  public void testCsvRoundTrip() throws Exception {
+    BilinearTable table = createTable();
+    Path file = Files.createTempFile("bilinear", ".csv");
+    try {
+      table.writeCsv(file, "test table");
+      BilinearTable loaded = BilinearTable.loadCsv(file);
+      assertEquals(3, loaded.getXCount());
+      assertEquals(3, loaded.getYCount());
+      assertEquals(table.get(120.0, 0.7), loaded.get(120.0, 0.7), 1e-3);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package frc.robot.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the sorted-array interpolating map
+ */
+public class InterpolatingArrayMapTest {
+
+  @Test
+  public void testInterpolatesBetweenPoints() {
+    InterpolatingArrayMap map = new InterpolatingArrayMap(
+        new double[] {0.5, 1.0, 2.0}, new double[] {10.0, 20.0, 0.0});
+    assertEquals(10.0, map.get(0.5), 1e-9);
+    assertEquals("Midpoint should interpolate", 15.0, map.get(0.75), 1e-9);
+    assertEquals("Falling segment should interpolate", 5.0, map.get(1.75), 1e-9);
+  }
+
+  @Test
+  public void testClampsOutsideRange() {
+    InterpolatingArrayMap map = new InterpolatingArrayMap(
+        new double[] {0.5, 1.0}, new double[] {10.0, 20.0});
+    assertEquals("Below range should clamp", 10.0, map.get(0.0), 1e-9);
+    assertEquals("Above range should clamp", 20.0, map.get(5.0), 1e-9);
+  }
+
+  @Test
+  public void testUnsortedInsertAndReplace() {
+    InterpolatingArrayMap map = new InterpolatingArrayMap();
+    for (int i = 20; i >= 0; i--) {
+      map.put(i, i * 2.0); // Reverse order, more points than the initial capacity
+    }
+    map.put(10.0, 0.0); // Replace an existing key
+    assertEquals(21, map.size());
+    assertEquals(0.0, map.getMinKey(), 1e-9);
+    assertEquals(20.0, map.getMaxKey(), 1e-9);
+    assertEquals(7.0, map.get(3.5), 1e-9);
+    assertEquals("Replaced value should be used", 9.0, map.get(9.5), 1e-9);
+  }
+
+  @Test
+  public void testEmptyMapReturnsZero() {
+    assertEquals(0.0, new InterpolatingArrayMap().get(1.0), 1e-9);
+  }
+}